@@ -0,0 +1,68 @@
+package com.example.essaychecker.benchmark;
+
+import com.example.essaychecker.dto.ApiResponse;
+import com.example.essaychecker.entity.Essay;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作文列表统一响应的Jackson序列化基准测试
+ * ObjectMapper按Spring Boot默认方式配置（注册JavaTimeModule，日期输出为ISO字符串）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiResponseBenchmark {
+
+    @Param({"20", "200"})
+    private int essayCount;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<List<Essay>> response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        String[] samples = {"short", "medium", "long"};
+        LocalDateTime now = LocalDateTime.now();
+        List<Essay> essays = new ArrayList<>(essayCount);
+        for (int i = 0; i < essayCount; i++) {
+            Essay essay = new Essay(1L, "作文" + (i + 1), Fixtures.essay(samples[i % samples.length]));
+            essay.setId((long) i + 1);
+            essay.setCreatedAt(now.minusDays(i));
+            essay.setUpdatedAt(now.minusDays(i));
+            essays.add(essay);
+        }
+        response = ApiResponse.success(essays);
+    }
+
+    @Benchmark
+    public byte[] serializeEssayList() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
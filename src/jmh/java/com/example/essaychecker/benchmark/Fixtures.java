@@ -0,0 +1,45 @@
+package com.example.essaychecker.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基准测试用的样本数据
+ * 作文样本在 fixtures/essays 下（short、medium、long），
+ * DeepSeek返回样本在 fixtures/responses 下，包含正常结果和各种格式错误的结果
+ */
+public final class Fixtures {
+
+    private Fixtures() {}
+
+    /**
+     * 读取作文样本
+     * @param name 样本名（short、medium、long）
+     * @return 作文内容
+     */
+    public static String essay(String name) {
+        return load("fixtures/essays/" + name + ".txt");
+    }
+
+    /**
+     * 读取AI返回样本
+     * @param fileName 样本文件名
+     * @return 返回内容
+     */
+    public static String response(String fileName) {
+        return load("fixtures/responses/" + fileName);
+    }
+
+    private static String load(String path) {
+        try (InputStream in = Fixtures.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("样本不存在: " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.benchmark.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIService提示词构建和请求体序列化的基准测试
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AIServiceBenchmark {
+
+    @Param({"short", "medium", "long"})
+    private String essay;
+
+    private AIService aiService;
+    private String content;
+    private String prompt;
+
+    @Setup
+    public void setUp() {
+        aiService = new AIService();
+        content = Fixtures.essay(essay);
+        prompt = aiService.buildPrompt(content);
+    }
+
+    @TearDown
+    public void tearDown() {
+        aiService.shutdown();
+    }
+
+    @Benchmark
+    public String buildPrompt() {
+        return aiService.buildPrompt(content);
+    }
+
+    @Benchmark
+    public String buildRequestBody() throws Exception {
+        return aiService.buildRequestBody(prompt, 2000, false);
+    }
+}
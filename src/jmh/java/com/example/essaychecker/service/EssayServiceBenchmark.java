@@ -0,0 +1,162 @@
+package com.example.essaychecker.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.essaychecker.benchmark.Fixtures;
+import com.example.essaychecker.dto.CheckResultDto;
+import com.example.essaychecker.entity.CheckResult;
+import com.example.essaychecker.entity.Essay;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EssayService解析AI返回结果和转换DTO的基准测试
+ * 解析覆盖正常结果和各种格式错误的结果；转换覆盖从数据库读出后首次解码JSON列表的情况
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EssayServiceBenchmark {
+
+    // 转换基准每轮迭代的调用次数，即每轮预先构造的实体数
+    private static final int CONVERT_BATCH_SIZE = 200;
+
+    /**
+     * 解析基准的状态：AI返回样本
+     */
+    @State(Scope.Benchmark)
+    public static class ParseState {
+        @Param({"valid-short.json", "valid-long.json", "fenced.json", "truncated.json", "error.json", "plain-text.txt"})
+        private String response;
+
+        private EssayService essayService;
+        private String payload;
+
+        @Setup
+        public void setUp() throws Exception {
+            essayService = newEssayService();
+            payload = Fixtures.response(response);
+            // 解析失败会打印带堆栈的警告日志，关闭以免测到日志输出
+            ((Logger) LoggerFactory.getLogger(EssayService.class)).setLevel(Level.OFF);
+        }
+    }
+
+    /**
+     * 转换基准的状态：列表字段各有itemCount条的批改结果
+     * 转换会解码并缓存实体的列表字段，每个实体只能测一次：每轮迭代前预先构造一批新实体，每次调用取下一个
+     */
+    @State(Scope.Benchmark)
+    public static class ConvertState {
+        @Param({"10", "100", "1000"})
+        private int itemCount;
+
+        private EssayService essayService;
+        private Essay essay;
+        private String grammarErrorsJson;
+        private String writingSuggestionsJson;
+        private String vocabularyRecommendationsJson;
+        private String textMetricsJson;
+        private CheckResult[] pool;
+        private int next;
+
+        @Setup
+        public void setUp() throws Exception {
+            essayService = newEssayService();
+            essay = new Essay(1L, "论坚持", Fixtures.essay("long"));
+            essay.setId(1L);
+
+            List<String> items = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                items.add("第" + (i + 1) + "处：“非常的美丽”中“的”字多余，建议改为“非常美丽”");
+            }
+            CheckResult template = new CheckResult();
+            template.setGrammarErrors(items);
+            template.setWritingSuggestions(items);
+            template.setVocabularyRecommendations(items);
+            grammarErrorsJson = (String) field("grammarErrorsJson").get(template);
+            writingSuggestionsJson = (String) field("writingSuggestionsJson").get(template);
+            vocabularyRecommendationsJson = (String) field("vocabularyRecommendationsJson").get(template);
+            textMetricsJson = "{\"characterCount\":1400,\"chineseCharCount\":1250,\"sentenceCount\":60,"
+                    + "\"paragraphCount\":12,\"halfWidthPunctuationCount\":2,\"punctuationMisuseCount\":1,"
+                    + "\"repeatedRunCount\":0,\"maxRepeatRun\":2,\"issues\":[\"中文语句中使用了2处半角标点，应使用全角标点\"]}";
+        }
+
+        // 每轮迭代前构造CONVERT_BATCH_SIZE个新实体，模拟刚从数据库读出、列表尚未解码的状态
+        @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+        public void freshEntities() throws Exception {
+            pool = new CheckResult[CONVERT_BATCH_SIZE];
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = freshEntity();
+            }
+            next = 0;
+        }
+
+        private CheckResult freshEntity() throws Exception {
+            CheckResult checkResult = new CheckResult();
+            checkResult.setId(1L);
+            checkResult.setEssayId(1L);
+            checkResult.setFluencyAnalysis("文章整体语言通顺，论证段落之间过渡自然。");
+            checkResult.setLogicEvaluation("文章采用总分总结构，结构完整，论证有层次。");
+            checkResult.setOverallScore(88);
+            checkResult.setCreatedAt(LocalDateTime.now());
+            checkResult.setTextMetrics(textMetricsJson);
+            field("grammarErrorsJson").set(checkResult, grammarErrorsJson);
+            field("writingSuggestionsJson").set(checkResult, writingSuggestionsJson);
+            field("vocabularyRecommendationsJson").set(checkResult, vocabularyRecommendationsJson);
+            return checkResult;
+        }
+
+        CheckResult nextEntity() {
+            return pool[next++ % pool.length];
+        }
+    }
+
+    @Benchmark
+    public CheckResult parseAIResponse(ParseState state) {
+        return state.essayService.parseAIResponse(state.payload, 1L);
+    }
+
+    // 单次转换在微秒级，按批计时：每轮迭代恰好调用CONVERT_BATCH_SIZE次，实体构造不计入
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5, batchSize = CONVERT_BATCH_SIZE)
+    @Measurement(iterations = 20, batchSize = CONVERT_BATCH_SIZE)
+    public CheckResultDto convertToDto(ConvertState state) {
+        return state.essayService.convertToDto(state.nextEntity(), state.essay);
+    }
+
+    // 不启动Spring容器，手动注入解析失败计数用到的MeterRegistry
+    private static EssayService newEssayService() throws Exception {
+        EssayService essayService = new EssayService();
+        Field meterRegistry = EssayService.class.getDeclaredField("meterRegistry");
+        meterRegistry.setAccessible(true);
+        meterRegistry.set(essayService, new SimpleMeterRegistry());
+        return essayService;
+    }
+
+    private static Field field(String name) throws NoSuchFieldException {
+        Field field = CheckResult.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+}
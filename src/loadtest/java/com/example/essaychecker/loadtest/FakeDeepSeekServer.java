@@ -0,0 +1,295 @@
+package com.example.essaychecker.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地DeepSeek替身服务
+ * 实现chat/completions接口（含stream模式），可配置延迟分布、错误率和周期性的429突发；
+ * record模式把真实DeepSeek的返回按提示词哈希保存到本地，replay模式离线重放，未录制的提示词返回固定样例
+ *
+ * 用法：mvn -Ploadtest compile exec:java -Dloadtest.main=com.example.essaychecker.loadtest.FakeDeepSeekServer
+ *      -Dloadtest.args="--port=9999 --latency=lognormal:1200,0.4 --error-rate=0.02 --burst-every=60000 --burst-length=5000"
+ */
+public class FakeDeepSeekServer {
+
+    private static final Logger log = LoggerFactory.getLogger(FakeDeepSeekServer.class);
+
+    // 流式返回时每个数据块的字数
+    private static final int STREAM_PIECE_LENGTH = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final long burstEvery;
+    private final long burstLength;
+    private final int burstRetryAfter;
+    private final String mode;
+    private final Path recordings;
+    private final String upstreamUrl;
+    private final String upstreamKey;
+    private final HttpClient upstreamClient;
+    private final long startedAt = System.currentTimeMillis();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong replayMisses = new AtomicLong();
+
+    FakeDeepSeekServer(Args args) throws IOException {
+        this.latency = LatencyDistribution.parse(args.get("latency", "lognormal:1200,0.4"));
+        this.errorRate = args.getDouble("error-rate", 0.0);
+        this.burstEvery = args.getLong("burst-every", 0);
+        this.burstLength = args.getLong("burst-length", 5000);
+        this.burstRetryAfter = args.getInt("burst-retry-after", 2);
+        this.mode = args.get("mode", "canned");
+        this.recordings = Paths.get(args.get("recordings", "./loadtest-recordings"));
+        this.upstreamUrl = args.get("upstream-url", "https://api.deepseek.com/v1/chat/completions");
+        this.upstreamKey = System.getenv("DEEPSEEK_API_KEY");
+        this.upstreamClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        if (!mode.equals("canned") && !mode.equals("record") && !mode.equals("replay")) {
+            throw new IllegalArgumentException("mode只能是canned、record或replay");
+        }
+        if (mode.equals("record")) {
+            if (upstreamKey == null || upstreamKey.isEmpty()) {
+                throw new IllegalArgumentException("record模式需要设置环境变量DEEPSEEK_API_KEY");
+            }
+            Files.createDirectories(recordings);
+        }
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        int port = args.getInt("port", 9999);
+        FakeDeepSeekServer fake = new FakeDeepSeekServer(args);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/", fake::handle);
+        // 每个请求一个虚拟线程，模拟的等待不占用平台线程
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        System.out.println("DeepSeek替身已启动: http://localhost:" + port + "/v1/chat/completions"
+                + " mode=" + fake.mode + " latency=" + fake.latency + " error-rate=" + fake.errorRate);
+
+        while (true) {
+            Thread.sleep(10000);
+            System.out.println("requests=" + fake.requests.get() + " 429=" + fake.rateLimited.get()
+                    + " 500=" + fake.errors.get() + " replay-misses=" + fake.replayMisses.get());
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "application/json", "{\"error\":{\"message\":\"method not allowed\"}}");
+                return;
+            }
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+
+            if (inBurst()) {
+                rateLimited.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(burstRetryAfter));
+                send(exchange, 429, "application/json", "{\"error\":{\"message\":\"Rate limit reached\"}}");
+                return;
+            }
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                sleep(latency.sample() / 4);
+                send(exchange, 500, "application/json", "{\"error\":{\"message\":\"Internal server error\"}}");
+                return;
+            }
+
+            String prompt = lastMessage(request);
+            String content = completionFor(request, prompt);
+            long totalLatency = latency.sample();
+            long promptTokens = Math.round(prompt.length() * 0.6);
+            long completionTokens = Math.round(content.length() * 0.6);
+
+            if (request.path("stream").asBoolean(false)) {
+                stream(exchange, content, totalLatency, promptTokens, completionTokens);
+            } else {
+                sleep(totalLatency);
+                send(exchange, 200, "application/json", completion(content, promptTokens, completionTokens));
+            }
+        } catch (Exception e) {
+            log.error("请求处理失败: {} {}, mode={}", exchange.getRequestMethod(), exchange.getRequestURI(), mode, e);
+        }
+    }
+
+    // 周期性的429突发：每burstEvery毫秒中的前burstLength毫秒返回429
+    private boolean inBurst() {
+        return burstEvery > 0 && (System.currentTimeMillis() - startedAt) % burstEvery < burstLength;
+    }
+
+    // 按模式取得生成内容：固定样例、转发真实接口并录制、或重放录制结果
+    private String completionFor(JsonNode request, String prompt) throws Exception {
+        Path recording = recordings.resolve(sha256(prompt) + ".txt");
+        if (mode.equals("replay")) {
+            if (Files.exists(recording)) {
+                return Files.readString(recording, StandardCharsets.UTF_8);
+            }
+            replayMisses.incrementAndGet();
+        } else if (mode.equals("record")) {
+            String content = callUpstream(request);
+            Files.writeString(recording, content, StandardCharsets.UTF_8);
+            return content;
+        }
+        return cannedContent(prompt);
+    }
+
+    // 以非流式方式转发到真实DeepSeek，返回生成内容
+    private String callUpstream(JsonNode request) throws Exception {
+        ObjectNode upstreamRequest = request.deepCopy();
+        upstreamRequest.remove("stream");
+        upstreamRequest.remove("stream_options");
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(upstreamUrl))
+                .timeout(Duration.ofSeconds(120))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + upstreamKey)
+                .POST(HttpRequest.BodyPublishers.ofString(upstreamRequest.toString(), StandardCharsets.UTF_8))
+                .build();
+        HttpResponse<String> response = upstreamClient.send(httpRequest, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (response.statusCode() != 200) {
+            throw new IOException("上游返回HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).path("choices").path(0).path("message").path("content").asText();
+    }
+
+    // 固定样例：按提示词类型返回批改结果、逐段结果或结构评价，分数由提示词哈希决定，同一提示词结果稳定
+    private String cannedContent(String prompt) {
+        int score = 60 + Math.floorMod(prompt.hashCode(), 36);
+        ObjectNode content = objectMapper.createObjectNode();
+        if (prompt.contains("structureScore")) {
+            content.put("logicEvaluation", "文章段落安排合理，论点层层递进，首尾呼应。");
+            content.put("structureScore", score);
+            return content.toString();
+        }
+        if (prompt.contains("\"paragraphs\"")) {
+            ArrayNode paragraphs = content.putArray("paragraphs");
+            int count = prompt.split("【段落", -1).length - 1;
+            for (int i = 0; i < count; i++) {
+                fillGrading(paragraphs.addObject(), score);
+            }
+            return content.toString();
+        }
+        fillGrading(content, score);
+        content.put("logicEvaluation", "文章结构完整，按时间顺序展开，过渡自然，结尾点题。");
+        return content.toString();
+    }
+
+    private void fillGrading(ObjectNode content, int score) {
+        ArrayNode grammarErrors = content.putArray("grammarErrors");
+        grammarErrors.add("第二段“非常的美丽”中“的”字多余，应改为“非常美丽”");
+        grammarErrors.add("第三段“大约三十人左右”语义重复，应删去“左右”");
+        content.put("fluencyAnalysis", "文章语言通顺，句子长短搭配得当，个别长句略显拗口。");
+        ArrayNode suggestions = content.putArray("writingSuggestions");
+        suggestions.add("可以增加细节描写，使人物形象更加丰满");
+        suggestions.add("结尾可以进一步升华主题");
+        ArrayNode vocabulary = content.putArray("vocabularyRecommendations");
+        vocabulary.add("栩栩如生");
+        vocabulary.add("锲而不舍");
+        content.put("overallScore", score);
+    }
+
+    // 以SSE分块返回：首块前等待总延迟的20%，其余时间平均分配到各块之间
+    private void stream(HttpExchange exchange, String content, long totalLatency,
+                        long promptTokens, long completionTokens) throws Exception {
+        int pieces = Math.max(1, (content.length() + STREAM_PIECE_LENGTH - 1) / STREAM_PIECE_LENGTH);
+        long firstByteDelay = totalLatency / 5;
+        long pieceDelay = (totalLatency - firstByteDelay) / pieces;
+
+        sleep(firstByteDelay);
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        for (int i = 0; i < content.length(); i += STREAM_PIECE_LENGTH) {
+            ObjectNode chunk = objectMapper.createObjectNode();
+            ObjectNode choice = chunk.putArray("choices").addObject();
+            choice.put("index", 0);
+            choice.putObject("delta").put("content", content.substring(i, Math.min(content.length(), i + STREAM_PIECE_LENGTH)));
+            writeEvent(out, chunk.toString());
+            sleep(pieceDelay);
+        }
+        ObjectNode usageChunk = objectMapper.createObjectNode();
+        usageChunk.putArray("choices");
+        usageChunk.set("usage", usage(promptTokens, completionTokens));
+        writeEvent(out, usageChunk.toString());
+        writeEvent(out, "[DONE]");
+    }
+
+    private void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private String completion(String content, long promptTokens, long completionTokens) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("object", "chat.completion");
+        response.put("model", "deepseek-chat");
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        ObjectNode message = choice.putObject("message");
+        message.put("role", "assistant");
+        message.put("content", content);
+        choice.put("finish_reason", "stop");
+        response.set("usage", usage(promptTokens, completionTokens));
+        return response.toString();
+    }
+
+    private ObjectNode usage(long promptTokens, long completionTokens) {
+        ObjectNode usage = objectMapper.createObjectNode();
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+        return usage;
+    }
+
+    private String lastMessage(JsonNode request) {
+        JsonNode messages = request.path("messages");
+        return messages.size() > 0 ? messages.get(messages.size() - 1).path("content").asText() : "";
+    }
+
+    private void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static String sha256(String text) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.essaychecker.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 模拟的响应延迟分布
+ * 支持 fixed:800、uniform:300-1500、lognormal:1200,0.4（中位数毫秒,sigma）三种写法
+ */
+final class LatencyDistribution {
+
+    private final String spec;
+    private final String type;
+    private final double a;
+    private final double b;
+
+    private LatencyDistribution(String spec, String type, double a, double b) {
+        this.spec = spec;
+        this.type = type;
+        this.a = a;
+        this.b = b;
+    }
+
+    static LatencyDistribution parse(String spec) {
+        int colon = spec.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("延迟分布格式错误: " + spec);
+        }
+        String type = spec.substring(0, colon);
+        String value = spec.substring(colon + 1);
+        return switch (type) {
+            case "fixed" -> new LatencyDistribution(spec, type, Double.parseDouble(value), 0);
+            case "uniform" -> {
+                String[] range = value.split("-");
+                yield new LatencyDistribution(spec, type, Double.parseDouble(range[0]), Double.parseDouble(range[1]));
+            }
+            case "lognormal" -> {
+                String[] params = value.split(",");
+                yield new LatencyDistribution(spec, type, Double.parseDouble(params[0]), Double.parseDouble(params[1]));
+            }
+            default -> throw new IllegalArgumentException("不支持的延迟分布: " + type);
+        };
+    }
+
+    // 采样一次延迟（毫秒）
+    long sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double millis = switch (type) {
+            case "fixed" -> a;
+            case "uniform" -> a + random.nextDouble() * (b - a);
+            default -> a * Math.exp(b * random.nextGaussian());
+        };
+        return Math.max(0, Math.round(millis));
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.essaychecker.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 端到端压测驱动
+ * 按比例混合提交、批改、分页列表三类请求，固定并发闭环压测，预热结束后统计每类请求的吞吐量和延迟分位数；
+ * 配合FakeDeepSeekServer使用时，应用以loadtest配置启动（--spring.profiles.active=loadtest）
+ *
+ * 用法：mvn -Ploadtest compile exec:java
+ *      -Dloadtest.args="--concurrency=32 --duration=120 --warmup=20 --mix=submit:20,check:30,list:50"
+ */
+public class LoadDriver {
+
+    private static final String[] PARAGRAPHS = {
+            "清晨的阳光洒在校园的小路上，同学们三三两两地走进教室，琅琅的读书声很快就响了起来。",
+            "我的同桌是一个爱笑的女孩，她总是耐心地给我讲解不会做的数学题，从来没有不耐烦过。",
+            "那次运动会上，我们班在接力赛中落后了半圈，最后一棒的同学咬紧牙关，终于反超了对手。",
+            "奶奶家的院子里种着一棵老槐树，夏天的傍晚，我们一家人坐在树下乘凉，听奶奶讲过去的故事。",
+            "坚持并不是一件容易的事，但正是一次次的坚持，让我明白了努力终将会有回报的道理。"
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int users;
+    private final boolean uniqueContent;
+    private final Map<String, Integer> mix;
+    private final int totalWeight;
+
+    // 刚提交、尚未批改的作文，批改请求优先取这里的作文，其次随机取已知作文
+    private final ConcurrentLinkedQueue<Long> pendingChecks = new ConcurrentLinkedQueue<>();
+    private final List<Long> knownEssays = new CopyOnWriteArrayList<>();
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile boolean recording;
+
+    LoadDriver(Args args) {
+        this.baseUrl = args.get("base-url", "http://localhost:8080/api");
+        this.users = args.getInt("users", 50);
+        this.uniqueContent = args.getBoolean("unique-content", true);
+        this.mix = parseMix(args.get("mix", "submit:20,check:30,list:50"));
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        for (String operation : mix.keySet()) {
+            recorders.put(operation, new LatencyRecorder());
+        }
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        int concurrency = args.getInt("concurrency", 32);
+        long durationMillis = args.getLong("duration", 60) * 1000;
+        long warmupMillis = args.getLong("warmup", 10) * 1000;
+        LoadDriver driver = new LoadDriver(args);
+
+        System.out.println("压测开始: " + driver.baseUrl + " concurrency=" + concurrency + " mix=" + driver.mix
+                + " warmup=" + warmupMillis / 1000 + "s duration=" + durationMillis / 1000 + "s");
+
+        long warmupEnd = System.currentTimeMillis() + warmupMillis;
+        long end = warmupEnd + durationMillis;
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < concurrency; i++) {
+            workers.submit(() -> {
+                while (System.currentTimeMillis() < end) {
+                    driver.runOnce();
+                }
+            });
+        }
+
+        Thread.sleep(Math.max(0, warmupEnd - System.currentTimeMillis()));
+        driver.recording = true;
+        long measureStart = System.nanoTime();
+        workers.shutdown();
+        workers.awaitTermination(durationMillis + 300000, TimeUnit.MILLISECONDS);
+        driver.recording = false;
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+
+        driver.report(seconds);
+        System.exit(0);
+    }
+
+    // 按比例选一类请求执行一次
+    private void runOnce() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) {
+                execute(entry.getKey());
+                return;
+            }
+        }
+    }
+
+    private void execute(String operation) {
+        HttpRequest request;
+        switch (operation) {
+            case "submit" -> request = submitRequest();
+            case "check" -> {
+                Long essayId = nextEssayToCheck();
+                if (essayId == null) {
+                    // 还没有可批改的作文，先提交一篇
+                    execute("submit");
+                    return;
+                }
+                request = post("/essay/check/" + essayId, "");
+            }
+            case "list" -> request = HttpRequest.newBuilder(URI.create(baseUrl + "/essay/user/" + randomUser() + "/page?size=20"))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            default -> throw new IllegalArgumentException("不支持的请求类型: " + operation);
+        }
+
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            if (response.statusCode() == 200) {
+                JsonNode body = objectMapper.readTree(response.body());
+                success = body.path("success").asBoolean(false);
+                if (success && operation.equals("submit")) {
+                    long essayId = body.path("data").path("id").asLong();
+                    pendingChecks.add(essayId);
+                    knownEssays.add(essayId);
+                }
+            }
+        } catch (Exception e) {
+            // 连接失败、超时等计为错误
+        }
+        if (recording) {
+            recorders.get(operation).record(System.nanoTime() - start, success);
+        }
+    }
+
+    private HttpRequest submitRequest() {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("userId", randomUser());
+        body.put("title", "压测作文" + sequence.incrementAndGet());
+        body.put("content", essayContent());
+        return post("/essay/submit", body.toString());
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(3))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private Long nextEssayToCheck() {
+        Long essayId = pendingChecks.poll();
+        if (essayId != null || knownEssays.isEmpty()) {
+            return essayId;
+        }
+        return knownEssays.get(ThreadLocalRandom.current().nextInt(knownEssays.size()));
+    }
+
+    // 随机拼接段落；unique-content开启时在结尾加上序号，避免命中批改缓存
+    private String essayContent() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder content = new StringBuilder();
+        int paragraphs = 3 + random.nextInt(4);
+        for (int i = 0; i < paragraphs; i++) {
+            content.append(PARAGRAPHS[random.nextInt(PARAGRAPHS.length)]).append("\n\n");
+        }
+        if (uniqueContent) {
+            content.append("这是我写的第").append(sequence.incrementAndGet()).append("篇作文。");
+        }
+        return content.toString();
+    }
+
+    private long randomUser() {
+        return 1 + ThreadLocalRandom.current().nextInt(users);
+    }
+
+    private void report(double seconds) {
+        System.out.printf("%n%-8s %8s %8s %10s %9s %9s %9s %9s%n",
+                "op", "count", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)");
+        for (Map.Entry<String, LatencyRecorder> entry : recorders.entrySet()) {
+            long[] latencies = entry.getValue().snapshot();
+            Arrays.sort(latencies);
+            System.out.printf("%-8s %8d %8d %10.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    entry.getKey(),
+                    latencies.length,
+                    entry.getValue().errors.get(),
+                    latencies.length / seconds,
+                    percentile(latencies, 0.50),
+                    percentile(latencies, 0.90),
+                    percentile(latencies, 0.99),
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    // 格式：submit:20,check:30,list:50
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.split(":");
+            if (pair.length != 2 || !List.of("submit", "check", "list").contains(pair[0].trim())) {
+                throw new IllegalArgumentException("请求比例格式错误: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(pair[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("请求比例不能全为0");
+        }
+        return mix;
+    }
+
+    /**
+     * 单类请求的延迟记录（纳秒），成功和失败的请求都计入延迟
+     */
+    private static class LatencyRecorder {
+        private final List<Long> latencies = new ArrayList<>();
+        private final AtomicLong errors = new AtomicLong();
+
+        synchronized void record(long nanos, boolean success) {
+            latencies.add(nanos);
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+
+        synchronized long[] snapshot() {
+            return latencies.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.essaychecker.loadtest;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 平台线程与虚拟线程承载慢速AI调用的对比基准
+ * 与AIService相同，用连接池化的Apache HttpClient阻塞调用DeepSeek替身服务；
+ * 所有调用都在途时采样堆内存、进程常驻内存和平台线程数，折算每GB堆（以及每GB常驻内存）能承载的在途批改数。
+ * 平台线程的栈不在堆上，所以两种模式的堆占用差距不大，主要差距体现在常驻内存和线程数上
+ *
+ * 用法：先启动 FakeDeepSeekServer --latency=fixed:20000，再分别在独立JVM中运行
+ *      ThreadModelBenchmark --model=platform --calls=2000 和 --model=virtual --calls=2000
+ */
+public class ThreadModelBenchmark {
+
+    private static final String REQUEST_BODY = "{\"model\":\"deepseek-chat\",\"max_tokens\":2000,"
+            + "\"messages\":[{\"role\":\"user\",\"content\":\"请批改以下作文：清晨的阳光洒在校园的小路上。\"}]}";
+
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        String model = args.get("model", "virtual");
+        int calls = args.getInt("calls", 2000);
+        String url = args.get("url", "http://localhost:9999/v1/chat/completions");
+        long sampleDelay = args.getLong("sample-delay", 5000);
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(calls);
+        connectionManager.setDefaultMaxPerRoute(calls);
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom().setSocketTimeout(120000).build())
+                .build();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baselineHeap = memory.getHeapMemoryUsage().getUsed();
+        long baselineRss = residentSetSize();
+        int baselineThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        // 平台线程模式即每个在途调用占用一个操作系统线程，相当于把线程池开到与并发数相同
+        ExecutorService executor = model.equals("platform")
+                ? Executors.newFixedThreadPool(calls)
+                : Executors.newVirtualThreadPerTaskExecutor();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(calls);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < calls; i++) {
+            executor.execute(() -> {
+                inFlight.incrementAndGet();
+                HttpPost post = new HttpPost(url);
+                post.setEntity(new StringEntity(REQUEST_BODY, ContentType.APPLICATION_JSON));
+                try (CloseableHttpResponse response = httpClient.execute(post)) {
+                    EntityUtils.consume(response.getEntity());
+                    if (response.getStatusLine().getStatusCode() != 200) {
+                        failures.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    inFlight.decrementAndGet();
+                    finished.countDown();
+                }
+            });
+        }
+
+        // 等调用全部发出后采样，替身服务的延迟需明显长于sample-delay
+        Thread.sleep(sampleDelay);
+        int sampledInFlight = inFlight.get();
+        System.gc();
+        long heap = memory.getHeapMemoryUsage().getUsed() - baselineHeap;
+        long rss = residentSetSize() - baselineRss;
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount() - baselineThreads;
+
+        finished.await(10, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        httpClient.close();
+
+        System.out.printf("model=%s calls=%d failures=%d elapsed=%.1fs%n", model, calls, failures.get(), seconds);
+        System.out.printf("在途调用=%d 新增平台线程=%d 新增堆=%.1fMB 新增常驻内存=%s%n",
+                sampledInFlight, threads, heap / 1048576.0, rss >= 0 ? String.format("%.1fMB", rss / 1048576.0) : "未知");
+        System.out.printf("每GB堆在途调用=%.0f 每GB常驻内存在途调用=%s%n",
+                perGigabyte(sampledInFlight, heap),
+                rss > 0 ? String.format("%.0f", perGigabyte(sampledInFlight, rss)) : "未知");
+    }
+
+    private static double perGigabyte(int count, long bytes) {
+        return bytes > 0 ? count / (bytes / 1073741824.0) : 0;
+    }
+
+    // 进程常驻内存（字节），仅Linux可用，其他平台返回-1
+    private static long residentSetSize() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (Exception e) {
+            // 非Linux平台没有/proc
+        }
+        return -1;
+    }
+}
@@ -1,12 +1,16 @@
 package com.example.essaychecker;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 @SpringBootApplication
 public class EssayCheckerApplication {
+
+    private static final Logger log = LoggerFactory.getLogger(EssayCheckerApplication.class);
     public static void main(String[] args) {
         SpringApplication.run(EssayCheckerApplication.class, args);
-        System.out.println("启动成功");
+        log.info("启动成功");
     }
 }
@@ -0,0 +1,173 @@
+package com.example.essaychecker.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步批改线程池配置
+ * AI批改在独立的有界线程池中执行，不占用Tomcat的请求线程；
+ * 开启spring.threads.virtual.enabled后Tomcat请求线程和以下各线程池的工作线程都改为虚拟线程，
+ * 线程池大小此时只用于限制并发数，阻塞在AI调用上的请求不再占用操作系统线程
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    // 是否使用虚拟线程，与Spring Boot的Tomcat虚拟线程开关共用同一配置
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // 批改工作线程数，即同时进行的AI批改数量上限
+    @Value("${grading.async.pool-size:8}")
+    private int poolSize;
+
+    // 等待执行的批改任务队列容量，队列满时拒绝新任务
+    @Value("${grading.async.queue-capacity:200}")
+    private int queueCapacity;
+
+    // 批量批改同时调用AI的作文数上限
+    @Value("${grading.batch.concurrency:8}")
+    private int batchConcurrency;
+
+    // 批量批改等待执行的作文数上限
+    @Value("${grading.batch.queue-capacity:1000}")
+    private int batchQueueCapacity;
+
+    // 长作文分段批改同时调用AI的片段数上限
+    @Value("${grading.chunk.concurrency:16}")
+    private int chunkConcurrency;
+
+    // 分段批改等待执行的片段数上限
+    @Value("${grading.chunk.queue-capacity:200}")
+    private int chunkQueueCapacity;
+
+    // 同时提取文字的上传文档数上限
+    @Value("${upload.concurrency:4}")
+    private int uploadConcurrency;
+
+    // 等待提取文字的上传文档数上限
+    @Value("${upload.queue-capacity:16}")
+    private int uploadQueueCapacity;
+
+    // 同时进行的批量导入任务数上限
+    @Value("${import.concurrency:1}")
+    private int importConcurrency;
+
+    // 等待执行的批量导入任务数上限
+    @Value("${import.queue-capacity:4}")
+    private int importQueueCapacity;
+
+    // 对冲请求线程数上限
+    @Value("${ai.resilience.hedge.max-threads:64}")
+    private int hedgeMaxThreads;
+
+    /**
+     * 批改任务线程池
+     * @return 固定大小、有界队列的线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService gradingExecutor() {
+        return new ThreadPoolExecutor(poolSize, poolSize,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory("grading-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 批量批改线程池
+     * 与单篇批改线程池分开，避免整班批改占满单篇批改的工作线程
+     * @return 固定大小、有界队列的线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService batchGradingExecutor() {
+        return new ThreadPoolExecutor(batchConcurrency, batchConcurrency,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(batchQueueCapacity),
+                threadFactory("batch-grading-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 分段批改线程池
+     * 与提交分段批改的线程池分开，避免等待片段的线程占满工作线程造成死锁；
+     * 队列满时由调用线程直接批改该片段
+     * @return 固定大小、有界队列的线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService chunkGradingExecutor() {
+        return new ThreadPoolExecutor(chunkConcurrency, chunkConcurrency,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(chunkQueueCapacity),
+                threadFactory("chunk-grading-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 上传文档文字提取线程池
+     * 线程数限制了同时解析的文档数，也就限制了解析占用的堆内存；
+     * 解析是CPU密集型任务，虚拟线程模式下仍使用平台线程
+     * @return 固定大小、有界队列的线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService uploadExtractionExecutor() {
+        return new ThreadPoolExecutor(uploadConcurrency, uploadConcurrency,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(uploadQueueCapacity),
+                namedThreadFactory("upload-extract-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 批量导入线程池
+     * 导入以解析文档和批量写库为主，同时进行的导入数很少，使用平台线程
+     * @return 固定大小、有界队列的线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService importExecutor() {
+        return new ThreadPoolExecutor(importConcurrency, importConcurrency,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(importQueueCapacity),
+                namedThreadFactory("essay-import-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * AI调用线程池，用于对冲请求
+     * 线程用完时由调用线程直接执行，此时退化为不对冲
+     * @return 按需创建线程的有界线程池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService aiCallExecutor() {
+        return new ThreadPoolExecutor(0, hedgeMaxThreads,
+                60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                threadFactory("ai-call-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // 按配置创建虚拟线程或平台线程的工厂
+    private ThreadFactory threadFactory(String prefix) {
+        return virtualThreads ? Thread.ofVirtual().name(prefix, 1).factory() : namedThreadFactory(prefix);
+    }
+
+    // 带名称前缀的线程工厂，便于在线程转储中识别
+    static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
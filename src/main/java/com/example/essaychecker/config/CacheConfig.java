@@ -0,0 +1,63 @@
+package com.example.essaychecker.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 作文与批改结果的读缓存配置
+ * 通过Spring Cache抽象使用，业务代码只依赖CacheManager，之后可以换成两级缓存（本地+Redis）而不改业务代码；
+ * 缓存开启了统计，启动时由Actuator自动注册cache.gets（hit/miss）、cache.evictions、cache.size等指标
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // 作文详情缓存，键为作文ID
+    public static final String ESSAYS = "essays";
+
+    // 批改结果缓存，键为作文ID
+    public static final String CHECK_RESULTS = "checkResults";
+
+    // 作文缓存最大条目数
+    @Value("${cache.essay.max-size:10000}")
+    private long essayMaxSize;
+
+    // 作文缓存条目写入后的存活时间（毫秒），多实例部署时其他实例的修改最迟在此时间后可见
+    @Value("${cache.essay.ttl:600000}")
+    private long essayTtl;
+
+    // 批改结果缓存最大条目数
+    @Value("${cache.check-result.max-size:10000}")
+    private long checkResultMaxSize;
+
+    // 批改结果缓存条目写入后的存活时间（毫秒）
+    @Value("${cache.check-result.ttl:600000}")
+    private long checkResultTtl;
+
+    /**
+     * 本地缓存管理器
+     * @return 按缓存名分别限制容量和存活时间的Caffeine缓存管理器
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(ESSAYS, Caffeine.newBuilder()
+                .maximumSize(essayMaxSize)
+                .expireAfterWrite(Duration.ofMillis(essayTtl))
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(CHECK_RESULTS, Caffeine.newBuilder()
+                .maximumSize(checkResultMaxSize)
+                .expireAfterWrite(Duration.ofMillis(checkResultTtl))
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.essaychecker.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 出站HTTP传输配置
+ * 为DeepSeek API调用提供共享的连接池客户端，复用TCP/TLS连接并限制各阶段超时
+ */
+@Configuration
+public class HttpClientConfig {
+
+    // 连接池最大连接数
+    @Value("${ai.deepseek.http.max-total:50}")
+    private int maxTotal;
+
+    // 单个路由（即DeepSeek域名）的最大连接数
+    @Value("${ai.deepseek.http.max-per-route:50}")
+    private int maxPerRoute;
+
+    // 建立连接超时（毫秒）
+    @Value("${ai.deepseek.http.connect-timeout:5000}")
+    private int connectTimeout;
+
+    // 从连接池获取连接的等待超时（毫秒）
+    @Value("${ai.deepseek.http.connection-request-timeout:3000}")
+    private int connectionRequestTimeout;
+
+    // 读取数据超时（毫秒），两个数据包之间的最大间隔
+    @Value("${ai.deepseek.http.socket-timeout:60000}")
+    private int socketTimeout;
+
+    // 空闲连接保活时长上限（毫秒）
+    @Value("${ai.deepseek.http.keep-alive:30000}")
+    private long keepAlive;
+
+    // 空闲超过该时长的连接会被后台线程回收（毫秒）
+    @Value("${ai.deepseek.http.idle-evict:30000}")
+    private long idleEvict;
+
+    /**
+     * DeepSeek连接池管理器
+     * @return 有界的连接池
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager deepSeekConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        // 复用空闲超过2秒的连接前先校验，避免拿到已被服务端关闭的连接
+        connectionManager.setValidateAfterInactivity(2000);
+        return connectionManager;
+    }
+
+    /**
+     * 共享的DeepSeek HTTP客户端
+     * @param deepSeekConnectionManager 连接池管理器
+     * @return 长生命周期的HTTP客户端
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient deepSeekHttpClient(PoolingHttpClientConnectionManager deepSeekConnectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .setSocketTimeout(socketTimeout)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(deepSeekConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                // 服务端声明的Keep-Alive时长与本地上限取较小值
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+                            .getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvict, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 连接池饱和度指标
+     * leased接近max且pending大于0说明连接池已成为瓶颈
+     * @param deepSeekConnectionManager 连接池管理器
+     * @return 指标绑定器
+     */
+    @Bean
+    public MeterBinder deepSeekConnectionPoolMetrics(PoolingHttpClientConnectionManager deepSeekConnectionManager) {
+        return registry -> {
+            Gauge.builder("ai.http.pool.leased", deepSeekConnectionManager, cm -> cm.getTotalStats().getLeased())
+                    .description("正在使用的DeepSeek连接数")
+                    .register(registry);
+            Gauge.builder("ai.http.pool.pending", deepSeekConnectionManager, cm -> cm.getTotalStats().getPending())
+                    .description("等待获取连接的请求数")
+                    .register(registry);
+            Gauge.builder("ai.http.pool.available", deepSeekConnectionManager, cm -> cm.getTotalStats().getAvailable())
+                    .description("空闲可复用的连接数")
+                    .register(registry);
+            Gauge.builder("ai.http.pool.max", deepSeekConnectionManager, cm -> cm.getTotalStats().getMax())
+                    .description("连接池容量上限")
+                    .register(registry);
+        };
+    }
+}
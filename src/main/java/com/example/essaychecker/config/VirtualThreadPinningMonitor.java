@@ -0,0 +1,121 @@
+package com.example.essaychecker.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 虚拟线程钉住（pinning）监控
+ * 虚拟线程在synchronized块内或本地方法中阻塞时无法卸载，会一直占用载体线程；
+ * 通过JFR的jdk.VirtualThreadPinned事件发现这类阻塞，按来源（jdbc/synchronized）计数并记录耗时，
+ * 每个不同的阻塞位置只打印一次调用栈
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    // 日志中打印的调用栈最大帧数
+    private static final int MAX_LOGGED_FRAMES = 12;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 钉住时间超过该值（毫秒）才上报
+    @Value("${virtual-threads.pinning-threshold:20}")
+    private long threshold;
+
+    // 已打印过调用栈的阻塞位置
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+
+    private RecordingStream recordingStream;
+
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(Duration.ofMillis(threshold))
+                .withStackTrace();
+        recordingStream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        recordingStream.startAsync();
+        log.info("虚拟线程钉住监控已启动，阈值{}ms", threshold);
+    }
+
+    @PreDestroy
+    public void stop() {
+        recordingStream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null
+                ? event.getStackTrace().getFrames() : List.of();
+        String source = classify(frames);
+
+        Timer.builder("jvm.threads.virtual.pinned")
+                .tag("source", source)
+                .description("虚拟线程被钉在载体线程上的时长")
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        String site = firstApplicationFrame(frames);
+        if (reportedSites.add(site)) {
+            log.warn("虚拟线程被钉住{}ms，来源={}，位置={}\n{}",
+                    event.getDuration().toMillis(), source, site, format(event.getStackTrace()));
+        }
+    }
+
+    // 调用栈中出现JDBC驱动或连接池的帧归为jdbc；其余在Java 21上基本都来自synchronized块或其中的Object.wait
+    private static String classify(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String className = frame.getMethod().getType().getName();
+            if (className.startsWith("com.mysql.") || className.startsWith("com.zaxxer.hikari.")
+                    || className.startsWith("java.sql.")) {
+                return "jdbc";
+            }
+        }
+        return "synchronized";
+    }
+
+    // 本项目代码中最靠近阻塞点的帧，找不到时取栈顶帧
+    private static String firstApplicationFrame(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            if (frame.getMethod().getType().getName().startsWith("com.example.essaychecker.")) {
+                return describe(frame);
+            }
+        }
+        return frames.isEmpty() ? "unknown" : describe(frames.get(0));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "    (无调用栈)";
+        }
+        StringBuilder sb = new StringBuilder();
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (int i = 0; i < Math.min(frames.size(), MAX_LOGGED_FRAMES); i++) {
+            sb.append("    at ").append(describe(frames.get(i))).append('\n');
+        }
+        return sb.toString();
+    }
+}
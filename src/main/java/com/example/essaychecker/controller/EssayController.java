@@ -1,15 +1,52 @@
 package com.example.essaychecker.controller;
 
 import com.example.essaychecker.dto.ApiResponse;
+import com.example.essaychecker.dto.BatchCheckItemDto;
 import com.example.essaychecker.dto.CheckResultDto;
+import com.example.essaychecker.dto.CursorPageDto;
+import com.example.essaychecker.dto.EssaySummaryDto;
 import com.example.essaychecker.dto.EssaySubmitDto;
+import com.example.essaychecker.dto.GradingJobDto;
+import com.example.essaychecker.dto.ImportJobDto;
+import com.example.essaychecker.dto.SearchPageDto;
 import com.example.essaychecker.entity.Essay;
+import com.example.essaychecker.exception.RateLimitExceededException;
+import com.example.essaychecker.service.EssayExportService;
+import com.example.essaychecker.service.EssayImportService;
+import com.example.essaychecker.service.EssaySearchService;
 import com.example.essaychecker.service.EssayService;
+import com.example.essaychecker.service.EssayUploadService;
+import com.example.essaychecker.service.GradingJobService;
+import com.example.essaychecker.service.GradingStreamListener;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 作文控制器类，处理所有与作文相关的HTTP请求
@@ -24,6 +61,36 @@ public class EssayController {
     @Autowired   // 自动注入EssayService，处理用户相关的业务逻辑
     private EssayService essayService;
 
+    @Autowired   // 文档上传服务
+    private EssayUploadService essayUploadService;
+
+    @Autowired   // 作文全文搜索服务
+    private EssaySearchService essaySearchService;
+
+    @Autowired   // 作文导出服务
+    private EssayExportService essayExportService;
+
+    @Autowired   // 作文批量导入服务
+    private EssayImportService essayImportService;
+
+    @Autowired   // 导出参数错误时输出统一响应
+    private ObjectMapper objectMapper;
+
+    @Autowired   // 异步批改任务服务
+    private GradingJobService gradingJobService;
+
+    @Autowired   // 批改线程池，流式批改在其中执行
+    @Qualifier("gradingExecutor")
+    private ExecutorService gradingExecutor;
+
+    // 流式批改连接的超时时间（毫秒）
+    @Value("${grading.stream.timeout:180000}")
+    private long streamTimeout;
+
+    // 导出请求的异步超时时间（毫秒）
+    @Value("${export.timeout:1800000}")
+    private long exportTimeout;
+
     /**
      * 提交作文
      * @param essaySubmitDto 包含用户ID、作文标题和内容的DTO对象
@@ -44,6 +111,82 @@ public class EssayController {
         }
     }
 
+    /**
+     * 上传文档提交作文
+     * 支持PDF、DOCX、DOC格式，提取文档中的文字保存为作文
+     * @param userId 用户ID
+     * @param title 作文标题，不传时使用文件名
+     * @param file 上传的文档
+     * @return 包含操作结果和作文数据的统一响应
+     */
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ApiResponse<Essay> uploadEssay(@RequestParam Long userId,
+                                          @RequestParam(required = false) String title,
+                                          @RequestParam("file") MultipartFile file) {
+        try {
+            Essay essay = essayUploadService.upload(userId, title, file);
+            return ApiResponse.success("作文上传成功", essay);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 批量导入作文，立即返回任务ID，导入在后台执行
+     * 支持ZIP压缩包（TXT、PDF、DOCX、DOC文件，按用户名分文件夹）和NDJSON文件（每行一篇）；
+     * multipart上传受全局multipart大小限制，更大的文件以请求体直接上传
+     * @param userId 作文归属的用户ID，不传时按文件夹名或每行的userId、username确定
+     * @param file 上传的ZIP或NDJSON文件
+     * @return 包含导入任务的统一响应
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ApiResponse<ImportJobDto> importEssays(@RequestParam(required = false) Long userId,
+                                                  @RequestParam("file") MultipartFile file) {
+        try {
+            ImportJobDto job = essayImportService.submit(userId, file);
+            return ApiResponse.success("导入任务已提交", job);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 批量导入作文（请求体即文件内容）
+     * 不经过multipart解析，不受全局multipart大小限制，大文件导入使用此方式，上限为import.max-file-size
+     * @param userId 作文归属的用户ID，不传时按文件夹名或每行的userId、username确定
+     * @param filename 文件名（.zip、.ndjson或.jsonl）
+     * @param request 当前请求，从中读取请求体
+     * @return 包含导入任务的统一响应
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "application/zip",
+            "application/x-ndjson"})
+    public ApiResponse<ImportJobDto> importEssaysFromBody(@RequestParam(required = false) Long userId,
+                                                          @RequestParam String filename,
+                                                          HttpServletRequest request) {
+        try {
+            ImportJobDto job = essayImportService.submit(userId, filename, request.getContentLengthLong(),
+                    request.getInputStream());
+            return ApiResponse.success("导入任务已提交", job);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 查询批量导入进度
+     * @param jobId 任务ID
+     * @return 包含导入进度的统一响应
+     */
+    @GetMapping("/import/{jobId}")
+    public ApiResponse<ImportJobDto> getImportJob(@PathVariable String jobId) {
+        ImportJobDto job = essayImportService.getJob(jobId);
+        if (job != null) {
+            return ApiResponse.success(job);
+        } else {
+            return ApiResponse.error("导入任务不存在或已过期");
+        }
+    }
+
     /**
      * 获取指定用户的所有作文
      * @param userId 用户ID
@@ -59,6 +202,82 @@ public class EssayController {
         }
     }
 
+    /**
+     * 分页获取指定用户的作文摘要（不含全文）
+     * @param userId 用户ID
+     * @param cursor 上一页返回的nextCursor，第一页不传
+     * @param size 每页条数，默认20，最大50
+     * @return 包含作文摘要分页的统一响应
+     */
+    @GetMapping("/user/{userId}/page")
+    public ApiResponse<CursorPageDto<EssaySummaryDto>> getUserEssayPage(@PathVariable Long userId,
+                                                                         @RequestParam(required = false) String cursor,
+                                                                         @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ApiResponse.success(essayService.getUserEssayPage(userId, cursor, size));
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 搜索指定用户的作文（标题和正文全文搜索）
+     * @param userId 用户ID
+     * @param q 搜索关键词
+     * @param page 页码，从0开始
+     * @param size 每页条数，默认20，最大50
+     * @return 包含按相关度排序的作文摘要分页的统一响应
+     */
+    @GetMapping("/user/{userId}/search")
+    public ApiResponse<SearchPageDto<EssaySummaryDto>> searchEssays(@PathVariable Long userId,
+                                                                    @RequestParam String q,
+                                                                    @RequestParam(defaultValue = "0") int page,
+                                                                    @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ApiResponse.success(essaySearchService.search(userId, q, page, size));
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 导出多个用户的作文及批改结果
+     * 边查询边写入响应，支持ndjson、csv、xlsx三种格式，导出数量不影响服务端内存占用
+     * @param userIds 要导出的用户ID，多个用逗号分隔
+     * @param format 导出格式，默认ndjson
+     * @param request 当前请求，用于放宽本次导出的异步超时
+     * @return 导出文件；参数错误时返回400和统一响应
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEssays(@RequestParam List<Long> userIds,
+                                                              @RequestParam(defaultValue = "ndjson") String format,
+                                                              HttpServletRequest request) {
+        String normalized;
+        try {
+            normalized = essayExportService.validate(userIds, format);
+        } catch (Exception e) {
+            ApiResponse<Void> error = ApiResponse.error(e.getMessage());
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, error));
+        }
+        // 流式响应在异步线程中写出，只为本次导出延长超时，其他异步请求仍使用默认超时
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor("exportTimeout",
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                        if (webRequest instanceof AsyncWebRequest asyncWebRequest) {
+                            asyncWebRequest.setTimeout(exportTimeout);
+                        }
+                    }
+                });
+        String filename = "essays-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+                + "." + normalized;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .contentType(MediaType.parseMediaType(essayExportService.contentType(normalized)))
+                .body(out -> essayExportService.export(userIds, normalized, out));
+    }
 
     /**
      * 根据ID获取单篇作文
@@ -82,18 +301,149 @@ public class EssayController {
     /**
      * 批改作文
      * @param essayId 要批改的作文ID
+     * @param response HTTP响应，限流时设置429状态码和Retry-After头
      * @return 包含批改结果的统一响应
      */
     @PostMapping("/check/{essayId}")
-    public ApiResponse<CheckResultDto> checkEssay(@PathVariable Long essayId) {
+    public ApiResponse<CheckResultDto> checkEssay(@PathVariable Long essayId, HttpServletResponse response) {
         try {
             CheckResultDto result = essayService.checkEssay(essayId);
             return ApiResponse.success("批改完成", result);
+        } catch (RateLimitExceededException e) {
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            return ApiResponse.error(e.getMessage());
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 批量批改作文
+     * @param request 包含作文ID列表（essayIds）的JSON对象
+     * @return 包含逐项批改状态和结果的统一响应
+     */
+    @PostMapping("/check/batch")
+    public ApiResponse<List<BatchCheckItemDto>> checkEssays(@RequestBody Map<String, List<Long>> request) {
+        try {
+            List<BatchCheckItemDto> items = essayService.checkEssays(request.get("essayIds"));
+            return ApiResponse.success("批量批改完成", items);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 流式批改作文（Server-Sent Events）
+     * AI每生成完一个字段就推送一个以字段名命名的事件，数组字段逐个元素推送；
+     * 最后推送 result 事件（完整批改结果），失败时推送 error 事件
+     * @param essayId 要批改的作文ID
+     * @return SSE事件流
+     */
+    @PostMapping(value = "/check/{essayId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter checkEssayStream(@PathVariable Long essayId) {
+        SseEmitter emitter = new SseEmitter(streamTimeout);
+        try {
+            gradingExecutor.execute(() -> {
+                try {
+                    CheckResultDto result = essayService.checkEssay(essayId, new SseGradingListener(emitter));
+                    emitter.send(SseEmitter.event().name("result").data(ApiResponse.success("批改完成", result)));
+                    emitter.complete();
+                } catch (Exception e) {
+                    sendError(emitter, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            sendError(emitter, "批改任务过多，请稍后重试");
+        }
+        return emitter;
+    }
+
+    // 推送错误事件并结束事件流
+    private void sendError(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("error").data(ApiResponse.error(message)));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * 将批改字段转发为SSE事件
+     * 客户端中途断开时停止推送，但批改继续进行并照常保存结果
+     */
+    private static class SseGradingListener implements GradingStreamListener {
+        private final SseEmitter emitter;
+        private boolean disconnected;
+
+        SseGradingListener(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onField(String field, JsonNode value) {
+            // 数组字段的元素已逐个推送，不再重复推送整个数组
+            if (value.isArray()) {
+                return;
+            }
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("field", field);
+            data.put("value", value);
+            send(field, data);
+        }
+
+        @Override
+        public void onArrayItem(String field, int index, JsonNode value) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("field", field);
+            data.put("index", index);
+            data.put("value", value);
+            send(field, data);
+        }
+
+        private void send(String eventName, Map<String, Object> data) {
+            if (disconnected) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(data));
+            } catch (IOException | IllegalStateException e) {
+                disconnected = true;
+            }
+        }
+    }
+
+    /**
+     * 异步批改作文，立即返回任务ID，批改在后台线程池中执行
+     * @param essayId 要批改的作文ID
+     * @return 包含批改任务的统一响应
+     */
+    @PostMapping("/check/{essayId}/async")
+    public ApiResponse<GradingJobDto> checkEssayAsync(@PathVariable Long essayId) {
+        try {
+            GradingJobDto job = gradingJobService.submit(essayId);
+            return ApiResponse.success("批改任务已提交", job);
         } catch (Exception e) {
             return ApiResponse.error(e.getMessage());
         }
     }
 
+    /**
+     * 查询异步批改任务的状态和结果
+     * @param jobId 任务ID
+     * @return 包含任务状态（完成后含批改结果）的统一响应
+     */
+    @GetMapping("/check/jobs/{jobId}")
+    public ApiResponse<GradingJobDto> getCheckJob(@PathVariable String jobId) {
+        GradingJobDto job = gradingJobService.getJob(jobId);
+        if (job != null) {
+            return ApiResponse.success(job);
+        } else {
+            return ApiResponse.error("批改任务不存在或已过期");
+        }
+    }
+
     /**
      * 更新作文
      * @param id 要更新的作文ID
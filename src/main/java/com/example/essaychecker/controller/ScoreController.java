@@ -0,0 +1,39 @@
+package com.example.essaychecker.controller;
+
+import com.example.essaychecker.dto.ApiResponse;
+import com.example.essaychecker.dto.ScoreDistributionDto;
+import com.example.essaychecker.service.ScoreDistributionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 分数控制器类，处理全站分数统计相关的HTTP请求
+ * 提供分数百分位排名和分数段分布查询功能
+ */
+
+@RestController
+@RequestMapping("/score")
+@CrossOrigin(origins = "*")
+public class ScoreController {
+
+    @Autowired
+    private ScoreDistributionService scoreDistributionService;
+
+    /**
+     * 查询分数分布接口
+     * @param score 要查询排名的分数（可选）
+     * @param days 统计最近多少天（可选，不传时统计全部）
+     * @param bucketWidth 分数段宽度
+     * @return 包含百分位排名和分数段分布的统一响应
+     */
+    @GetMapping("/distribution")
+    public ApiResponse<ScoreDistributionDto> getDistribution(@RequestParam(required = false) Integer score,
+                                                             @RequestParam(required = false) Integer days,
+                                                             @RequestParam(defaultValue = "10") int bucketWidth) {
+        try {
+            return ApiResponse.success(scoreDistributionService.getDistribution(score, days, bucketWidth));
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.essaychecker.controller;
 
 import com.example.essaychecker.dto.ApiResponse;
+import com.example.essaychecker.dto.UserAnalyticsDto;
 import com.example.essaychecker.entity.User;
+import com.example.essaychecker.service.UserAnalyticsService;
 import com.example.essaychecker.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +24,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserAnalyticsService userAnalyticsService;
+
     /**
      * 用户注册接口
      * @param request 包含用户名、密码和邮箱的请求体
@@ -79,6 +84,20 @@ public class UserController {
         }
     }
 
+    /**
+     * 用户学习进度接口
+     * @param id 用户ID
+     * @return 包含平均分、按周成绩走势和常见语法错误类别的统一响应
+     */
+    @GetMapping("/{id}/analytics")
+    public ApiResponse<UserAnalyticsDto> getUserAnalytics(@PathVariable Long id) {
+        try {
+            return ApiResponse.success(userAnalyticsService.getAnalytics(id));
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
     /**
      * 根据用户ID更新用户信息接口
      * @param id 用户ID
@@ -0,0 +1,47 @@
+package com.example.essaychecker.dto;
+
+/**
+ * 批量批改单项结果数据传输对象(DTO)
+ * 记录批量批改中每篇作文的处理状态和批改结果
+ */
+public class BatchCheckItemDto {
+    // 本次批改完成
+    public static final String CHECKED = "CHECKED";
+    // 之前已批改过，直接返回已有结果
+    public static final String ALREADY_CHECKED = "ALREADY_CHECKED";
+    // 作文不存在
+    public static final String NOT_FOUND = "NOT_FOUND";
+    // 批改失败
+    public static final String FAILED = "FAILED";
+
+    // 作文ID
+    private Long essayId;
+    // 处理状态
+    private String status;
+    // 批改结果（成功时填充）
+    private CheckResultDto result;
+    // 失败原因
+    private String error;
+
+    public BatchCheckItemDto() {}
+
+    public BatchCheckItemDto(Long essayId, String status, CheckResultDto result, String error) {
+        this.essayId = essayId;
+        this.status = status;
+        this.result = result;
+        this.error = error;
+    }
+
+    // Getter和Setter方法
+    public Long getEssayId() { return essayId; }
+    public void setEssayId(Long essayId) { this.essayId = essayId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public CheckResultDto getResult() { return result; }
+    public void setResult(CheckResultDto result) { this.result = result; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -26,8 +26,16 @@ public class CheckResultDto {
     private List<String> vocabularyRecommendations;
     // 总分
     private Integer overallScore;
+    // 批改状态（graded/rejected/failed），failed为AI结果解析失败的占位结果，分数无意义
+    private String status;
+    // 文本指标
+    private TextMetricsDto textMetrics;
+    // 批改版本号，作文修改后重新批改时递增
+    private Integer revision;
     // 创建时间
     private LocalDateTime createdAt;
+    // 最近一次批改时间
+    private LocalDateTime updatedAt;
 
     public CheckResultDto() {}
 
@@ -59,6 +67,18 @@ public class CheckResultDto {
     public Integer getOverallScore() { return overallScore; }
     public void setOverallScore(Integer overallScore) { this.overallScore = overallScore; }
 
+    public TextMetricsDto getTextMetrics() { return textMetrics; }
+    public void setTextMetrics(TextMetricsDto textMetrics) { this.textMetrics = textMetrics; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Integer getRevision() { return revision; }
+    public void setRevision(Integer revision) { this.revision = revision; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 }
@@ -0,0 +1,35 @@
+package com.example.essaychecker.dto;
+
+import java.util.List;
+
+/**
+ * 游标分页数据传输对象(DTO)
+ * 客户端把nextCursor原样传回即可获取下一页，hasMore为false时表示已到末尾
+ * @param <T> 列表元素类型
+ */
+public class CursorPageDto<T> {
+    // 当前页数据
+    private List<T> items;
+    // 下一页游标（没有更多数据时为null）
+    private String nextCursor;
+    // 是否还有更多数据
+    private boolean hasMore;
+
+    public CursorPageDto() {}
+
+    public CursorPageDto(List<T> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getter和Setter方法
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,66 @@
+package com.example.essaychecker.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 作文导出行
+ * 一篇作文及其批改结果，由查询直接构造，不经过实体，导出时不会在持久化上下文中累积；
+ * 列表字段保留数据库中的JSON数组原文，由导出格式决定如何输出
+ */
+public class EssayExportRow {
+    private final Long essayId;
+    private final Long userId;
+    private final String username;
+    private final String title;
+    private final String content;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    // 以下为批改结果，未批改时均为null
+    private final String status;
+    private final Integer overallScore;
+    private final String grammarErrorsJson;
+    private final String fluencyAnalysis;
+    private final String logicEvaluation;
+    private final String writingSuggestionsJson;
+    private final String vocabularyRecommendationsJson;
+    private final LocalDateTime gradedAt;
+
+    public EssayExportRow(Long essayId, Long userId, String username, String title, String content,
+                          LocalDateTime createdAt, LocalDateTime updatedAt, String status, Integer overallScore,
+                          String grammarErrorsJson, String fluencyAnalysis, String logicEvaluation,
+                          String writingSuggestionsJson, String vocabularyRecommendationsJson,
+                          LocalDateTime gradedAt) {
+        this.essayId = essayId;
+        this.userId = userId;
+        this.username = username;
+        this.title = title;
+        this.content = content;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.status = status;
+        this.overallScore = overallScore;
+        this.grammarErrorsJson = grammarErrorsJson;
+        this.fluencyAnalysis = fluencyAnalysis;
+        this.logicEvaluation = logicEvaluation;
+        this.writingSuggestionsJson = writingSuggestionsJson;
+        this.vocabularyRecommendationsJson = vocabularyRecommendationsJson;
+        this.gradedAt = gradedAt;
+    }
+
+    // Getter方法
+    public Long getEssayId() { return essayId; }
+    public Long getUserId() { return userId; }
+    public String getUsername() { return username; }
+    public String getTitle() { return title; }
+    public String getContent() { return content; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public String getStatus() { return status; }
+    public Integer getOverallScore() { return overallScore; }
+    public String getGrammarErrorsJson() { return grammarErrorsJson; }
+    public String getFluencyAnalysis() { return fluencyAnalysis; }
+    public String getLogicEvaluation() { return logicEvaluation; }
+    public String getWritingSuggestionsJson() { return writingSuggestionsJson; }
+    public String getVocabularyRecommendationsJson() { return vocabularyRecommendationsJson; }
+    public LocalDateTime getGradedAt() { return gradedAt; }
+}
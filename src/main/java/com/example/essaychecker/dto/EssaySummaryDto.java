@@ -0,0 +1,54 @@
+package com.example.essaychecker.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 作文摘要数据传输对象(DTO)
+ * 作文列表使用，不含作文全文，只带开头片段和批改分数
+ */
+public class EssaySummaryDto {
+    // 作文ID
+    private Long id;
+    // 作文标题
+    private String title;
+    // 作文开头片段
+    private String excerpt;
+    // 批改总分（未批改为null）
+    private Integer overallScore;
+    // 创建时间
+    private LocalDateTime createdAt;
+    // 更新时间
+    private LocalDateTime updatedAt;
+
+    public EssaySummaryDto() {}
+
+    // JPQL构造表达式使用
+    public EssaySummaryDto(Long id, String title, String excerpt, Integer overallScore,
+                           LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.title = title;
+        this.excerpt = excerpt;
+        this.overallScore = overallScore;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getter和Setter方法
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getExcerpt() { return excerpt; }
+    public void setExcerpt(String excerpt) { this.excerpt = excerpt; }
+
+    public Integer getOverallScore() { return overallScore; }
+    public void setOverallScore(Integer overallScore) { this.overallScore = overallScore; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
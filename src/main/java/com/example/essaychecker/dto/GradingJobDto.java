@@ -0,0 +1,64 @@
+package com.example.essaychecker.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 异步批改任务数据传输对象(DTO)
+ * 记录任务的执行状态，批改完成后携带批改结果
+ */
+public class GradingJobDto {
+    // 任务状态：排队中
+    public static final String PENDING = "PENDING";
+    // 任务状态：批改中
+    public static final String RUNNING = "RUNNING";
+    // 任务状态：批改成功
+    public static final String SUCCESS = "SUCCESS";
+    // 任务状态：批改失败
+    public static final String FAILED = "FAILED";
+
+    // 任务ID
+    private String jobId;
+    // 批改的作文ID
+    private Long essayId;
+    // 任务状态（由工作线程更新，故使用volatile保证可见性）
+    private volatile String status;
+    // 批改结果，成功后填充
+    private volatile CheckResultDto result;
+    // 失败原因
+    private volatile String error;
+    // 创建时间
+    private LocalDateTime createdAt;
+    // 完成时间
+    private volatile LocalDateTime finishedAt;
+
+    public GradingJobDto() {}
+
+    public GradingJobDto(String jobId, Long essayId) {
+        this.jobId = jobId;
+        this.essayId = essayId;
+        this.status = PENDING;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getter和Setter方法
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public Long getEssayId() { return essayId; }
+    public void setEssayId(Long essayId) { this.essayId = essayId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public CheckResultDto getResult() { return result; }
+    public void setResult(CheckResultDto result) { this.result = result; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -0,0 +1,80 @@
+package com.example.essaychecker.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 批量导入任务数据传输对象(DTO)
+ * 记录导入进度，由导入线程更新，客户端轮询查看
+ */
+public class ImportJobDto {
+    // 任务状态：排队中
+    public static final String PENDING = "PENDING";
+    // 任务状态：导入中
+    public static final String RUNNING = "RUNNING";
+    // 任务状态：导入完成（个别文件失败时仍为完成，失败原因见errors）
+    public static final String SUCCESS = "SUCCESS";
+    // 任务状态：导入中止
+    public static final String FAILED = "FAILED";
+
+    // 任务ID
+    private String jobId;
+    // 上传的文件名
+    private String filename;
+    // 任务状态（由导入线程更新，故使用volatile保证可见性）
+    private volatile String status;
+    // 已解析的作文数
+    private volatile long processed;
+    // 已写入数据库的作文数
+    private volatile long imported;
+    // 解析或写入失败的作文数
+    private volatile long failed;
+    // 失败明细（只保留前若干条）
+    private final List<String> errors = new CopyOnWriteArrayList<>();
+    // 导致任务中止的原因
+    private volatile String error;
+    // 创建时间
+    private LocalDateTime createdAt;
+    // 完成时间
+    private volatile LocalDateTime finishedAt;
+
+    public ImportJobDto() {}
+
+    public ImportJobDto(String jobId, String filename) {
+        this.jobId = jobId;
+        this.filename = filename;
+        this.status = PENDING;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getter和Setter方法
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getFilename() { return filename; }
+    public void setFilename(String filename) { this.filename = filename; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public long getProcessed() { return processed; }
+    public void setProcessed(long processed) { this.processed = processed; }
+
+    public long getImported() { return imported; }
+    public void setImported(long imported) { this.imported = imported; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    public List<String> getErrors() { return errors; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
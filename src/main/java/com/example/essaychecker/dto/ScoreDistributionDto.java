@@ -0,0 +1,77 @@
+package com.example.essaychecker.dto;
+
+import java.util.List;
+
+/**
+ * 分数分布数据传输对象(DTO)
+ * 给出某个分数在全部（或最近若干天）已批改作文中的百分位排名，以及按分数段的篇数分布
+ */
+public class ScoreDistributionDto {
+    // 查询的分数（未指定时为null）
+    private Integer score;
+    // 统计最近多少天（为null时统计全部）
+    private Integer days;
+    // 统计范围内的作文总数
+    private long total;
+    // 低于该分数的作文数
+    private long below;
+    // 等于该分数的作文数
+    private long equal;
+    // 百分位排名（0~100），低于该分数的比例加上等于该分数比例的一半
+    private Double percentileRank;
+    // 按分数段的篇数分布
+    private List<ScoreBucket> buckets;
+
+    public ScoreDistributionDto() {}
+
+    // Getter和Setter方法
+    public Integer getScore() { return score; }
+    public void setScore(Integer score) { this.score = score; }
+
+    public Integer getDays() { return days; }
+    public void setDays(Integer days) { this.days = days; }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public long getBelow() { return below; }
+    public void setBelow(long below) { this.below = below; }
+
+    public long getEqual() { return equal; }
+    public void setEqual(long equal) { this.equal = equal; }
+
+    public Double getPercentileRank() { return percentileRank; }
+    public void setPercentileRank(Double percentileRank) { this.percentileRank = percentileRank; }
+
+    public List<ScoreBucket> getBuckets() { return buckets; }
+    public void setBuckets(List<ScoreBucket> buckets) { this.buckets = buckets; }
+
+    /**
+     * 一个分数段的篇数
+     */
+    public static class ScoreBucket {
+        // 分数段下限（含）
+        private int from;
+        // 分数段上限（含）
+        private int to;
+        // 篇数
+        private long count;
+
+        public ScoreBucket() {}
+
+        public ScoreBucket(int from, int to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public int getFrom() { return from; }
+        public void setFrom(int from) { this.from = from; }
+
+        public int getTo() { return to; }
+        public void setTo(int to) { this.to = to; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+    }
+}
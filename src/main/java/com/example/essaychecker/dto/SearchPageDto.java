@@ -0,0 +1,47 @@
+package com.example.essaychecker.dto;
+
+import java.util.List;
+
+/**
+ * 搜索结果分页数据传输对象(DTO)
+ * 结果按相关度排序，page从0开始
+ * @param <T> 列表元素类型
+ */
+public class SearchPageDto<T> {
+    // 当前页数据
+    private List<T> items;
+    // 命中总数（超过统计上限时为下界）
+    private long total;
+    // 当前页码
+    private int page;
+    // 每页条数
+    private int size;
+    // 是否还有更多数据
+    private boolean hasMore;
+
+    public SearchPageDto() {}
+
+    public SearchPageDto(List<T> items, long total, int page, int size, boolean hasMore) {
+        this.items = items;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.hasMore = hasMore;
+    }
+
+    // Getter和Setter方法
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,64 @@
+package com.example.essaychecker.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 作文文本指标数据传输对象(DTO)
+ * 本地预分析得到的字数、句数、段落数和标点问题等统计信息
+ */
+public class TextMetricsDto {
+    // 非空白字符数
+    private int characterCount;
+    // 汉字数
+    private int chineseCharCount;
+    // 句子数
+    private int sentenceCount;
+    // 段落数
+    private int paragraphCount;
+    // 中文语境中使用半角标点的次数
+    private int halfWidthPunctuationCount;
+    // 标点误用次数（连续标点、段首标点）
+    private int punctuationMisuseCount;
+    // 同一字符连续重复4次及以上的片段数
+    private int repeatedRunCount;
+    // 同一字符最长的连续重复长度
+    private int maxRepeatRun;
+    // 发现的问题描述
+    private List<String> issues = new ArrayList<>();
+
+    public TextMetricsDto() {}
+
+    // 汉字占非空白字符的比例
+    public double chineseRatio() {
+        return characterCount == 0 ? 0 : (double) chineseCharCount / characterCount;
+    }
+
+    // Getter和Setter方法
+    public int getCharacterCount() { return characterCount; }
+    public void setCharacterCount(int characterCount) { this.characterCount = characterCount; }
+
+    public int getChineseCharCount() { return chineseCharCount; }
+    public void setChineseCharCount(int chineseCharCount) { this.chineseCharCount = chineseCharCount; }
+
+    public int getSentenceCount() { return sentenceCount; }
+    public void setSentenceCount(int sentenceCount) { this.sentenceCount = sentenceCount; }
+
+    public int getParagraphCount() { return paragraphCount; }
+    public void setParagraphCount(int paragraphCount) { this.paragraphCount = paragraphCount; }
+
+    public int getHalfWidthPunctuationCount() { return halfWidthPunctuationCount; }
+    public void setHalfWidthPunctuationCount(int halfWidthPunctuationCount) { this.halfWidthPunctuationCount = halfWidthPunctuationCount; }
+
+    public int getPunctuationMisuseCount() { return punctuationMisuseCount; }
+    public void setPunctuationMisuseCount(int punctuationMisuseCount) { this.punctuationMisuseCount = punctuationMisuseCount; }
+
+    public int getRepeatedRunCount() { return repeatedRunCount; }
+    public void setRepeatedRunCount(int repeatedRunCount) { this.repeatedRunCount = repeatedRunCount; }
+
+    public int getMaxRepeatRun() { return maxRepeatRun; }
+    public void setMaxRepeatRun(int maxRepeatRun) { this.maxRepeatRun = maxRepeatRun; }
+
+    public List<String> getIssues() { return issues; }
+    public void setIssues(List<String> issues) { this.issues = issues; }
+}
@@ -0,0 +1,97 @@
+package com.example.essaychecker.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 用户学习进度数据传输对象(DTO)
+ * 汇总用户已批改作文的平均分、按周的成绩走势和最常见的语法错误类别
+ */
+public class UserAnalyticsDto {
+    // 用户ID
+    private Long userId;
+    // 已批改作文数
+    private long gradedCount;
+    // 平均分（没有已批改作文时为null）
+    private Double averageScore;
+    // 最近若干周的成绩走势，按周从早到晚排列，只包含有批改的周
+    private List<TrendPoint> trend;
+    // 出现最多的语法错误类别，按次数从多到少排列
+    private List<ErrorCategoryCount> topErrorCategories;
+    // 统计更新时间
+    private LocalDateTime updatedAt;
+
+    public UserAnalyticsDto() {}
+
+    // Getter和Setter方法
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public long getGradedCount() { return gradedCount; }
+    public void setGradedCount(long gradedCount) { this.gradedCount = gradedCount; }
+
+    public Double getAverageScore() { return averageScore; }
+    public void setAverageScore(Double averageScore) { this.averageScore = averageScore; }
+
+    public List<TrendPoint> getTrend() { return trend; }
+    public void setTrend(List<TrendPoint> trend) { this.trend = trend; }
+
+    public List<ErrorCategoryCount> getTopErrorCategories() { return topErrorCategories; }
+    public void setTopErrorCategories(List<ErrorCategoryCount> topErrorCategories) { this.topErrorCategories = topErrorCategories; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    /**
+     * 一周的成绩
+     */
+    public static class TrendPoint {
+        // 该周周一的日期
+        private LocalDate weekStart;
+        // 该周批改的作文数
+        private long count;
+        // 该周平均分
+        private double averageScore;
+
+        public TrendPoint() {}
+
+        public TrendPoint(LocalDate weekStart, long count, double averageScore) {
+            this.weekStart = weekStart;
+            this.count = count;
+            this.averageScore = averageScore;
+        }
+
+        public LocalDate getWeekStart() { return weekStart; }
+        public void setWeekStart(LocalDate weekStart) { this.weekStart = weekStart; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+
+        public double getAverageScore() { return averageScore; }
+        public void setAverageScore(double averageScore) { this.averageScore = averageScore; }
+    }
+
+    /**
+     * 一类语法错误的出现次数
+     */
+    public static class ErrorCategoryCount {
+        // 错误类别
+        private String category;
+        // 出现次数
+        private long count;
+
+        public ErrorCategoryCount() {}
+
+        public ErrorCategoryCount(String category, long count) {
+            this.category = category;
+            this.count = count;
+        }
+
+        public String getCategory() { return category; }
+        public void setCategory(String category) { this.category = category; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.essaychecker.entity;
 import jakarta.persistence.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 
 /**
@@ -11,20 +12,35 @@ import java.time.LocalDateTime;
  */
 
 @Entity
-@Table(name = "check_results")
+@Table(name = "check_results",
+        uniqueConstraints = @UniqueConstraint(name = "uk_check_results_essay_id", columnNames = "essay_id"))
 public class CheckResult {
+    // 批改状态：AI正常批改
+    public static final String STATUS_GRADED = "graded";
+    // 批改状态：预分析判定无法批改
+    public static final String STATUS_REJECTED = "rejected";
+    // 批改状态：AI结果解析失败
+    public static final String STATUS_FAILED = "failed";
+
+    // 旧版列表列的分隔符
+    private static final String LEGACY_GRAMMAR_SEPARATOR = "\u0001";
+    private static final String LEGACY_LIST_SEPARATOR = ";";
+
     // 主键
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // 自增
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "check_result_id")
+    @TableGenerator(name = "check_result_id", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "check_results", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
-    // 关联作文表
+    // 关联作文表，每篇作文只保留一条批改结果
     @Column(name = "essay_id")
     private Long essayId;
 
-    // 语法错误分析
-    @Column(columnDefinition = "TEXT")
-    private String grammarErrors;
+    // 语法错误分析（JSON数组）
+    @Column(name = "grammar_errors_json", columnDefinition = "JSON")
+    private String grammarErrorsJson;
 
     // 流利度分析
     @Column(columnDefinition = "TEXT")
@@ -34,25 +50,86 @@ public class CheckResult {
     @Column(columnDefinition = "TEXT")
     private String logicEvaluation;
 
-    // 写作建议
-    @Column(columnDefinition = "TEXT")
-    private String writingSuggestions;
+    // 写作建议（JSON数组）
+    @Column(name = "writing_suggestions_json", columnDefinition = "JSON")
+    private String writingSuggestionsJson;
 
-    // 词汇推荐
-    @Column(columnDefinition = "TEXT")
-    private String vocabularyRecommendations;
+    // 词汇推荐（JSON数组）
+    @Column(name = "vocabulary_recommendations_json", columnDefinition = "JSON")
+    private String vocabularyRecommendationsJson;
+
+    // 旧版分隔符拼接的列，仅用于迁移，迁移后置空
+    @Column(name = "grammar_errors", columnDefinition = "TEXT")
+    private String legacyGrammarErrors;
+
+    @Column(name = "writing_suggestions", columnDefinition = "TEXT")
+    private String legacyWritingSuggestions;
+
+    @Column(name = "vocabulary_recommendations", columnDefinition = "TEXT")
+    private String legacyVocabularyRecommendations;
+
+    // 解码后的列表，首次读取时才从JSON解码
+    @Transient
+    private List<String> grammarErrors;
+
+    @Transient
+    private List<String> writingSuggestions;
+
+    @Transient
+    private List<String> vocabularyRecommendations;
 
     // 总分
     private Integer overallScore;
 
+    // 批改状态（graded/rejected/failed），早期记录为null，视为graded
+    @Column(length = 16)
+    private String status = STATUS_GRADED;
+
+    // 本地预分析得到的文本指标（JSON）
+    @Column(name = "text_metrics", columnDefinition = "JSON")
+    private String textMetrics;
+
+    // 批改时作文内容的哈希（规范化后），与当前内容不同说明作文已修改、结果已过期
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // 逐段批改结果（JSON），作文再次修改时未改动的段落沿用这里的结果
+    @Column(name = "paragraph_results", columnDefinition = "JSON")
+    private String paragraphResults;
+
+    // 批改版本号，首次批改为1，每次因作文修改重新批改加1
+    private Integer revision;
+
+    // 同一内容连续解析失败的次数，用于计算下次自动重试的时间；非失败结果为null
+    @Column(name = "failed_attempts")
+    private Integer failedAttempts;
+
     // 创建时间
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // 更新时间
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // 批改时间，只在批改作文时写入，数据迁移等其他更新不改变；早期记录为null，按创建时间计
+    @Column(name = "graded_at")
+    private LocalDateTime gradedAt;
+
     // 创建时间自动填充
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+        if (revision == null) {
+            revision = 1;
+        }
+    }
+
+    // 更新时间自动填充
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
     }
 
     // 构造函数
@@ -65,8 +142,18 @@ public class CheckResult {
     public Long getEssayId() { return essayId; }
     public void setEssayId(Long essayId) { this.essayId = essayId; }
 
-    public String getGrammarErrors() { return grammarErrors; }
-    public void setGrammarErrors(String grammarErrors) { this.grammarErrors = grammarErrors; }
+    public List<String> getGrammarErrors() {
+        if (grammarErrors == null) {
+            grammarErrors = grammarErrorsJson != null
+                    ? StringListCodec.decode(grammarErrorsJson)
+                    : splitLegacy(legacyGrammarErrors, LEGACY_GRAMMAR_SEPARATOR);
+        }
+        return grammarErrors;
+    }
+    public void setGrammarErrors(List<String> grammarErrors) {
+        this.grammarErrors = grammarErrors != null ? List.copyOf(grammarErrors) : null;
+        this.grammarErrorsJson = StringListCodec.encode(grammarErrors);
+    }
 
     public String getFluencyAnalysis() { return fluencyAnalysis; }
     public void setFluencyAnalysis(String fluencyAnalysis) { this.fluencyAnalysis = fluencyAnalysis; }
@@ -74,15 +161,100 @@ public class CheckResult {
     public String getLogicEvaluation() { return logicEvaluation; }
     public void setLogicEvaluation(String logicEvaluation) { this.logicEvaluation = logicEvaluation; }
 
-    public String getWritingSuggestions() { return writingSuggestions; }
-    public void setWritingSuggestions(String writingSuggestions) { this.writingSuggestions = writingSuggestions; }
+    public List<String> getWritingSuggestions() {
+        if (writingSuggestions == null) {
+            writingSuggestions = writingSuggestionsJson != null
+                    ? StringListCodec.decode(writingSuggestionsJson)
+                    : splitLegacy(legacyWritingSuggestions, LEGACY_LIST_SEPARATOR);
+        }
+        return writingSuggestions;
+    }
+    public void setWritingSuggestions(List<String> writingSuggestions) {
+        this.writingSuggestions = writingSuggestions != null ? List.copyOf(writingSuggestions) : null;
+        this.writingSuggestionsJson = StringListCodec.encode(writingSuggestions);
+    }
 
-    public String getVocabularyRecommendations() { return vocabularyRecommendations; }
-    public void setVocabularyRecommendations(String vocabularyRecommendations) { this.vocabularyRecommendations = vocabularyRecommendations; }
+    public List<String> getVocabularyRecommendations() {
+        if (vocabularyRecommendations == null) {
+            vocabularyRecommendations = vocabularyRecommendationsJson != null
+                    ? StringListCodec.decode(vocabularyRecommendationsJson)
+                    : splitLegacy(legacyVocabularyRecommendations, LEGACY_LIST_SEPARATOR);
+        }
+        return vocabularyRecommendations;
+    }
+    public void setVocabularyRecommendations(List<String> vocabularyRecommendations) {
+        this.vocabularyRecommendations = vocabularyRecommendations != null ? List.copyOf(vocabularyRecommendations) : null;
+        this.vocabularyRecommendationsJson = StringListCodec.encode(vocabularyRecommendations);
+    }
 
     public Integer getOverallScore() { return overallScore; }
     public void setOverallScore(Integer overallScore) { this.overallScore = overallScore; }
 
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    // 是否为AI正常给出的分数，预分析拒绝和解析失败的占位结果不计入统计
+    public boolean isGraded() {
+        return (status == null || STATUS_GRADED.equals(status)) && overallScore != null;
+    }
+
+    public String getTextMetrics() { return textMetrics; }
+    public void setTextMetrics(String textMetrics) { this.textMetrics = textMetrics; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getParagraphResults() { return paragraphResults; }
+    public void setParagraphResults(String paragraphResults) { this.paragraphResults = paragraphResults; }
+
+    public Integer getRevision() { return revision; }
+    public void setRevision(Integer revision) { this.revision = revision; }
+
+    public Integer getFailedAttempts() { return failedAttempts; }
+    public void setFailedAttempts(Integer failedAttempts) { this.failedAttempts = failedAttempts; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public LocalDateTime getGradedAt() { return gradedAt; }
+    public void setGradedAt(LocalDateTime gradedAt) { this.gradedAt = gradedAt; }
+
+    /**
+     * 将旧版分隔符拼接的列表列迁移到JSON列
+     * 语法错误以U+0001分隔，写作建议和词汇推荐以;分隔；迁移后清空旧列
+     * @return 是否有字段被迁移
+     */
+    public boolean migrateLegacyLists() {
+        boolean migrated = false;
+        if (legacyGrammarErrors != null) {
+            if (grammarErrorsJson == null) {
+                setGrammarErrors(splitLegacy(legacyGrammarErrors, LEGACY_GRAMMAR_SEPARATOR));
+            }
+            legacyGrammarErrors = null;
+            migrated = true;
+        }
+        if (legacyWritingSuggestions != null) {
+            if (writingSuggestionsJson == null) {
+                setWritingSuggestions(splitLegacy(legacyWritingSuggestions, LEGACY_LIST_SEPARATOR));
+            }
+            legacyWritingSuggestions = null;
+            migrated = true;
+        }
+        if (legacyVocabularyRecommendations != null) {
+            if (vocabularyRecommendationsJson == null) {
+                setVocabularyRecommendations(splitLegacy(legacyVocabularyRecommendations, LEGACY_LIST_SEPARATOR));
+            }
+            legacyVocabularyRecommendations = null;
+            migrated = true;
+        }
+        return migrated;
+    }
+
+    // 按旧版分隔符拆分，null保持为null
+    private static List<String> splitLegacy(String joined, String separator) {
+        return joined != null ? List.of(joined.split(separator)) : null;
+    }
 }
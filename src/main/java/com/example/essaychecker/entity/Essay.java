@@ -9,10 +9,17 @@ import java.time.LocalDateTime;
  * 对应数据库中的 essays 表，存储用户提交的作文数据
  */
 @Entity
-@Table(name = "essays")
+@Table(name = "essays",
+        indexes = {
+                @Index(name = "idx_essays_user_created", columnList = "user_id, created_at, id"),
+                @Index(name = "idx_essays_updated_at", columnList = "updated_at")
+        })
 public class Essay {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "essay_id")
+    @TableGenerator(name = "essay_id", table = IdGenerators.TABLE,
+            pkColumnName = IdGenerators.NAME_COLUMN, valueColumnName = IdGenerators.VALUE_COLUMN,
+            pkColumnValue = "essays", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "user_id")
@@ -29,10 +36,16 @@ public class Essay {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // 批量导入的历史作文保留原来的提交时间；修改时间始终为写入时间，搜索索引据此同步其他实例导入的作文
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now();
+        if (createdAt == null) {
+            createdAt = now;
+        }
+        if (updatedAt == null) {
+            updatedAt = now;
+        }
     }
 
     @PreUpdate
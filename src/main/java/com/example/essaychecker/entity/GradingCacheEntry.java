@@ -0,0 +1,61 @@
+package com.example.essaychecker.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批改结果缓存实体类
+ * 对应数据库中的 grading_cache 表，以规范化后作文内容的哈希为键保存AI批改结果，
+ * 内容相同的作文无需再次调用AI
+ */
+@Entity
+@Table(name = "grading_cache")
+public class GradingCacheEntry {
+    // 规范化内容的SHA-256十六进制摘要
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // AI返回的批改结果JSON
+    @Column(name = "ai_response", columnDefinition = "TEXT")
+    private String aiResponse;
+
+    // 创建时间，覆盖写入时保持不变
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    // 最近写入时间，过期时间由此起算
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // 创建时间自动填充
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (updatedAt == null) {
+            updatedAt = createdAt;
+        }
+    }
+
+    // 构造函数
+    public GradingCacheEntry() {}
+
+    public GradingCacheEntry(String contentHash, String aiResponse) {
+        this.contentHash = contentHash;
+        this.aiResponse = aiResponse;
+    }
+
+    // Getter和Setter方法
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getAiResponse() { return aiResponse; }
+    public void setAiResponse(String aiResponse) { this.aiResponse = aiResponse; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
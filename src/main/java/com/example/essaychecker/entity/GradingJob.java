@@ -0,0 +1,121 @@
+package com.example.essaychecker.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批改任务实体类
+ * 对应数据库中的 grading_jobs 表，异步批改任务持久化保存，应用重启不会丢失；
+ * 多个实例从同一张表领取任务，领取时写入租约（节点和到期时间），执行期间定期续约，
+ * 节点宕机后租约到期的任务由其他节点重新领取
+ */
+@Entity
+@Table(name = "grading_jobs",
+        indexes = {
+                @Index(name = "idx_grading_jobs_status_created", columnList = "status, created_at"),
+                @Index(name = "idx_grading_jobs_status_lease", columnList = "status, lease_expires_at"),
+                @Index(name = "uk_grading_jobs_active_essay", columnList = "active_essay_id", unique = true)
+        })
+public class GradingJob {
+    // 任务ID
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    // 批改的作文ID
+    @Column(name = "essay_id")
+    private Long essayId;
+
+    // 任务未完成时等于作文ID，完成后置空；唯一索引保证同一作文同时只有一个未完成的任务
+    @Column(name = "active_essay_id")
+    private Long activeEssayId;
+
+    // 任务状态，取值同GradingJobDto
+    @Column(length = 16)
+    private String status;
+
+    // 已领取的次数，节点在执行中宕机时会被重新领取
+    private int attempts;
+
+    // 持有租约的节点
+    @Column(name = "lease_owner", length = 128)
+    private String leaseOwner;
+
+    // 租约到期时间，到期未续约的任务可被其他节点领取
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // 最近一次续约时间
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    // 失败原因
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    // 创建时间
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // 首次开始执行时间
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    // 完成时间
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // 创建时间自动填充
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // 构造函数
+    public GradingJob() {}
+
+    public GradingJob(String id, Long essayId, String status) {
+        this.id = id;
+        this.essayId = essayId;
+        this.activeEssayId = essayId;
+        this.status = status;
+    }
+
+    // Getter和Setter方法
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Long getEssayId() { return essayId; }
+    public void setEssayId(Long essayId) { this.essayId = essayId; }
+
+    public Long getActiveEssayId() { return activeEssayId; }
+    public void setActiveEssayId(Long activeEssayId) { this.activeEssayId = activeEssayId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getLeaseOwner() { return leaseOwner; }
+    public void setLeaseOwner(String leaseOwner) { this.leaseOwner = leaseOwner; }
+
+    public LocalDateTime getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
+
+    public LocalDateTime getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
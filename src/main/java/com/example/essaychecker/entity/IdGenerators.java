@@ -0,0 +1,19 @@
+package com.example.essaychecker.entity;
+
+/**
+ * 主键生成器配置
+ * MySQL没有序列，作文和批改结果的主键由 id_generators 表分配，每次取一段ID在内存中使用，
+ * 插入前即可得到主键，Hibernate因此能够批量插入（自增主键须逐条插入以取回生成的ID）
+ */
+public final class IdGenerators {
+
+    // 主键分配表
+    public static final String TABLE = "id_generators";
+    // 分配表的名称列与值列
+    public static final String NAME_COLUMN = "name";
+    public static final String VALUE_COLUMN = "next_val";
+    // 每次分配的ID数
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {}
+}
@@ -0,0 +1,126 @@
+package com.example.essaychecker.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量导入任务实体类
+ * 对应数据库中的 import_jobs 表，导入进度持久化保存，任意实例都能查询；
+ * 上传的文件只保存在接收请求的节点上，任务由该节点执行并定期写入进度和心跳，
+ * 节点宕机后心跳超时的任务由其他节点标记为中断
+ */
+@Entity
+@Table(name = "import_jobs",
+        indexes = {
+                @Index(name = "idx_import_jobs_status_heartbeat", columnList = "status, heartbeat_at"),
+                @Index(name = "idx_import_jobs_finished_at", columnList = "finished_at")
+        })
+public class ImportJob {
+    // 任务ID
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    // 上传的文件名
+    private String filename;
+
+    // 任务状态，取值同ImportJobDto
+    @Column(length = 16)
+    private String status;
+
+    // 执行任务的节点
+    @Column(length = 128)
+    private String node;
+
+    // 已解析的作文数
+    private long processed;
+
+    // 已写入数据库的作文数
+    private long imported;
+
+    // 解析或写入失败的作文数
+    private long failed;
+
+    // 失败明细（JSON数组，只保留前若干条）
+    @Column(name = "errors_json", columnDefinition = "JSON")
+    private String errorsJson;
+
+    // 导致任务中止的原因
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    // 最近一次写入进度的时间，排队和执行期间定期更新
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    // 创建时间
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // 完成时间
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // 创建时间自动填充
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (heartbeatAt == null) {
+            heartbeatAt = createdAt;
+        }
+    }
+
+    // 构造函数
+    public ImportJob() {}
+
+    public ImportJob(String id, String filename, String status, String node) {
+        this.id = id;
+        this.filename = filename;
+        this.status = status;
+        this.node = node;
+    }
+
+    // Getter和Setter方法
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFilename() { return filename; }
+    public void setFilename(String filename) { this.filename = filename; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getNode() { return node; }
+    public void setNode(String node) { this.node = node; }
+
+    public long getProcessed() { return processed; }
+    public void setProcessed(long processed) { this.processed = processed; }
+
+    public long getImported() { return imported; }
+    public void setImported(long imported) { this.imported = imported; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    public List<String> getErrors() { return StringListCodec.decode(errorsJson); }
+    public void setErrors(List<String> errors) { this.errorsJson = StringListCodec.encode(errors); }
+
+    // 失败明细编码为JSON，供按条件更新进度时使用
+    public static String encodeErrors(List<String> errors) {
+        return StringListCodec.encode(errors);
+    }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public LocalDateTime getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -0,0 +1,53 @@
+package com.example.essaychecker.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 分数分布快照实体类
+ * 对应数据库中的 score_histogram_snapshots 表，每天一行，保存当天批改作文的0~100分各分数的篇数，
+ * 由内存中的分数分布定期写入，启动时先加载快照再从批改结果表重建
+ */
+@Entity
+@Table(name = "score_histogram_snapshots")
+public class ScoreHistogramSnapshot {
+    // 批改日期
+    @Id
+    @Column(name = "bucket_day")
+    private LocalDate day;
+
+    // 各分数的篇数（JSON数组，下标为分数）
+    @Column(name = "counts", columnDefinition = "JSON")
+    private String counts;
+
+    // 快照时间
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // 快照时间自动填充
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // 构造函数
+    public ScoreHistogramSnapshot() {}
+
+    public ScoreHistogramSnapshot(LocalDate day, String counts) {
+        this.day = day;
+        this.counts = counts;
+    }
+
+    // Getter和Setter方法
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+
+    public String getCounts() { return counts; }
+    public void setCounts(String counts) { this.counts = counts; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
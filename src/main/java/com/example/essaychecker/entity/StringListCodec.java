@@ -0,0 +1,44 @@
+package com.example.essaychecker.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 字符串列表与JSON数组之间的编解码
+ * 供实体类把列表字段存为JSON列使用
+ */
+final class StringListCodec {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {};
+
+    private StringListCodec() {}
+
+    // 列表编码为JSON数组，null保持为null
+    static String encode(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("列表字段序列化失败", e);
+        }
+    }
+
+    // JSON数组解码为不可修改的列表，null保持为null
+    static List<String> decode(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return Collections.unmodifiableList(OBJECT_MAPPER.readValue(json, STRING_LIST));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("列表字段反序列化失败", e);
+        }
+    }
+}
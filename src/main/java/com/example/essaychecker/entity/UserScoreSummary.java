@@ -0,0 +1,79 @@
+package com.example.essaychecker.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户成绩统计汇总实体类
+ * 对应数据库中的 user_score_summaries 表，每个用户一行，
+ * 在批改结果保存时增量更新，查询学习进度时直接读取，不必扫描全部历史批改
+ */
+@Entity
+@Table(name = "user_score_summaries")
+public class UserScoreSummary {
+    // 用户ID
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // 计入统计的作文数（每篇作文只计最新一次批改）
+    @Column(name = "graded_count")
+    private long gradedCount;
+
+    // 计入统计的总分之和
+    @Column(name = "score_sum")
+    private long scoreSum;
+
+    // 按周分桶的成绩（JSON，周一日期 -> [篇数, 总分之和]），只保留最近若干周
+    @Column(name = "weekly_buckets", columnDefinition = "JSON")
+    private String weeklyBuckets;
+
+    // 各类语法错误的出现次数（JSON，类别 -> 次数）
+    @Column(name = "error_categories", columnDefinition = "JSON")
+    private String errorCategories;
+
+    // 乐观锁版本号，并发更新同一用户的汇总时后提交的一方重试
+    @Version
+    private Long version;
+
+    // 更新时间
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // 更新时间自动填充
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // 构造函数
+    public UserScoreSummary() {}
+
+    public UserScoreSummary(Long userId) {
+        this.userId = userId;
+    }
+
+    // Getter和Setter方法
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public long getGradedCount() { return gradedCount; }
+    public void setGradedCount(long gradedCount) { this.gradedCount = gradedCount; }
+
+    public long getScoreSum() { return scoreSum; }
+    public void setScoreSum(long scoreSum) { this.scoreSum = scoreSum; }
+
+    public String getWeeklyBuckets() { return weeklyBuckets; }
+    public void setWeeklyBuckets(String weeklyBuckets) { this.weeklyBuckets = weeklyBuckets; }
+
+    public String getErrorCategories() { return errorCategories; }
+    public void setErrorCategories(String errorCategories) { this.errorCategories = errorCategories; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,30 @@
+package com.example.essaychecker.exception;
+
+/**
+ * AI批改结果解析异常
+ * reason标识失败原因，用作解析失败计数的标签
+ */
+public class AIResponseParseException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    // AI返回了非JSON文本
+    public static final String INVALID_RESPONSE = "invalid_response";
+    // AI返回了错误信息
+    public static final String AI_ERROR = "ai_error";
+    // 结果不是合法的JSON
+    public static final String INVALID_JSON = "invalid_json";
+
+    private final String reason;
+
+    public AIResponseParseException(String reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public AIResponseParseException(String reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    public String getReason() { return reason; }
+}
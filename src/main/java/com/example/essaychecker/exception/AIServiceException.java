@@ -0,0 +1,24 @@
+package com.example.essaychecker.exception;
+
+/**
+ * AI服务调用异常
+ * DeepSeek返回错误状态、网络故障或熔断打开时抛出，retryable表示重试是否可能成功
+ */
+public class AIServiceException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    // 是否值得重试（5xx、超时等为true，4xx请求错误为false）
+    private final boolean retryable;
+
+    public AIServiceException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public AIServiceException(String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() { return retryable; }
+}
@@ -0,0 +1,24 @@
+package com.example.essaychecker.exception;
+
+/**
+ * AI调用限流异常
+ * 本地限流器拒绝请求或DeepSeek返回429时抛出，携带建议的重试等待时间
+ */
+public class RateLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    // 建议的重试等待时间（毫秒）
+    private final long retryAfterMillis;
+
+    public RateLimitExceededException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() { return retryAfterMillis; }
+
+    // 向上取整的重试等待秒数，用于Retry-After响应头
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+}
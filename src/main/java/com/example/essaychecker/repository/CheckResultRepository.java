@@ -1,9 +1,14 @@
 package com.example.essaychecker.repository;
 
 import com.example.essaychecker.entity.CheckResult;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +22,33 @@ public interface CheckResultRepository extends JpaRepository<CheckResult, Long>
     Optional<CheckResult> findByEssayId(Long essayId);
     // 根据多个作文ID批量查询批改结果
     List<CheckResult> findByEssayIdIn(List<Long> essayIds);
+    // 查询用户所有作文的批改结果，仅在重建用户统计汇总时使用
+    @Query("select r from CheckResult r where r.essayId in (select e.id from Essay e where e.userId = :userId)")
+    List<CheckResult> findByUserId(@Param("userId") Long userId);
+    // 按ID游标分批读取分数，用于重建分数分布
+    @Query("select r.id as id, r.overallScore as overallScore, r.status as status, " +
+            "coalesce(r.gradedAt, r.createdAt) as gradedAt " +
+            "from CheckResult r where r.id > :afterId order by r.id")
+    List<ScoreRow> findScoreRows(@Param("afterId") Long afterId, Pageable pageable);
+    // 查询仍使用旧版分隔符列的批改结果，用于迁移到JSON列
+    @Query("select r from CheckResult r where r.legacyGrammarErrors is not null " +
+            "or r.legacyWritingSuggestions is not null or r.legacyVocabularyRecommendations is not null " +
+            "order by r.id")
+    List<CheckResult> findLegacyListColumns(Pageable pageable);
+    // 为早期没有批改时间的记录补上批改时间：只批改过一次的即创建时间，重新批改过的取修改时间；
+    // 批量更新不触发@PreUpdate，修改时间保持不变
+    @Modifying
+    @Query("update CheckResult r set r.gradedAt = case when r.revision > 1 " +
+            "then coalesce(r.updatedAt, r.createdAt) else r.createdAt end where r.gradedAt is null")
+    int backfillGradedAt();
+
+    /**
+     * 重建分数分布用到的批改结果字段
+     */
+    interface ScoreRow {
+        Long getId();
+        Integer getOverallScore();
+        String getStatus();
+        LocalDateTime getGradedAt();
+    }
 }
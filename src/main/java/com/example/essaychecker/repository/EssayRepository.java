@@ -1,10 +1,22 @@
 package com.example.essaychecker.repository;
 
+import com.example.essaychecker.dto.EssayExportRow;
+import com.example.essaychecker.dto.EssaySummaryDto;
 import com.example.essaychecker.entity.Essay;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 作文数据访问仓库接口
@@ -16,4 +28,61 @@ public interface EssayRepository extends JpaRepository<Essay, Long> {
     List<Essay> findByUserIdOrderByCreatedAtDesc(Long userId);
     // 根据用户ID查询该用户的所有作文，按创建时间降序排列
     List<Essay> findByUserIdAndTitleContainingOrderByCreatedAtDesc(Long userId, String title);
+
+    // 查询用户作文摘要的第一页（不加载全文），按创建时间、ID降序
+    @Query("select new com.example.essaychecker.dto.EssaySummaryDto(" +
+            "e.id, e.title, substring(e.content, 1, 100), r.overallScore, e.createdAt, e.updatedAt) " +
+            "from Essay e left join CheckResult r on r.essayId = e.id " +
+            "where e.userId = :userId " +
+            "order by e.createdAt desc, e.id desc")
+    List<EssaySummaryDto> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // 查询游标（createdAt, id）之后的用户作文摘要，走 (user_id, created_at, id) 索引
+    @Query("select new com.example.essaychecker.dto.EssaySummaryDto(" +
+            "e.id, e.title, substring(e.content, 1, 100), r.overallScore, e.createdAt, e.updatedAt) " +
+            "from Essay e left join CheckResult r on r.essayId = e.id " +
+            "where e.userId = :userId " +
+            "and (e.createdAt < :createdAt or (e.createdAt = :createdAt and e.id < :id)) " +
+            "order by e.createdAt desc, e.id desc")
+    List<EssaySummaryDto> findSummariesByUserIdBefore(@Param("userId") Long userId,
+                                                      @Param("createdAt") LocalDateTime createdAt,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
+
+    // 查询作文的修改时间，写入批改结果缓存前确认作文未在批改期间被修改
+    @Query("select e.updatedAt from Essay e where e.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+
+    // 按ID游标分批读取作文，用于重建搜索索引
+    List<Essay> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // 按ID游标分批读取修改时间不早于since的作文，用于同步搜索索引
+    @Query("select e from Essay e where e.updatedAt >= :since and e.id > :lastId order by e.id")
+    List<Essay> findUpdatedSince(@Param("since") LocalDateTime since,
+                                 @Param("lastId") Long lastId,
+                                 Pageable pageable);
+
+    // 按ID批量查询用户作文摘要，用于搜索结果（顺序由调用方按相关度排列）
+    @Query("select new com.example.essaychecker.dto.EssaySummaryDto(" +
+            "e.id, e.title, substring(e.content, 1, 100), r.overallScore, e.createdAt, e.updatedAt) " +
+            "from Essay e left join CheckResult r on r.essayId = e.id " +
+            "where e.userId = :userId and e.id in :ids")
+    List<EssaySummaryDto> findSummariesByUserIdAndIdIn(@Param("userId") Long userId,
+                                                       @Param("ids") Collection<Long> ids);
+
+    // 流式读取多个用户的作文及批改结果用于导出，须在事务内消费并关闭；
+    // fetchSize为Integer.MIN_VALUE时MySQL驱动逐行读取结果集，不把整个结果集加载到内存
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.essaychecker.dto.EssayExportRow(" +
+            "e.id, e.userId, u.username, e.title, e.content, e.createdAt, e.updatedAt, " +
+            "r.status, r.overallScore, r.grammarErrorsJson, r.fluencyAnalysis, r.logicEvaluation, " +
+            "r.writingSuggestionsJson, r.vocabularyRecommendationsJson, coalesce(r.gradedAt, r.createdAt)) " +
+            "from Essay e left join User u on u.id = e.userId " +
+            "left join CheckResult r on r.essayId = e.id " +
+            "where e.userId in :userIds " +
+            "order by e.userId, e.createdAt, e.id")
+    Stream<EssayExportRow> streamExportRows(@Param("userIds") Collection<Long> userIds);
 }
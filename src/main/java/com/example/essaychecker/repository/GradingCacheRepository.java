@@ -0,0 +1,23 @@
+package com.example.essaychecker.repository;
+
+import com.example.essaychecker.entity.GradingCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批改结果缓存数据访问接口
+ * 提供对GradingCacheEntry实体的数据库操作，主键为内容哈希
+ */
+@Repository
+public interface GradingCacheRepository extends JpaRepository<GradingCacheEntry, String> {
+    // 删除最近写入时间早于deadline的条目；旧版本覆盖写入时丢失了时间的条目一并删除
+    @Modifying
+    @Query("delete from GradingCacheEntry e where coalesce(e.updatedAt, e.createdAt) < :deadline " +
+            "or (e.updatedAt is null and e.createdAt is null)")
+    int deleteWrittenBefore(@Param("deadline") LocalDateTime deadline);
+}
@@ -0,0 +1,79 @@
+package com.example.essaychecker.repository;
+
+import com.example.essaychecker.entity.GradingJob;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 批改任务数据访问接口
+ * 提供对GradingJob实体的数据库操作；租约相关的更新都以节点仍持有租约为条件
+ */
+@Repository
+public interface GradingJobRepository extends JpaRepository<GradingJob, String> {
+    // 查询作文未完成的任务
+    Optional<GradingJob> findByActiveEssayId(Long essayId);
+
+    // 查询可领取的任务（排队中或租约已到期）并加锁，须在事务内调用；
+    // 锁超时为-2（LockOptions.SKIP_LOCKED）时生成 FOR UPDATE SKIP LOCKED，其他节点已锁定的任务直接跳过，
+    // 不支持的数据库（如测试用的嵌入式数据库）退化为 FOR UPDATE
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select j from GradingJob j where j.status = :pending " +
+            "or (j.status = :running and j.leaseExpiresAt < :now) " +
+            "order by j.createdAt")
+    List<GradingJob> findClaimable(@Param("pending") String pending,
+                                   @Param("running") String running,
+                                   @Param("now") LocalDateTime now,
+                                   Pageable pageable);
+
+    // 为节点仍持有的任务续约
+    @Modifying
+    @Query("update GradingJob j set j.leaseExpiresAt = :expiresAt, j.heartbeatAt = :now " +
+            "where j.id in :ids and j.leaseOwner = :owner and j.status = :running")
+    int renewLeases(@Param("ids") Collection<String> ids,
+                    @Param("owner") String owner,
+                    @Param("running") String running,
+                    @Param("now") LocalDateTime now,
+                    @Param("expiresAt") LocalDateTime expiresAt);
+
+    // 结束任务并释放租约，返回0表示租约已被其他节点接管
+    @Modifying
+    @Query("update GradingJob j set j.status = :status, j.error = :error, j.finishedAt = :now, " +
+            "j.leaseOwner = null, j.leaseExpiresAt = null, j.activeEssayId = null " +
+            "where j.id = :id and j.leaseOwner = :owner and j.status = :running")
+    int complete(@Param("id") String id,
+                 @Param("owner") String owner,
+                 @Param("running") String running,
+                 @Param("status") String status,
+                 @Param("error") String error,
+                 @Param("now") LocalDateTime now);
+
+    // 把已领取但未开始执行的任务放回队列
+    @Modifying
+    @Query("update GradingJob j set j.status = :pending, j.leaseOwner = null, j.leaseExpiresAt = null, " +
+            "j.attempts = j.attempts - 1 " +
+            "where j.id = :id and j.leaseOwner = :owner and j.status = :running")
+    int release(@Param("id") String id,
+                @Param("owner") String owner,
+                @Param("running") String running,
+                @Param("pending") String pending);
+
+    // 删除完成时间早于deadline的任务
+    @Modifying
+    @Query("delete from GradingJob j where j.finishedAt < :deadline")
+    int deleteFinishedBefore(@Param("deadline") LocalDateTime deadline);
+}
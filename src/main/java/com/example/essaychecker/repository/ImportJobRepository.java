@@ -0,0 +1,69 @@
+package com.example.essaychecker.repository;
+
+import com.example.essaychecker.entity.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * 批量导入任务数据访问接口
+ * 提供对ImportJob实体的数据库操作；进度更新都以任务仍未结束为条件，已被标记为中断的任务不会被覆盖
+ */
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, String> {
+    // 写入执行中任务的进度并刷新心跳，返回0表示任务已结束（被其他节点标记为中断）
+    @Modifying
+    @Query("update ImportJob j set j.status = :status, j.processed = :processed, j.imported = :imported, " +
+            "j.failed = :failed, j.errorsJson = :errorsJson, j.heartbeatAt = :now " +
+            "where j.id = :id and j.status in :active")
+    int updateProgress(@Param("id") String id,
+                       @Param("active") Collection<String> active,
+                       @Param("status") String status,
+                       @Param("processed") long processed,
+                       @Param("imported") long imported,
+                       @Param("failed") long failed,
+                       @Param("errorsJson") String errorsJson,
+                       @Param("now") LocalDateTime now);
+
+    // 刷新本节点排队中和执行中任务的心跳
+    @Modifying
+    @Query("update ImportJob j set j.heartbeatAt = :now where j.id in :ids and j.status in :active")
+    int heartbeat(@Param("ids") Collection<String> ids,
+                  @Param("active") Collection<String> active,
+                  @Param("now") LocalDateTime now);
+
+    // 结束任务，返回0表示任务已被其他节点标记为中断
+    @Modifying
+    @Query("update ImportJob j set j.status = :status, j.processed = :processed, j.imported = :imported, " +
+            "j.failed = :failed, j.errorsJson = :errorsJson, j.error = :error, j.finishedAt = :now, j.heartbeatAt = :now " +
+            "where j.id = :id and j.status in :active")
+    int finish(@Param("id") String id,
+               @Param("active") Collection<String> active,
+               @Param("status") String status,
+               @Param("processed") long processed,
+               @Param("imported") long imported,
+               @Param("failed") long failed,
+               @Param("errorsJson") String errorsJson,
+               @Param("error") String error,
+               @Param("now") LocalDateTime now);
+
+    // 把心跳早于deadline的未结束任务标记为中断（执行的节点已宕机）
+    @Modifying
+    @Query("update ImportJob j set j.status = :failed, j.error = :error, j.finishedAt = :now " +
+            "where j.status in :active and j.heartbeatAt < :deadline")
+    int failStale(@Param("active") Collection<String> active,
+                  @Param("failed") String failed,
+                  @Param("error") String error,
+                  @Param("deadline") LocalDateTime deadline,
+                  @Param("now") LocalDateTime now);
+
+    // 删除完成时间早于deadline的任务
+    @Modifying
+    @Query("delete from ImportJob j where j.finishedAt < :deadline")
+    int deleteFinishedBefore(@Param("deadline") LocalDateTime deadline);
+}
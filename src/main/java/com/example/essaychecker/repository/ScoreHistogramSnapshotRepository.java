@@ -0,0 +1,15 @@
+package com.example.essaychecker.repository;
+
+import com.example.essaychecker.entity.ScoreHistogramSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * 分数分布快照数据访问接口
+ * 提供对ScoreHistogramSnapshot实体的数据库操作，主键为批改日期
+ */
+@Repository
+public interface ScoreHistogramSnapshotRepository extends JpaRepository<ScoreHistogramSnapshot, LocalDate> {
+}
@@ -0,0 +1,13 @@
+package com.example.essaychecker.repository;
+
+import com.example.essaychecker.entity.UserScoreSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 用户成绩统计汇总数据访问接口
+ * 提供对UserScoreSummary实体的数据库操作，主键为用户ID
+ */
+@Repository
+public interface UserScoreSummaryRepository extends JpaRepository<UserScoreSummary, Long> {
+}
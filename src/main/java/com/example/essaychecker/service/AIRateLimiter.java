@@ -0,0 +1,224 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * AI调用限流器
+ * 对DeepSeek的调用按全局和单个用户两个维度、按每分钟请求数和每分钟估算token数四个令牌桶限流。
+ * 请求按到达顺序预约令牌，需要等待时在有界时间内排队，超出等待上限则直接拒绝并给出重试时间
+ */
+@Service
+public class AIRateLimiter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 全局每分钟请求数
+    @Value("${ai.rate-limit.global-rpm:60}")
+    private long globalRpm;
+
+    // 全局每分钟token数
+    @Value("${ai.rate-limit.global-tpm:300000}")
+    private long globalTpm;
+
+    // 单个用户每分钟请求数
+    @Value("${ai.rate-limit.user-rpm:10}")
+    private long userRpm;
+
+    // 单个用户每分钟token数
+    @Value("${ai.rate-limit.user-tpm:60000}")
+    private long userTpm;
+
+    // 排队等待的最长时间（毫秒），超过则拒绝
+    @Value("${ai.rate-limit.max-wait:10000}")
+    private long maxWait;
+
+    // 所有令牌桶共用一把锁，保证多个桶的预约是原子的；持锁时间极短，不影响吞吐
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 时间来源（毫秒）
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private TokenBucket globalRequests;
+    private TokenBucket globalTokens;
+    private final Map<Long, TokenBucket[]> userBuckets = new ConcurrentHashMap<>();
+
+    private Counter rejectionCounter;
+    private Timer waitTimer;
+
+    @PostConstruct
+    public void init() {
+        long now = clock.getAsLong();
+        globalRequests = new TokenBucket(globalRpm, now);
+        globalTokens = new TokenBucket(globalTpm, now);
+        rejectionCounter = Counter.builder("ai.ratelimit.rejections")
+                .description("因超出限流被拒绝的AI调用次数").register(meterRegistry);
+        waitTimer = Timer.builder("ai.ratelimit.wait")
+                .description("AI调用在限流器中排队等待的时间").register(meterRegistry);
+    }
+
+    /**
+     * 获取一次AI调用的配额，必要时阻塞等待
+     * @param userId 发起调用的用户ID（为null时只做全局限流）
+     * @param estimatedTokens 本次调用估算的token数（提示词+最大生成长度）
+     * @throws RateLimitExceededException 需要等待的时间超过上限时抛出
+     */
+    public void acquire(Long userId, long estimatedTokens) {
+        long now = clock.getAsLong();
+        long waitMillis;
+
+        lock.lock();
+        try {
+            TokenBucket[] buckets = userId != null ? userBuckets(userId, now) : null;
+
+            waitMillis = Math.max(globalRequests.waitFor(1, now), globalTokens.waitFor(estimatedTokens, now));
+            if (buckets != null) {
+                waitMillis = Math.max(waitMillis,
+                        Math.max(buckets[0].waitFor(1, now), buckets[1].waitFor(estimatedTokens, now)));
+            }
+
+            if (waitMillis > maxWait) {
+                rejectionCounter.increment();
+                throw new RateLimitExceededException(
+                        "AI批改请求过于频繁，请在" + ((waitMillis + 999) / 1000) + "秒后重试", waitMillis);
+            }
+
+            // 预约令牌：余额可以暂时为负，后到的请求据此计算出更长的等待时间
+            globalRequests.take(1);
+            globalTokens.take(estimatedTokens);
+            if (buckets != null) {
+                buckets[0].take(1);
+                buckets[1].take(estimatedTokens);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        waitTimer.record(waitMillis, TimeUnit.MILLISECONDS);
+        if (waitMillis > 0) {
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RateLimitExceededException("AI批改请求排队被中断，请稍后重试", waitMillis);
+            }
+        }
+    }
+
+    /**
+     * 检查一组调用能否全部在等待上限内获得配额，只检查不预约
+     * 一次发出多个调用（如长作文分段批改）前整体检查，避免部分调用已消耗配额、其余调用排队超时被拒绝
+     * @param userId 发起调用的用户ID（为null时只检查全局配额）
+     * @param requests 调用次数
+     * @param estimatedTokens 这组调用估算的总token数
+     * @throws RateLimitExceededException 需要等待的时间超过上限，或调用次数超过每分钟配额时抛出
+     */
+    public void checkAvailable(Long userId, int requests, long estimatedTokens) {
+        long now = clock.getAsLong();
+        long waitMillis;
+
+        lock.lock();
+        try {
+            waitMillis = Math.max(globalRequests.waitForAll(requests, now), globalTokens.waitForAll(estimatedTokens, now));
+            if (userId != null) {
+                TokenBucket[] buckets = userBuckets(userId, now);
+                waitMillis = Math.max(waitMillis,
+                        Math.max(buckets[0].waitForAll(requests, now), buckets[1].waitForAll(estimatedTokens, now)));
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (waitMillis > maxWait) {
+            rejectionCounter.increment();
+            throw new RateLimitExceededException(
+                    "AI批改请求过于频繁，请在" + ((waitMillis + 999) / 1000) + "秒后重试", waitMillis);
+        }
+    }
+
+    // 获取用户的令牌桶：[0]为请求数，[1]为token数
+    private TokenBucket[] userBuckets(Long userId, long now) {
+        return userBuckets.computeIfAbsent(userId,
+                id -> new TokenBucket[]{new TokenBucket(userRpm, now), new TokenBucket(userTpm, now)});
+    }
+
+    // 指定时间来源，须在init之前调用，供测试使用
+    void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    // 定期清理已回满的用户令牌桶，避免长期不活跃的用户占用内存
+    @Scheduled(fixedDelay = 300000)
+    public void evictIdleUsers() {
+        long now = clock.getAsLong();
+        lock.lock();
+        try {
+            userBuckets.values().removeIf(buckets -> buckets[0].isFull(now) && buckets[1].isFull(now));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 令牌桶，容量为每分钟配额，按毫秒匀速回填
+     * 只在持有外部锁时访问
+     */
+    private static class TokenBucket {
+        private final double capacity;
+        private final double refillPerMillis;
+        private double available;
+        private long lastRefill;
+
+        TokenBucket(long perMinute, long now) {
+            this.capacity = perMinute;
+            this.refillPerMillis = perMinute / 60000.0;
+            this.available = perMinute;
+            this.lastRefill = now;
+        }
+
+        // 回填到当前时间
+        private void refill(long now) {
+            if (now > lastRefill) {
+                available = Math.min(capacity, available + (now - lastRefill) * refillPerMillis);
+                lastRefill = now;
+            }
+        }
+
+        // 获得amount个令牌需要等待的毫秒数；超过容量的请求按容量计算，避免永远无法满足
+        long waitFor(long amount, long now) {
+            refill(now);
+            double needed = Math.min(amount, capacity) - available;
+            return needed <= 0 ? 0 : (long) Math.ceil(needed / refillPerMillis);
+        }
+
+        // 累计获得amount个令牌需要等待的毫秒数，不按容量截断
+        long waitForAll(long amount, long now) {
+            refill(now);
+            double needed = amount - available;
+            return needed <= 0 ? 0 : (long) Math.ceil(needed / refillPerMillis);
+        }
+
+        void take(long amount) {
+            available -= Math.min(amount, capacity);
+        }
+
+        boolean isFull(long now) {
+            refill(now);
+            return available >= capacity;
+        }
+    }
+}
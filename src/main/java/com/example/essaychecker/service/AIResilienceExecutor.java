@@ -0,0 +1,335 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.exception.AIServiceException;
+import com.example.essaychecker.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * AI调用弹性执行器
+ * 为DeepSeek调用提供：429/5xx/超时的指数退避重试（全抖动）、熔断快速失败，
+ * 以及可选的对冲请求——首个请求超过近期P95延迟仍未返回时再发一个，取先成功者并中止另一个。
+ * 每次尝试（含重试和对冲）都重新执行完整的调用，限流配额也在调用内获取
+ */
+@Service
+public class AIResilienceExecutor {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("aiCallExecutor")
+    private ExecutorService aiCallExecutor;
+
+    // 最多尝试次数（含首次）
+    @Value("${ai.resilience.max-attempts:3}")
+    private int maxAttempts;
+
+    // 退避基准时间（毫秒），第n次重试的退避上限为 base * 2^(n-1)
+    @Value("${ai.resilience.base-backoff:500}")
+    private long baseBackoff;
+
+    // 单次退避的最大时间（毫秒）；429要求等待更久时不再重试
+    @Value("${ai.resilience.max-backoff:8000}")
+    private long maxBackoff;
+
+    @Value("${ai.resilience.circuit.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${ai.resilience.circuit.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${ai.resilience.circuit.window-size:20}")
+    private int windowSize;
+
+    @Value("${ai.resilience.circuit.open-duration:30000}")
+    private long openDuration;
+
+    @Value("${ai.resilience.circuit.half-open-calls:2}")
+    private int halfOpenCalls;
+
+    // 是否启用对冲请求
+    @Value("${ai.resilience.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    // 对冲等待时间下限（毫秒），避免在延迟样本很小时过早对冲
+    @Value("${ai.resilience.hedge.min-delay:2000}")
+    private long hedgeMinDelay;
+
+    private CircuitBreaker circuitBreaker;
+    private final LatencyWindow latencyWindow = new LatencyWindow(200);
+
+    private Counter retryCounter;
+    private Counter hedgeCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        circuitBreaker = new CircuitBreaker(failureRateThreshold, minimumCalls, windowSize, openDuration, halfOpenCalls);
+        retryCounter = Counter.builder("ai.resilience.retries")
+                .description("AI调用重试次数").register(meterRegistry);
+        hedgeCounter = Counter.builder("ai.resilience.hedges")
+                .description("发出的对冲请求次数").register(meterRegistry);
+        rejectedCounter = Counter.builder("ai.resilience.circuit.rejections")
+                .description("熔断打开时被快速拒绝的调用次数").register(meterRegistry);
+        Gauge.builder("ai.resilience.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("熔断器状态：0关闭，1半开，2打开").register(meterRegistry);
+    }
+
+    /**
+     * 带重试和熔断执行一次AI调用
+     * @param call 实际的调用，每次重试和对冲都会重新执行
+     * @param hedgeAllowed 是否允许对冲（流式调用等有副作用的调用不应对冲）
+     * @return 调用结果
+     * @throws AIServiceException 熔断打开、不可重试的错误或重试耗尽时抛出
+     * @throws RateLimitExceededException DeepSeek持续限流且要求的等待超过退避上限时抛出
+     */
+    public String execute(AttemptCall call, boolean hedgeAllowed) {
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                rejectedCounter.increment();
+                throw new AIServiceException("AI服务暂时不可用，请在"
+                        + Math.max(1, circuitBreaker.remainingOpenMillis() / 1000) + "秒后重试", false);
+            }
+
+            long start = System.nanoTime();
+            try {
+                String result = hedgeEnabled && hedgeAllowed ? callHedged(call) : call.call(new Attempt());
+                latencyWindow.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (Exception e) {
+                boolean retryable = isRetryable(e);
+                // 限流和请求本身的错误不代表服务故障，不计入熔断统计
+                if (retryable && !(e instanceof RateLimitExceededException)) {
+                    circuitBreaker.onFailure();
+                } else {
+                    circuitBreaker.onIgnored();
+                }
+                if (!retryable) {
+                    throw toRuntimeException(e);
+                }
+
+                long delay = backoff(attempt, e);
+                if (attempt >= maxAttempts || delay > maxBackoff) {
+                    throw toRuntimeException(e);
+                }
+                retryCounter.increment();
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new AIServiceException("AI调用重试被中断", false, e);
+                }
+            }
+        }
+    }
+
+    // 熔断器当前状态
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    // 第attempt次失败后的退避时间：全抖动指数退避，429时至少等待服务端要求的时间
+    private long backoff(int attempt, Exception e) {
+        long cap = Math.min(maxBackoff, baseBackoff << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        if (e instanceof RateLimitExceededException rateLimited) {
+            delay = Math.max(delay, rateLimited.getRetryAfterMillis());
+        }
+        return delay;
+    }
+
+    // 判断失败是否值得重试：限流、服务端错误和网络故障（含超时）
+    private boolean isRetryable(Exception e) {
+        if (e instanceof RateLimitExceededException) {
+            return true;
+        }
+        if (e instanceof AIServiceException aiException) {
+            return aiException.isRetryable();
+        }
+        return e instanceof IOException;
+    }
+
+    private RuntimeException toRuntimeException(Exception e) {
+        if (e instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new AIServiceException("AI服务调用失败: " + e.getMessage(), false, e);
+    }
+
+    // 对冲调用：首个请求超过P95延迟未返回时再发一个，取先成功的结果，并中止仍在进行的另一个
+    private String callHedged(AttemptCall call) throws Exception {
+        long hedgeDelay = latencyWindow.percentile(0.95);
+        if (hedgeDelay <= 0) {
+            // 延迟样本不足，不做对冲
+            return call.call(new Attempt());
+        }
+        hedgeDelay = Math.max(hedgeDelay, hedgeMinDelay);
+
+        Attempt primaryAttempt = new Attempt();
+        CompletableFuture<String> primary = CompletableFuture.supplyAsync(() -> invoke(call, primaryAttempt), aiCallExecutor);
+        try {
+            return primary.get(hedgeDelay, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 首个请求过慢，发出对冲请求
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+
+        hedgeCounter.increment();
+        Attempt hedgeAttempt = new Attempt();
+        CompletableFuture<String> hedge = CompletableFuture.supplyAsync(() -> invoke(call, hedgeAttempt), aiCallExecutor);
+
+        CompletableFuture<String> firstSuccess = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete(onHedgeComplete(firstSuccess, failures, hedgeAttempt));
+        hedge.whenComplete(onHedgeComplete(firstSuccess, failures, primaryAttempt));
+
+        try {
+            return firstSuccess.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    // 对冲中一方结束：先成功的一方给出结果并中止另一方，两方都失败时以后失败的异常结束
+    private BiConsumer<String, Throwable> onHedgeComplete(CompletableFuture<String> firstSuccess,
+                                                         AtomicInteger failures, Attempt other) {
+        return (result, error) -> {
+            if (error == null) {
+                if (firstSuccess.complete(result)) {
+                    other.abort();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                firstSuccess.completeExceptionally(error);
+            }
+        };
+    }
+
+    private String invoke(AttemptCall call, Attempt attempt) {
+        try {
+            return call.call(attempt);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // 还原异步执行中被包装的异常
+    private Exception unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof Exception exception) {
+            return exception;
+        }
+        return new AIServiceException("AI服务调用失败", false, error);
+    }
+
+    /**
+     * 一次调用尝试
+     */
+    @FunctionalInterface
+    public interface AttemptCall {
+        /**
+         * 执行一次尝试
+         * @param attempt 本次尝试，发出请求前应通过onAbort登记中止方式
+         * @return 调用结果
+         */
+        String call(Attempt attempt) throws Exception;
+    }
+
+    /**
+     * 一次调用尝试的中止句柄
+     * 对冲中落败的一方被中止；登记中止方式时若已被中止，立即执行
+     */
+    public static class Attempt {
+        private final AtomicBoolean aborted = new AtomicBoolean();
+        private volatile Runnable abortAction;
+
+        /**
+         * 登记中止方式，如HttpPost::abort
+         * @param action 中止动作，可能被执行多次，须是幂等的
+         */
+        public void onAbort(Runnable action) {
+            abortAction = action;
+            if (aborted.get()) {
+                action.run();
+            }
+        }
+
+        void abort() {
+            if (aborted.compareAndSet(false, true)) {
+                Runnable action = abortAction;
+                if (action != null) {
+                    action.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * 最近若干次成功调用的延迟，用于计算对冲阈值
+     */
+    private static class LatencyWindow {
+        private static final int MIN_SAMPLES = 20;
+
+        private final long[] samples;
+        private int index;
+        private int count;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        void record(long millis) {
+            lock.lock();
+            try {
+                samples[index] = millis;
+                index = (index + 1) % samples.length;
+                if (count < samples.length) {
+                    count++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // 计算分位数，样本不足时返回-1
+        long percentile(double quantile) {
+            long[] copy;
+            lock.lock();
+            try {
+                if (count < MIN_SAMPLES) {
+                    return -1;
+                }
+                copy = Arrays.copyOf(samples, count);
+            } finally {
+                lock.unlock();
+            }
+            Arrays.sort(copy);
+            return copy[Math.min(copy.length - 1, (int) Math.ceil(quantile * copy.length) - 1)];
+        }
+    }
+}
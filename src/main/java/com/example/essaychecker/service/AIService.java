@@ -1,21 +1,40 @@
 package com.example.essaychecker.service;
 
+import com.example.essaychecker.exception.AIServiceException;
+import com.example.essaychecker.exception.RateLimitExceededException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * AI作文批改服务
@@ -24,6 +43,8 @@ import java.util.Map;
 @Service
 public class AIService {
 
+    private static final Logger log = LoggerFactory.getLogger(AIService.class);
+
     // 从配置文件中注入DeepSeek API密钥
     @Value("${ai.deepseek.api-key}")
     private String deepseekApiKey;
@@ -32,9 +53,50 @@ public class AIService {
     @Value("${ai.deepseek.api-url}")
     private String deepseekApiUrl;
 
+    // 单次调用的总超时（毫秒），超时后主动中止请求，避免卡死的连接长期占用线程
+    @Value("${ai.deepseek.http.total-timeout:90000}")
+    private long totalTimeout;
+
+    // 共享的连接池HTTP客户端，见HttpClientConfig
+    @Autowired
+    private CloseableHttpClient deepSeekHttpClient;
+
+    // 出站调用限流器
+    @Autowired
+    private AIRateLimiter aiRateLimiter;
+
+    // 重试、熔断与对冲
+    @Autowired
+    private AIResilienceExecutor aiResilienceExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 单次调用允许生成的最大token数
+    private static final int MAX_TOKENS = 2000;
+
+    // 全文结构评估只需给出简短评价，生成长度更小
+    private static final int STRUCTURE_MAX_TOKENS = 600;
+
+    // 逐段批改时每段允许生成的token数
+    private static final int PARAGRAPH_MAX_TOKENS = 400;
+
+    // DeepSeek未给出Retry-After时的默认重试等待（毫秒）
+    private static final long DEFAULT_RETRY_AFTER = 20000;
+
     // 创建一个ObjectMapper对象，解析JSON
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // 总超时定时器，到期后中止仍未完成的请求
+    private final ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "deepseek-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Counter promptTokenCounter;
+    private Counter completionTokenCounter;
+
     /**
      * 初始化验证方法
      * 确保API密钥和URL已正确配置
@@ -47,31 +109,189 @@ public class AIService {
         if (deepseekApiUrl == null || deepseekApiUrl.isEmpty()) {
             throw new IllegalStateException("DeepSeek API URL 没有配置");
         }
-        System.out.println("AI服务配置验证通过");
+        log.info("AI服务配置验证通过");
+
+        promptTokenCounter = Counter.builder("ai.deepseek.tokens").tag("type", "prompt")
+                .description("DeepSeek返回的usage中的token数").register(meterRegistry);
+        completionTokenCounter = Counter.builder("ai.deepseek.tokens").tag("type", "completion")
+                .description("DeepSeek返回的usage中的token数").register(meterRegistry);
+    }
+
+    // 关闭总超时定时器
+    @PreDestroy
+    public void shutdown() {
+        timeoutScheduler.shutdownNow();
     }
 
     /**
      * 作文分析入口方法
+     * 调用经过限流、重试和熔断保护；服务不可用时抛出异常而不是返回错误JSON，避免被当作批改结果保存
+     * @param userId 作文所属用户ID，用于按用户限流
      * @param content 待分析的作文内容
      * @return JSON格式的分析结果
+     * @throws RateLimitExceededException 超出限流时抛出
+     * @throws AIServiceException 熔断打开、请求被拒绝或重试耗尽时抛出
      */
-    public String analyzeEssay(String content) {
-        try {
-            // 调用DeepSeek API
-            String response = callDeepSeekAPI(content);
-            if (isValidJson(response)) {
-                return response;
-            } else {
-                return String.format("{\"error\":\"INVALID_RESPONSE\",\"message\":\"%s\"}",
-                        response.replace("\"", "\\\""));
+    public String analyzeEssay(Long userId, String content) {
+        return complete(userId, buildPrompt(content), MAX_TOKENS);
+    }
+
+    /**
+     * 分段批改：批改长作文中的一个片段
+     * 只评价片段本身的语法、流畅度、用词，不评价全文结构
+     * @param userId 作文所属用户ID，用于按用户限流
+     * @param chunk 片段内容
+     * @param index 片段序号（从1开始）
+     * @param total 片段总数
+     * @return JSON格式的分析结果，字段与整篇批改相同
+     */
+    public String analyzeChunk(Long userId, String chunk, int index, int total) {
+        return complete(userId, buildChunkPrompt(chunk, index, total), MAX_TOKENS);
+    }
+
+    /**
+     * 全文结构评估：根据各段落摘要评价长作文的整体逻辑和结构
+     * 只发送段落摘要而不是全文，开销远小于整篇批改
+     * @param userId 作文所属用户ID，用于按用户限流
+     * @param outline 段落摘要
+     * @return JSON格式的结构评价（logicEvaluation、structureScore）
+     */
+    public String analyzeStructure(Long userId, String outline) {
+        return complete(userId, buildStructurePrompt(outline), STRUCTURE_MAX_TOKENS);
+    }
+
+    /**
+     * 逐段批改：一次调用分别批改若干互不相关的段落
+     * 每段单独评价，不依赖段落在文中的位置，结果可以按段落内容缓存复用
+     * @param userId 作文所属用户ID，用于按用户限流
+     * @param paragraphs 段落内容
+     * @return JSON格式的分析结果，paragraphs数组按顺序给出每段的结果，字段与分段批改相同
+     */
+    public String analyzeParagraphs(Long userId, List<String> paragraphs) {
+        return complete(userId, buildParagraphsPrompt(paragraphs), PARAGRAPH_MAX_TOKENS * paragraphs.size());
+    }
+
+    /**
+     * 检查一次分段批改的全部调用（各片段与全文结构评估）能否在限流等待上限内获得配额，不预约令牌
+     * @param userId 作文所属用户ID
+     * @param chunks 片段内容
+     * @param outline 段落摘要
+     * @throws RateLimitExceededException 配额不足时抛出
+     */
+    public void checkChunkedQuota(Long userId, List<String> chunks, String outline) {
+        long estimatedTokens = estimateTokens(buildStructurePrompt(outline), STRUCTURE_MAX_TOKENS);
+        for (int i = 0; i < chunks.size(); i++) {
+            estimatedTokens += estimateTokens(buildChunkPrompt(chunks.get(i), i + 1, chunks.size()), MAX_TOKENS);
+        }
+        aiRateLimiter.checkAvailable(userId, chunks.size() + 1, estimatedTokens);
+    }
+
+    // 经重试和熔断保护调用一次DeepSeek，返回生成的JSON；每次重试和对冲请求都单独获取限流配额
+    private String complete(Long userId, String prompt, int maxTokens) {
+        long estimatedTokens = estimateTokens(prompt, maxTokens);
+        // 调用DeepSeek API
+        String response = aiResilienceExecutor.execute(attempt -> {
+            aiRateLimiter.acquire(userId, estimatedTokens);
+            return callDeepSeekAPI(prompt, maxTokens, attempt);
+        }, true);
+        if (isValidJson(response)) {
+            return response;
+        } else {
+            return String.format("{\"error\":\"INVALID_RESPONSE\",\"message\":\"%s\"}",
+                    response.replace("\"", "\\\""));
+        }
+    }
+
+    /**
+     * 流式作文分析方法
+     * 以stream模式调用DeepSeek，每收到一段生成内容就回调onDelta；
+     * 只有在尚未输出任何内容时失败才会重试，已输出部分内容后中断则直接失败
+     * @param userId 作文所属用户ID，用于按用户限流
+     * @param content 待分析的作文内容
+     * @param onDelta 生成内容片段的回调
+     * @return 完整的JSON格式分析结果
+     * @throws RateLimitExceededException 超出限流时抛出
+     * @throws AIServiceException 熔断打开、请求被拒绝、重试耗尽或输出中断时抛出
+     */
+    public String analyzeEssayStreaming(Long userId, String content, Consumer<String> onDelta) {
+        String prompt = buildPrompt(content);
+        long estimatedTokens = estimateTokens(prompt, MAX_TOKENS);
+        AtomicBoolean emitted = new AtomicBoolean();
+        String response = aiResilienceExecutor.execute(attempt -> {
+            try {
+                aiRateLimiter.acquire(userId, estimatedTokens);
+                return callDeepSeekStreamingAPI(prompt, piece -> {
+                    emitted.set(true);
+                    onDelta.accept(piece);
+                });
+            } catch (Exception e) {
+                if (emitted.get()) {
+                    throw new AIServiceException("AI输出中断，请重新批改", false, e);
+                }
+                throw e;
             }
-        } catch (Exception e) {
-            return String.format("{\"error\":\"%s\",\"message\":\"%s\"}",
-                    e.getClass().getSimpleName(),
-                    e.getMessage().replace("\"", "\\\""));
+        }, false);
+        if (isValidJson(response)) {
+            return response;
+        } else {
+            return String.format("{\"error\":\"INVALID_RESPONSE\",\"message\":\"%s\"}",
+                    response.replace("\"", "\\\""));
         }
     }
 
+    // 估算一次调用消耗的token数：提示词（已含模板）加最大生成长度
+    private long estimateTokens(String prompt, int maxTokens) {
+        return (long) Math.ceil(prompt.length() * 0.6) + maxTokens;
+    }
+
+    /**
+     * 检查DeepSeek响应状态码
+     * 429转换为限流异常（按响应头Retry-After给出重试时间），5xx为可重试异常，其余4xx为不可重试异常
+     */
+    private void checkResponseStatus(CloseableHttpResponse response) {
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode < 400) {
+            return;
+        }
+        EntityUtils.consumeQuietly(response.getEntity());
+
+        if (statusCode == 429) {
+            long retryAfter = DEFAULT_RETRY_AFTER;
+            Header header = response.getFirstHeader("Retry-After");
+            if (header != null) {
+                try {
+                    retryAfter = Long.parseLong(header.getValue().trim()) * 1000;
+                } catch (NumberFormatException e) {
+                    // 非秒数格式（HTTP日期）时使用默认值
+                }
+            }
+            throw new RateLimitExceededException("AI服务繁忙，请在" + (retryAfter / 1000) + "秒后重试", retryAfter);
+        }
+        if (statusCode >= 500) {
+            throw new AIServiceException("AI服务异常（HTTP " + statusCode + "）", true);
+        }
+        throw new AIServiceException("AI服务拒绝了请求（HTTP " + statusCode + "）", false);
+    }
+
+    // DeepSeek调用延迟，按调用方式和结果区分，发布直方图以便计算分位数
+    private Timer latencyTimer(String mode, String outcome) {
+        return Timer.builder("ai.deepseek.latency")
+                .description("单次DeepSeek HTTP调用耗时")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // 记录DeepSeek返回的token用量
+    private void recordUsage(JsonNode usage) {
+        if (usage == null || usage.isNull()) {
+            return;
+        }
+        promptTokenCounter.increment(usage.path("prompt_tokens").asLong());
+        completionTokenCounter.increment(usage.path("completion_tokens").asLong());
+    }
+
     // 检查响应是否为有效的JSON
     private boolean isValidJson(String json) {
         try {
@@ -83,11 +303,12 @@ public class AIService {
     }
 
     // 调用DeepSeek API
-    private String callDeepSeekAPI(String content) throws Exception {
-        // 创建HTTP客户端
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        // 创建HTTP POST请求
+    private String callDeepSeekAPI(String prompt, int maxTokens, AIResilienceExecutor.Attempt attempt) throws Exception {
+        // 创建HTTP POST请求，连接由共享客户端的连接池提供；对冲落败时中止请求
         HttpPost httpPost = new HttpPost(deepseekApiUrl);
+        attempt.onAbort(httpPost::abort);
+        // 到达总超时后中止请求，execute会抛出异常
+        ScheduledFuture<?> abortTask = timeoutScheduler.schedule(httpPost::abort, totalTimeout, TimeUnit.MILLISECONDS);
 
         try {
             // 设置请求头
@@ -95,47 +316,126 @@ public class AIService {
             httpPost.setHeader("Authorization", "Bearer " + deepseekApiKey);
 
             // 设置请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "deepseek-chat");
-
-            // 设置消息
-            Map<String, String> message = new HashMap<>();
-            message.put("role", "user");
-            message.put("content", buildPrompt(content));
-
-            requestBody.put("messages", Arrays.asList(message));
-            requestBody.put("max_tokens", 2000);
-            requestBody.put("temperature", 0.7);
-
-            // 将请求体转换为JSON字符串
-            String jsonRequest = objectMapper.writeValueAsString(requestBody);
-            httpPost.setEntity(new StringEntity(jsonRequest, "UTF-8"));
+            httpPost.setEntity(new StringEntity(buildRequestBody(prompt, maxTokens, false), "UTF-8"));
 
             // 执行HTTP POST请求，处理响应
-            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try (CloseableHttpResponse response = deepSeekHttpClient.execute(httpPost)) {
+                checkResponseStatus(response);
                 HttpEntity entity = response.getEntity();
                 if (entity != null) {
-                    String responseBody = EntityUtils.toString(entity);
+                    // 完整读取响应体，连接才能归还连接池复用
+                    String responseBody = EntityUtils.toString(entity, StandardCharsets.UTF_8);
                     JsonNode responseJson = objectMapper.readTree(responseBody);
+                    recordUsage(responseJson.get("usage"));
                     JsonNode choices = responseJson.get("choices");
 
                     if (choices != null && choices.isArray() && choices.size() > 0) {
                         JsonNode messageResponse = choices.get(0).get("message");
                         if (messageResponse != null) {
+                            outcome = "success";
                             return messageResponse.get("content").asText();
                         }
                     }
                 }
+            } finally {
+                sample.stop(latencyTimer("blocking", outcome));
+            }
+        } finally {
+            abortTask.cancel(false);
+        }
+
+        throw new AIServiceException("AI分析服务暂不可用", true);
+    }
+
+    // 以stream模式调用DeepSeek API，逐行读取SSE数据并拼接生成内容
+    private String callDeepSeekStreamingAPI(String prompt, Consumer<String> onDelta) throws Exception {
+        HttpPost httpPost = new HttpPost(deepseekApiUrl);
+        ScheduledFuture<?> abortTask = timeoutScheduler.schedule(httpPost::abort, totalTimeout, TimeUnit.MILLISECONDS);
+
+        try {
+            httpPost.setHeader("Content-Type", "application/json");
+            httpPost.setHeader("Accept", "text/event-stream");
+            httpPost.setHeader("Authorization", "Bearer " + deepseekApiKey);
+            httpPost.setEntity(new StringEntity(buildRequestBody(prompt, MAX_TOKENS, true), "UTF-8"));
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try (CloseableHttpResponse response = deepSeekHttpClient.execute(httpPost)) {
+                checkResponseStatus(response);
+                HttpEntity entity = response.getEntity();
+                if (entity != null) {
+                    StringBuilder fullContent = new StringBuilder();
+                    // 读到结束标记后关闭流会读完剩余数据，连接随之归还连接池
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (!line.startsWith("data:")) {
+                                continue;
+                            }
+                            String data = line.substring(5).trim();
+                            if ("[DONE]".equals(data)) {
+                                break;
+                            }
+                            if (data.isEmpty()) {
+                                continue;
+                            }
+
+                            JsonNode chunk = objectMapper.readTree(data);
+                            // 开启include_usage后，最后一个数据块携带整次调用的usage
+                            recordUsage(chunk.get("usage"));
+                            JsonNode choices = chunk.get("choices");
+                            if (choices != null && choices.isArray() && choices.size() > 0) {
+                                JsonNode delta = choices.get(0).get("delta");
+                                JsonNode piece = delta != null ? delta.get("content") : null;
+                                if (piece != null && !piece.isNull()) {
+                                    fullContent.append(piece.asText());
+                                    onDelta.accept(piece.asText());
+                                }
+                            }
+                        }
+                    }
+                    if (fullContent.length() > 0) {
+                        outcome = "success";
+                        return fullContent.toString();
+                    }
+                }
+            } finally {
+                sample.stop(latencyTimer("streaming", outcome));
             }
         } finally {
-            httpClient.close();
+            abortTask.cancel(false);
+        }
+
+        throw new AIServiceException("AI分析服务暂不可用", true);
+    }
+
+    // 构建请求体JSON
+    String buildRequestBody(String prompt, int maxTokens, boolean stream) throws Exception {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", "deepseek-chat");
+
+        // 设置消息
+        Map<String, String> message = new HashMap<>();
+        message.put("role", "user");
+        message.put("content", prompt);
+
+        requestBody.put("messages", Arrays.asList(message));
+        requestBody.put("max_tokens", maxTokens);
+        requestBody.put("temperature", 0.7);
+        if (stream) {
+            requestBody.put("stream", true);
+            requestBody.put("stream_options", Map.of("include_usage", true));
         }
 
-        return "{\"error\":\"AI_SERVICE_UNAVAILABLE\",\"message\":\"AI分析服务暂不可用\"}";
+        // 将请求体转换为JSON字符串
+        return objectMapper.writeValueAsString(requestBody);
     }
 
     // 构建提示
-    private String buildPrompt(String content) {
+    String buildPrompt(String content) {
         return
                 "请作为一名中文写作老师，批改下面这篇中文作文。\n" +
                         "请严格按照以下格式输出标准 JSON，不得包含任何多余解释或文本。\n\n" +
@@ -157,4 +457,60 @@ public class AIService {
                         "}\n\n" +
                         "### 作文内容：\n" + content;
     }
+
+    // 构建分段批改的提示
+    private String buildChunkPrompt(String chunk, int index, int total) {
+        return
+                "请作为一名中文写作老师，批改下面这篇中文作文的第" + index + "部分（共" + total + "部分）。\n" +
+                        "只评价这一部分的语法、流畅度和用词，不要评价全文结构。\n" +
+                        "请严格按照以下格式输出标准 JSON，不得包含任何多余解释或文本。\n\n" +
+                        "### 返回格式：\n" +
+                        "{\n" +
+                        "  \"grammarErrors\": [\"错误描述1\", \"错误描述2\"],\n" +
+                        "  \"fluencyAnalysis\": \"对这一部分句子、段落流畅性的评价\",\n" +
+                        "  \"writingSuggestions\": [\"建议1\", \"建议2\"],\n" +
+                        "  \"vocabularyRecommendations\": [\"词汇建议1\", \"词汇建议2\"],\n" +
+                        "  \"overallScore\": 80\n" +
+                        "}\n\n" +
+                        "### 作文片段：\n" + chunk;
+    }
+
+    // 构建逐段批改的提示
+    private String buildParagraphsPrompt(List<String> paragraphs) {
+        StringBuilder sb = new StringBuilder(
+                "请作为一名中文写作老师，分别批改下面" + paragraphs.size() + "个取自中文作文的段落。\n" +
+                        "每段单独评价语法、流畅度和用词，不要评价全文结构，也不要引用其他段落。\n" +
+                        "请严格按照以下格式输出标准 JSON，paragraphs数组按段落顺序给出" + paragraphs.size() +
+                        "个结果，不得包含任何多余解释或文本。\n\n" +
+                        "### 返回格式：\n" +
+                        "{\n" +
+                        "  \"paragraphs\": [\n" +
+                        "    {\n" +
+                        "      \"grammarErrors\": [\"错误描述1\", \"错误描述2\"],\n" +
+                        "      \"fluencyAnalysis\": \"对这一段流畅性的评价\",\n" +
+                        "      \"writingSuggestions\": [\"建议1\"],\n" +
+                        "      \"vocabularyRecommendations\": [\"词汇建议1\"],\n" +
+                        "      \"overallScore\": 80\n" +
+                        "    }\n" +
+                        "  ]\n" +
+                        "}\n\n" +
+                        "### 段落：\n");
+        for (int i = 0; i < paragraphs.size(); i++) {
+            sb.append("【段落").append(i + 1).append("】").append(paragraphs.get(i)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // 构建全文结构评估的提示
+    private String buildStructurePrompt(String outline) {
+        return
+                "请作为一名中文写作老师，根据下面这篇长篇中文作文各段落的开头和篇幅，评价文章的整体结构和论证逻辑。\n" +
+                        "请严格按照以下格式输出标准 JSON，不得包含任何多余解释或文本。\n\n" +
+                        "### 返回格式：\n" +
+                        "{\n" +
+                        "  \"logicEvaluation\": \"文章结构与论证逻辑评价\",\n" +
+                        "  \"structureScore\": 80\n" +
+                        "}\n\n" +
+                        "### 段落摘要：\n" + outline;
+    }
 }
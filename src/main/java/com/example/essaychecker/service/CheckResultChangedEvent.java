@@ -0,0 +1,46 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.entity.CheckResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批改结果变更事件
+ * 作文首次批改、修改后重新批改或被删除时发布，携带变更前后的分数和语法错误，
+ * 监听方据此增量维护统计数据而不必重新扫描历史记录
+ * @param userId 作文所属用户ID
+ * @param essayId 作文ID
+ * @param checkResultId 批改结果ID
+ * @param previous 变更前计入统计的结果（没有或不计入统计时为null）
+ * @param current 变更后计入统计的结果（作文被删除或结果不计入统计时为null）
+ */
+public record CheckResultChangedEvent(Long userId, Long essayId, Long checkResultId,
+                                      ScoreSnapshot previous, ScoreSnapshot current) {
+
+    /**
+     * 一次批改结果中与统计相关的部分
+     * @param score 总分
+     * @param grammarErrors 语法错误
+     * @param gradedAt 批改时间
+     */
+    public record ScoreSnapshot(int score, List<String> grammarErrors, LocalDateTime gradedAt) {
+
+        /**
+         * 从批改结果中提取统计数据
+         * @param checkResult 批改结果（可为null）
+         * @return 统计快照，结果为空或为占位结果时返回null
+         */
+        public static ScoreSnapshot of(CheckResult checkResult) {
+            if (checkResult == null || !checkResult.isGraded()) {
+                return null;
+            }
+            LocalDateTime gradedAt = checkResult.getGradedAt() != null
+                    ? checkResult.getGradedAt() : checkResult.getCreatedAt();
+            List<String> grammarErrors = checkResult.getGrammarErrors();
+            return new ScoreSnapshot(checkResult.getOverallScore(),
+                    grammarErrors != null ? grammarErrors : List.of(),
+                    gradedAt != null ? gradedAt : LocalDateTime.now());
+        }
+    }
+}
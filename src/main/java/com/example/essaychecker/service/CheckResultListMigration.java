@@ -0,0 +1,66 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.entity.CheckResult;
+import com.example.essaychecker.repository.CheckResultRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 批改结果列表字段迁移
+ * 启动时先为早期记录补上批改时间，再把旧版以分隔符拼接存储的语法错误、写作建议和词汇推荐分批转换为JSON列；
+ * 转换会更新修改时间，批改时间须在此之前补齐，统计按批改时间归属的日期才不会变成迁移当天。
+ * 全部迁移完成后再次启动不会有任何数据需要处理
+ */
+@Component
+public class CheckResultListMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckResultListMigration.class);
+
+    @Autowired
+    private CheckResultRepository checkResultRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 是否在启动时执行迁移
+    @Value("${grading.migration.list-columns.enabled:true}")
+    private boolean enabled;
+
+    // 每批迁移的记录数
+    @Value("${grading.migration.list-columns.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        Integer backfilled = new TransactionTemplate(transactionManager)
+                .execute(status -> checkResultRepository.backfillGradedAt());
+        if (backfilled != null && backfilled > 0) {
+            log.info("批改结果批改时间补齐完成，共 {} 条", backfilled);
+        }
+
+        int migrated = 0;
+        List<CheckResult> batch;
+        while (!(batch = checkResultRepository.findLegacyListColumns(PageRequest.of(0, batchSize))).isEmpty()) {
+            batch.forEach(CheckResult::migrateLegacyLists);
+            checkResultRepository.saveAll(batch);
+            migrated += batch.size();
+        }
+        if (migrated > 0) {
+            log.info("批改结果列表字段迁移完成，共 {} 条", migrated);
+        }
+    }
+}
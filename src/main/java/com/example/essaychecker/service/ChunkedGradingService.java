@@ -0,0 +1,319 @@
+package com.example.essaychecker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * 长作文分段批改服务
+ * 按段落边界把长作文切成若干片段并行批改，同时根据段落摘要做一次全文结构评估，
+ * 最后按片段顺序合并结果；耗时取决于最长的片段而不是全文长度
+ */
+@Service
+public class ChunkedGradingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedGradingService.class);
+
+    // 句末标点，超长段落在这些位置切开
+    private static final String SENTENCE_END = "。！？!?…";
+
+    // 段落摘要中每段保留的开头字数
+    private static final int OUTLINE_HEAD_LENGTH = 60;
+
+    @Autowired
+    private AIService aiService;
+
+    @Autowired
+    @Qualifier("chunkGradingExecutor")
+    private ExecutorService chunkGradingExecutor;
+
+    // 超过该字数的作文才分段批改
+    @Value("${grading.chunk.threshold:3000}")
+    private int threshold;
+
+    // 每个片段的目标字数
+    @Value("${grading.chunk.target-size:1500}")
+    private int targetSize;
+
+    // 片段数上限，超过时增大片段字数，避免单篇作文占用过多限流配额
+    @Value("${grading.chunk.max-chunks:6}")
+    private int maxChunks;
+
+    // 全文结构评分在总分中的权重
+    @Value("${grading.chunk.structure-weight:0.3}")
+    private double structureWeight;
+
+    // 合并后写作建议、词汇推荐最多保留的条数
+    @Value("${grading.chunk.max-items:20}")
+    private int maxItems;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 判断作文是否需要分段批改
+     * @param content 作文内容
+     * @return 是否超过分段阈值
+     */
+    public boolean shouldChunk(String content) {
+        return content.length() > threshold;
+    }
+
+    /**
+     * 分段批改作文
+     * @param userId 作文所属用户ID，用于按用户限流
+     * @param content 作文内容
+     * @return 合并后的JSON格式批改结果，字段与整篇批改相同
+     * @throws com.example.essaychecker.exception.RateLimitExceededException 用户的限流配额不足以在等待上限内发出全部调用时抛出
+     */
+    public String grade(Long userId, String content) {
+        List<String> paragraphs = splitParagraphs(content);
+        int chunkSize = Math.max(targetSize, (content.length() + maxChunks - 1) / maxChunks);
+        List<String> chunks = pack(paragraphs, chunkSize);
+        if (chunks.size() < 2) {
+            return aiService.analyzeEssay(userId, content);
+        }
+
+        // 结构评估与各片段同时发出；发出前整体检查限流配额，避免部分片段已消耗配额后其余片段被拒绝
+        String outline = buildOutline(paragraphs);
+        aiService.checkChunkedQuota(userId, chunks, outline);
+        CompletableFuture<String> structureFuture = submit(() -> aiService.analyzeStructure(userId, outline));
+        List<CompletableFuture<String>> chunkFutures = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+            int index = i + 1;
+            chunkFutures.add(submit(() -> aiService.analyzeChunk(userId, chunk, index, chunks.size())));
+        }
+
+        List<JsonNode> chunkResults = joinAll(chunkFutures, structureFuture);
+
+        // 结构评估失败时只按片段得分计算总分
+        JsonNode structureResult = null;
+        try {
+            structureResult = readResult(join(structureFuture));
+        } catch (RuntimeException e) {
+            log.warn("全文结构评估失败，仅按片段得分计算总分", e);
+        }
+
+        return merge(chunks, chunkResults, structureResult, "部分");
+    }
+
+    /**
+     * 按换行切分段落，超长段落再按句末标点切开
+     * @param content 作文内容
+     * @return 去掉空行后的段落
+     */
+    List<String> splitParagraphs(String content) {
+        List<String> paragraphs = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            String paragraph = line.strip();
+            while (paragraph.length() > targetSize) {
+                int cut = lastSentenceEnd(paragraph, targetSize);
+                paragraphs.add(paragraph.substring(0, cut));
+                paragraph = paragraph.substring(cut).strip();
+            }
+            if (!paragraph.isEmpty()) {
+                paragraphs.add(paragraph);
+            }
+        }
+        return paragraphs;
+    }
+
+    /**
+     * 把连续的段落依次装入片段，每个片段不超过chunkSize字（单个段落超长时独占一个片段）
+     * @param paragraphs 段落
+     * @param chunkSize 片段字数上限
+     * @return 片段
+     */
+    List<String> pack(List<String> paragraphs, int chunkSize) {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String paragraph : paragraphs) {
+            if (current.length() > 0 && current.length() + 1 + paragraph.length() > chunkSize) {
+                chunks.add(current.toString());
+                current.setLength(0);
+            }
+            if (current.length() > 0) {
+                current.append('\n');
+            }
+            current.append(paragraph);
+        }
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    // 在limit之前最后一个句末标点之后切开，找不到时在limit处硬切
+    private int lastSentenceEnd(String text, int limit) {
+        for (int i = limit - 1; i > limit / 2; i--) {
+            if (SENTENCE_END.indexOf(text.charAt(i)) >= 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    // 段落摘要：每段的篇幅和开头
+    String buildOutline(List<String> paragraphs) {
+        StringBuilder outline = new StringBuilder();
+        for (int i = 0; i < paragraphs.size(); i++) {
+            String paragraph = paragraphs.get(i);
+            outline.append("第").append(i + 1).append("段（").append(paragraph.length()).append("字）：")
+                    .append(paragraph, 0, Math.min(paragraph.length(), OUTLINE_HEAD_LENGTH));
+            if (paragraph.length() > OUTLINE_HEAD_LENGTH) {
+                outline.append("……");
+            }
+            outline.append('\n');
+        }
+        return outline.toString();
+    }
+
+    /**
+     * 按片段顺序合并批改结果
+     * 语法错误逐条标注所在部分；写作建议和词汇推荐去重后截取前maxItems条；
+     * 总分为按片段字数加权的片段得分，再与全文结构评分按structureWeight加权
+     * @param chunks 片段（或段落）内容
+     * @param chunkResults 与chunks一一对应的批改结果
+     * @param structureResult 全文结构评价（为null时只按片段得分计算总分）
+     * @param unitName 片段在标注中的称呼，如“部分”“段”
+     * @return 合并后的JSON格式批改结果
+     */
+    String merge(List<String> chunks, List<JsonNode> chunkResults, JsonNode structureResult, String unitName) {
+        Set<String> grammarErrors = new LinkedHashSet<>();
+        Set<String> suggestions = new LinkedHashSet<>();
+        Set<String> vocabulary = new LinkedHashSet<>();
+        StringBuilder fluency = new StringBuilder();
+        double weightedScore = 0;
+        long totalLength = 0;
+
+        for (int i = 0; i < chunkResults.size(); i++) {
+            JsonNode result = chunkResults.get(i);
+            String part = "第" + (i + 1) + unitName + "：";
+            for (JsonNode error : result.path("grammarErrors")) {
+                grammarErrors.add(part + error.asText());
+            }
+            for (JsonNode suggestion : result.path("writingSuggestions")) {
+                suggestions.add(suggestion.asText());
+            }
+            for (JsonNode vocab : result.path("vocabularyRecommendations")) {
+                vocabulary.add(vocab.asText());
+            }
+            if (result.hasNonNull("fluencyAnalysis")) {
+                if (fluency.length() > 0) {
+                    fluency.append('\n');
+                }
+                fluency.append(part).append(result.get("fluencyAnalysis").asText());
+            }
+            int length = chunks.get(i).length();
+            weightedScore += result.path("overallScore").asInt() * (double) length;
+            totalLength += length;
+        }
+
+        double score = weightedScore / totalLength;
+        String logicEvaluation = "全文结构评估暂不可用";
+        if (structureResult != null) {
+            logicEvaluation = structureResult.path("logicEvaluation").asText(logicEvaluation);
+            if (structureResult.has("structureScore")) {
+                score = (1 - structureWeight) * score + structureWeight * structureResult.get("structureScore").asInt();
+            }
+        }
+
+        ObjectNode merged = objectMapper.createObjectNode();
+        addAll(merged.putArray("grammarErrors"), grammarErrors, Integer.MAX_VALUE);
+        merged.put("fluencyAnalysis", fluency.toString());
+        merged.put("logicEvaluation", logicEvaluation);
+        addAll(merged.putArray("writingSuggestions"), suggestions, maxItems);
+        addAll(merged.putArray("vocabularyRecommendations"), vocabulary, maxItems);
+        merged.put("overallScore", Math.max(0, Math.min(100, (int) Math.round(score))));
+        return merged.toString();
+    }
+
+    private void addAll(ArrayNode array, Set<String> items, int limit) {
+        items.stream().limit(limit).forEach(array::add);
+    }
+
+    // 解析单次调用的结果，AI报错时抛出异常
+    JsonNode readResult(String response) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(response);
+        } catch (Exception e) {
+            throw new RuntimeException("AI返回结果解析失败", e);
+        }
+        if (node.has("error")) {
+            throw new RuntimeException("AI服务错误: " + node.path("message").asText());
+        }
+        return node;
+    }
+
+    /**
+     * 等待一组并行调用全部完成并按顺序解析结果
+     * 任一调用失败或结果无法解析时立即取消其余调用和companions（尚未开始的不再执行，已发出的结果被丢弃），
+     * 然后抛出该异常
+     * @param futures 调用
+     * @param companions 与这组调用同时发出、失败时一并取消的其他调用
+     * @return 与futures一一对应的解析结果
+     */
+    List<JsonNode> joinAll(List<CompletableFuture<String>> futures, CompletableFuture<?>... companions) {
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+        for (CompletableFuture<String> future : futures) {
+            future.whenComplete((result, error) -> {
+                if (error != null) {
+                    firstFailure.completeExceptionally(error);
+                }
+            });
+        }
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])), firstFailure)
+                    .join();
+            List<JsonNode> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<String> future : futures) {
+                results.add(readResult(future.join()));
+            }
+            return results;
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.cancel(false));
+            for (CompletableFuture<?> companion : companions) {
+                if (companion != null) {
+                    companion.cancel(false);
+                }
+            }
+            if (e instanceof CompletionException && e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    CompletableFuture<String> submit(Supplier<String> call) {
+        return CompletableFuture.supplyAsync(call, chunkGradingExecutor);
+    }
+
+    // 等待片段结果，并还原其抛出的异常
+    String join(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.essaychecker.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 熔断器
+ * 统计最近一段调用的失败率，超过阈值后打开熔断、快速失败；
+ * 打开一段时间后进入半开状态，放行少量探测调用，全部成功则关闭，任一失败则重新打开
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationMillis;
+    private final int halfOpenCalls;
+    // 时间来源（毫秒）
+    private final LongSupplier clock;
+
+    // 最近windowSize次调用的结果环形缓冲，true表示失败
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    // 半开状态剩余可放行的探测调用数和已成功的探测数
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public CircuitBreaker(double failureRateThreshold, int minimumCalls, int windowSize,
+                          long openDurationMillis, int halfOpenCalls) {
+        this(failureRateThreshold, minimumCalls, windowSize, openDurationMillis, halfOpenCalls, System::currentTimeMillis);
+    }
+
+    // 指定时间来源，供测试使用
+    CircuitBreaker(double failureRateThreshold, int minimumCalls, int windowSize,
+                   long openDurationMillis, int halfOpenCalls, LongSupplier clock) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.window = new boolean[windowSize];
+        this.openDurationMillis = openDurationMillis;
+        this.halfOpenCalls = halfOpenCalls;
+        this.clock = clock;
+    }
+
+    /**
+     * 申请一次调用许可
+     * @return 允许调用返回true，熔断中返回false
+     */
+    public boolean tryAcquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && clock.getAsLong() - openedAt >= openDurationMillis) {
+                state = State.HALF_OPEN;
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+            }
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case HALF_OPEN:
+                    if (halfOpenPermits > 0) {
+                        halfOpenPermits--;
+                        return true;
+                    }
+                    return false;
+                default:
+                    return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 记录一次成功调用
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                halfOpenSuccesses++;
+                if (halfOpenSuccesses >= halfOpenCalls) {
+                    reset();
+                }
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 记录一次失败调用
+    public void onFailure() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                open();
+            } else if (state == State.CLOSED) {
+                record(true);
+                if (windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+                    open();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还未产生结果的许可（如调用因请求本身错误失败，不代表服务状态）
+     */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                halfOpenPermits++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 熔断剩余的打开时间（毫秒），未打开时为0
+    public long remainingOpenMillis() {
+        lock.lock();
+        try {
+            if (state != State.OPEN) {
+                return 0;
+            }
+            return Math.max(0, openedAt + openDurationMillis - clock.getAsLong());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 写入滑动窗口
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.essaychecker.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.hwpf.HWPFDocument;
+import org.apache.poi.hwpf.usermodel.Range;
+import org.apache.poi.ooxml.POIXMLException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JRuntimeException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.PackageRelationshipCollection;
+import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.util.RecordFormatException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * 作文文档文字提取服务
+ * 从上传的PDF、DOCX、DOC文件中逐页/逐段提取文字：
+ * PDF的解析缓存放在临时文件中，DOCX以StAX流式读取正文XML，
+ * 提取的文字超过上限时立即停止，单个文件占用的堆内存有上界
+ */
+@Service
+public class DocumentTextExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentTextExtractor.class);
+
+    // WordprocessingML命名空间
+    private static final String WORD_NAMESPACE = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    // 单个文档允许提取的最多字数
+    @Value("${upload.max-chars:20000}")
+    private int maxChars;
+
+    // 禁用DTD和外部实体，防止XXE
+    private final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
+    /**
+     * 提取文档文字
+     * @param file 已保存到磁盘的上传文件
+     * @param filename 原始文件名，用于判断格式
+     * @return 以换行分隔段落的文字
+     * @throws RuntimeException 格式不支持、文档损坏或加密、没有文字或文字过多时抛出
+     */
+    public String extract(File file, String filename) {
+        String extension = extensionOf(filename);
+        TextCollector collector = new TextCollector(maxChars);
+        try {
+            switch (extension) {
+                case "pdf" -> extractPdf(file, collector);
+                case "docx" -> extractDocx(file, collector);
+                case "doc" -> extractDoc(file, collector);
+                default -> throw new RuntimeException("仅支持PDF、DOCX、DOC格式的文档");
+            }
+        } catch (InvalidPasswordException e) {
+            throw new RuntimeException("不支持加密的PDF文档");
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | RecordFormatException
+                 | POIXMLException | OpenXML4JRuntimeException e) {
+            // 解析库对格式错误、内容损坏的文件抛出的运行时异常，不把其英文信息返回给用户
+            log.warn("文档解析失败: {}", filename, e);
+            throw new RuntimeException("文档解析失败，请确认文件没有损坏");
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("文档解析失败: {}", filename, e);
+            throw new RuntimeException("文档解析失败，请确认文件没有损坏");
+        }
+
+        String text = collector.toString();
+        if (text.isEmpty()) {
+            throw new RuntimeException("未能从文档中提取到文字，扫描件或图片请先转换为文字");
+        }
+        return text;
+    }
+
+    // 文件扩展名（小写），没有扩展名时返回空字符串
+    public static String extensionOf(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        int dot = filename.lastIndexOf('.');
+        return dot < 0 ? "" : filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    // PDF：逐页提取，解析缓存只写临时文件；不渲染图片，扫描件不会解码页面图像
+    private void extractPdf(File file, TextCollector collector) throws Exception {
+        try (PDDocument document = Loader.loadPDF(file, IOUtils.createTempFileOnlyStreamCache())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setSortByPosition(true);
+            // 同一段落内的换行是排版折行，直接拼接；段落之间换行
+            stripper.setLineSeparator("");
+            stripper.setParagraphEnd("\n");
+
+            int pages = document.getNumberOfPages();
+            for (int page = 1; page <= pages; page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                for (String paragraph : stripper.getText(document).split("\n")) {
+                    collector.addParagraph(paragraph);
+                }
+            }
+        }
+    }
+
+    // DOCX：只读打开压缩包，以StAX逐段读取正文XML，不构建整篇文档的对象树
+    private void extractDocx(File file, TextCollector collector) throws Exception {
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+            PackageRelationshipCollection relationships =
+                    pkg.getRelationshipsByType(PackageRelationshipTypes.CORE_DOCUMENT);
+            if (relationships.size() == 0) {
+                throw new RuntimeException("文档解析失败，未找到Word正文");
+            }
+            PackagePart documentPart = pkg.getPart(relationships.getRelationship(0));
+
+            try (InputStream in = documentPart.getInputStream()) {
+                XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(in);
+                try {
+                    StringBuilder paragraph = new StringBuilder();
+                    while (reader.hasNext()) {
+                        int event = reader.next();
+                        if (event == XMLStreamConstants.START_ELEMENT && WORD_NAMESPACE.equals(reader.getNamespaceURI())) {
+                            switch (reader.getLocalName()) {
+                                case "t" -> paragraph.append(reader.getElementText());
+                                case "tab" -> paragraph.append('\t');
+                                default -> { }
+                            }
+                        } else if (event == XMLStreamConstants.END_ELEMENT && WORD_NAMESPACE.equals(reader.getNamespaceURI())
+                                && "p".equals(reader.getLocalName())) {
+                            collector.addParagraph(paragraph.toString());
+                            paragraph.setLength(0);
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+        } finally {
+            // 只读打开的包不需要保存
+            pkg.revert();
+        }
+    }
+
+    // DOC：旧版Word格式没有流式接口，正文大小受上传文件大小限制，逐段取出文字
+    private void extractDoc(File file, TextCollector collector) throws Exception {
+        try (POIFSFileSystem fileSystem = new POIFSFileSystem(file, true);
+             HWPFDocument document = new HWPFDocument(fileSystem)) {
+            Range range = document.getRange();
+            for (int i = 0; i < range.numParagraphs(); i++) {
+                collector.addParagraph(Range.stripFields(range.getParagraph(i).text()));
+            }
+        }
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * 有字数上限的段落收集器
+     * 去掉段落首尾空白和控制字符，跳过空段落；超过上限或提取线程被中断时抛出异常
+     */
+    private static class TextCollector {
+        private final int maxChars;
+        private final StringBuilder text = new StringBuilder();
+
+        TextCollector(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        void addParagraph(String paragraph) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RuntimeException("文档解析超时");
+            }
+            String cleaned = paragraph.replaceAll("[\\p{Cntrl}&&[^\t]]", "").strip();
+            if (cleaned.isEmpty()) {
+                return;
+            }
+            if (text.length() + cleaned.length() + 1 > maxChars) {
+                throw new RuntimeException("文档文字超过" + maxChars + "字，请删减后再上传");
+            }
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(cleaned);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
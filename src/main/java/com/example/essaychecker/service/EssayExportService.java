@@ -0,0 +1,308 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.EssayExportRow;
+import com.example.essaychecker.repository.EssayRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * 作文导出服务
+ * 在只读事务内流式读取作文与批改结果的联表查询，逐行写入响应输出流，支持NDJSON、CSV和XLSX三种格式；
+ * 任何时刻内存中只有当前一行（XLSX为最近一个窗口的行，其余行已写入临时文件），与导出数量无关
+ */
+@Service
+public class EssayExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(EssayExportService.class);
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_XLSX = "xlsx";
+
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {};
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // CSV和XLSX的表头
+    private static final String[] HEADERS = {
+            "作文ID", "用户ID", "用户名", "标题", "内容", "提交时间", "修改时间", "批改状态", "总分",
+            "语法错误", "流畅度分析", "逻辑评价", "写作建议", "词汇推荐", "批改时间"
+    };
+
+    // 总分所在列，XLSX中写为数值
+    private static final int SCORE_COLUMN = 8;
+
+    @Autowired
+    private EssayRepository essayRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 单次导出最多包含的用户数
+    @Value("${export.max-users:200}")
+    private int maxUsers;
+
+    // XLSX在内存中保留的行数，超出的行写入临时文件
+    @Value("${export.xlsx-window:100}")
+    private int xlsxWindow;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 校验导出参数，须在开始写响应之前调用
+     * @param userIds 要导出的用户ID
+     * @param format 导出格式
+     * @return 规范化后的导出格式
+     */
+    public String validate(List<Long> userIds, String format) {
+        if (userIds == null || userIds.isEmpty()) {
+            throw new RuntimeException("请指定要导出的用户");
+        }
+        if (userIds.size() > maxUsers) {
+            throw new RuntimeException("单次最多导出" + maxUsers + "个用户的作文");
+        }
+        String normalized = format == null ? FORMAT_NDJSON : format.toLowerCase(Locale.ROOT);
+        if (!FORMAT_NDJSON.equals(normalized) && !FORMAT_CSV.equals(normalized) && !FORMAT_XLSX.equals(normalized)) {
+            throw new RuntimeException("不支持的导出格式: " + format);
+        }
+        return normalized;
+    }
+
+    /**
+     * 导出格式对应的Content-Type
+     * @param format 规范化后的导出格式
+     * @return Content-Type
+     */
+    public String contentType(String format) {
+        return switch (format) {
+            case FORMAT_CSV -> "text/csv;charset=UTF-8";
+            case FORMAT_XLSX -> "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+            default -> "application/x-ndjson;charset=UTF-8";
+        };
+    }
+
+    /**
+     * 导出用户的作文及批改结果
+     * 导出期间占用一个数据库连接；尚未迁移到JSON列的旧批改结果，其列表字段导出为空
+     * @param userIds 要导出的用户ID
+     * @param format 规范化后的导出格式
+     * @param out 响应输出流
+     * @throws IOException 写出失败（如客户端断开）
+     */
+    public void export(List<Long> userIds, String format, OutputStream out) throws IOException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        long start = System.currentTimeMillis();
+        try {
+            Long count = transaction.execute(status -> {
+                try (Stream<EssayExportRow> rows = essayRepository.streamExportRows(userIds)) {
+                    return switch (format) {
+                        case FORMAT_CSV -> writeCsv(rows.iterator(), out);
+                        case FORMAT_XLSX -> writeXlsx(rows.iterator(), out);
+                        default -> writeNdjson(rows.iterator(), out);
+                    };
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("作文导出完成: format={}, users={}, rows={}, 耗时={}ms",
+                    format, userIds.size(), count, System.currentTimeMillis() - start);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // 每行一个JSON对象，列表字段原样输出为JSON数组
+    private long writeNdjson(Iterator<EssayExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // 行之间只用换行分隔，不再插入默认的空格
+            generator.setRootValueSeparator(null);
+            while (rows.hasNext()) {
+                EssayExportRow row = rows.next();
+                generator.writeStartObject();
+                generator.writeObjectField("essayId", row.getEssayId());
+                generator.writeObjectField("userId", row.getUserId());
+                generator.writeStringField("username", row.getUsername());
+                generator.writeStringField("title", row.getTitle());
+                generator.writeStringField("content", row.getContent());
+                generator.writeStringField("createdAt", format(row.getCreatedAt()));
+                generator.writeStringField("updatedAt", format(row.getUpdatedAt()));
+                generator.writeStringField("status", row.getStatus());
+                generator.writeObjectField("overallScore", row.getOverallScore());
+                writeJsonList(generator, "grammarErrors", row.getGrammarErrorsJson());
+                generator.writeStringField("fluencyAnalysis", row.getFluencyAnalysis());
+                generator.writeStringField("logicEvaluation", row.getLogicEvaluation());
+                writeJsonList(generator, "writingSuggestions", row.getWritingSuggestionsJson());
+                writeJsonList(generator, "vocabularyRecommendations", row.getVocabularyRecommendationsJson());
+                generator.writeStringField("gradedAt", format(row.getGradedAt()));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void writeJsonList(JsonGenerator generator, String field, String json) throws IOException {
+        generator.writeFieldName(field);
+        if (json == null) {
+            generator.writeNull();
+        } else {
+            generator.writeTree(objectMapper.readTree(json));
+        }
+    }
+
+    // 带BOM的UTF-8，Excel打开时中文不乱码；列表字段每项一行
+    private long writeCsv(Iterator<EssayExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write('\uFEFF');
+        writeCsvLine(writer, HEADERS);
+        while (rows.hasNext()) {
+            writeCsvLine(writer, cells(rows.next()));
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private void writeCsvLine(Writer writer, String[] cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvEscape(cells[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    // 按RFC 4180转义；以公式字符（含制表符、回车）开头的单元格前加单引号，避免在Excel中被当作公式执行
+    private static String csvEscape(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    // SXSSF只在内存中保留最近xlsxWindow行；超过单个工作表的行数上限时续写到新工作表
+    private long writeXlsx(Iterator<EssayExportRow> rows, OutputStream out) throws IOException {
+        int maxRows = SpreadsheetVersion.EXCEL2007.getMaxRows();
+        int maxTextLength = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(xlsxWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            long count = 0;
+            int sheetCount = 1;
+            Sheet sheet = newSheet(workbook, "作文");
+            int rowIndex = 1;
+            while (rows.hasNext()) {
+                if (rowIndex >= maxRows) {
+                    sheet = newSheet(workbook, "作文" + (++sheetCount));
+                    rowIndex = 1;
+                }
+                EssayExportRow exportRow = rows.next();
+                String[] cells = cells(exportRow);
+                Row row = sheet.createRow(rowIndex++);
+                for (int i = 0; i < cells.length; i++) {
+                    if (cells[i] == null) {
+                        continue;
+                    }
+                    if (i == SCORE_COLUMN) {
+                        row.createCell(i).setCellValue(exportRow.getOverallScore().intValue());
+                    } else {
+                        String text = cells[i];
+                        row.createCell(i).setCellValue(text.length() > maxTextLength ? text.substring(0, maxTextLength) : text);
+                    }
+                }
+                count++;
+            }
+            workbook.write(out);
+            out.flush();
+            return count;
+        } finally {
+            // 关闭时同时删除临时文件
+            workbook.close();
+        }
+    }
+
+    private Sheet newSheet(SXSSFWorkbook workbook, String name) {
+        Sheet sheet = workbook.createSheet(name);
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            header.createCell(i).setCellValue(HEADERS[i]);
+        }
+        return sheet;
+    }
+
+    // 与HEADERS对应的单元格文本，缺失值为null
+    private String[] cells(EssayExportRow row) {
+        return new String[] {
+                String.valueOf(row.getEssayId()),
+                String.valueOf(row.getUserId()),
+                row.getUsername(),
+                row.getTitle(),
+                row.getContent(),
+                format(row.getCreatedAt()),
+                format(row.getUpdatedAt()),
+                row.getStatus(),
+                row.getOverallScore() != null ? String.valueOf(row.getOverallScore()) : null,
+                joinList(row.getGrammarErrorsJson()),
+                row.getFluencyAnalysis(),
+                row.getLogicEvaluation(),
+                joinList(row.getWritingSuggestionsJson()),
+                joinList(row.getVocabularyRecommendationsJson()),
+                format(row.getGradedAt())
+        };
+    }
+
+    // JSON数组按行拼接
+    private String joinList(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return String.join("\n", objectMapper.readValue(json, STRING_LIST));
+        } catch (IOException e) {
+            return json;
+        }
+    }
+
+    private static String format(LocalDateTime time) {
+        return time != null ? time.format(TIME_FORMAT) : null;
+    }
+}
@@ -0,0 +1,627 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.ImportJobDto;
+import com.example.essaychecker.entity.Essay;
+import com.example.essaychecker.entity.ImportJob;
+import com.example.essaychecker.entity.User;
+import com.example.essaychecker.repository.EssayRepository;
+import com.example.essaychecker.repository.ImportJobRepository;
+import com.example.essaychecker.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 作文批量导入服务
+ * 接收ZIP压缩包（TXT、DOCX、DOC、PDF文件）或NDJSON文件，在导入线程池中逐个解析，
+ * 攒满一批后在一个事务内批量插入；同一时刻内存中只有当前文件和一批待写入的作文，与导入总数无关。
+ * ZIP中的作文按所在文件夹名（用户名）归属用户，NDJSON每行一篇，格式与作文导出的NDJSON相同。
+ * 任务进度保存在 import_jobs 表中，每写入一批更新一次，任意实例都能查询；上传的文件只在接收请求的节点上，
+ * 由该节点执行并定期刷新心跳，节点宕机后心跳超时的任务由其他节点标记为中断
+ */
+@Service
+public class EssayImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(EssayImportService.class);
+
+    // 任务中保留的失败明细条数
+    private static final int MAX_ERRORS = 50;
+    // 标题最大长度
+    private static final int MAX_TITLE_LENGTH = 255;
+    // 未提供标题时的默认标题
+    private static final String DEFAULT_TITLE = "导入的作文";
+    // 作文导出使用的时间格式
+    private static final DateTimeFormatter EXPORT_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // TXT文件不是合法UTF-8时按GBK解码
+    private static final Charset GBK = Charset.forName("GBK");
+    // 未结束的任务状态
+    private static final List<String> ACTIVE = List.of(ImportJobDto.PENDING, ImportJobDto.RUNNING);
+
+    @Autowired
+    private EssayRepository essayRepository;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private GradingJobService gradingJobService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EssaySearchService essaySearchService;
+
+    @Autowired
+    private DocumentTextExtractor documentTextExtractor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("importExecutor")
+    private ExecutorService importExecutor;
+
+    // 每批插入的作文数，与hibernate.jdbc.batch_size一致时每批只需一次往返
+    @Value("${import.batch-size:50}")
+    private int batchSize;
+
+    // 导入文件的大小上限
+    @Value("${import.max-file-size:200MB}")
+    private DataSize maxFileSize;
+
+    // 压缩包中的文件数上限
+    @Value("${import.max-entries:100000}")
+    private int maxEntries;
+
+    // 压缩包文件名的编码（带UTF-8标记的文件名不受此配置影响）
+    @Value("${import.zip-charset:UTF-8}")
+    private Charset zipCharset;
+
+    // 已完成任务的保留时长（毫秒），过期后清理
+    @Value("${import.job-ttl:86400000}")
+    private long jobTtl;
+
+    // 心跳超时时长（毫秒），须大于心跳间隔，超过此时长未刷新心跳的未结束任务标记为中断
+    @Value("${import.lease-duration:120000}")
+    private long leaseDuration;
+
+    // 压缩包中单个文档的大小上限，与单篇上传相同
+    @Value("${upload.max-file-size:10MB}")
+    private DataSize maxEntrySize;
+
+    // 单篇作文的最多字数，与单篇上传相同
+    @Value("${upload.max-chars:20000}")
+    private int maxChars;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 本节点排队中和执行中的任务：任务ID -> 任务进度，查询时比表中的进度更新
+    private final Map<String, ImportJobDto> jobs = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transaction;
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 提交导入任务（multipart上传，受全局multipart大小限制）
+     * @param userId 作文归属的用户ID（为null时ZIP按文件夹名、NDJSON按每行的userId或username确定）
+     * @param file 上传的ZIP或NDJSON文件
+     * @return 新建的任务（状态为PENDING）
+     * @throws RuntimeException 文件为空、过大、格式不支持、用户不存在或导入任务过多时抛出
+     */
+    public ImportJobDto submit(Long userId, MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("导入文件不能为空");
+        }
+        return submit(userId, file.getOriginalFilename(), file.getSize(), file::transferTo);
+    }
+
+    /**
+     * 提交导入任务（请求体即文件内容，不经过multipart解析，大小只受import.max-file-size限制）
+     * @param userId 作文归属的用户ID（为null时ZIP按文件夹名、NDJSON按每行的userId或username确定）
+     * @param filename 文件名，用于判断格式
+     * @param contentLength 请求声明的长度（未知时为-1）
+     * @param body 请求体
+     * @return 新建的任务（状态为PENDING）
+     * @throws RuntimeException 文件为空、过大、格式不支持、用户不存在或导入任务过多时抛出
+     */
+    public ImportJobDto submit(Long userId, String filename, long contentLength, InputStream body) {
+        return submit(userId, filename, contentLength, target -> {
+            try (OutputStream out = Files.newOutputStream(target.toPath())) {
+                copy(body, out, maxFileSize);
+            }
+        });
+    }
+
+    private ImportJobDto submit(Long userId, String filename, long size, Upload upload) {
+        if (size > maxFileSize.toBytes()) {
+            throw new RuntimeException("导入文件不能超过" + maxFileSize.toMegabytes() + "MB");
+        }
+        String extension = DocumentTextExtractor.extensionOf(filename);
+        if (!extension.equals("zip") && !extension.equals("ndjson") && !extension.equals("jsonl")) {
+            throw new RuntimeException("仅支持ZIP压缩包或NDJSON文件");
+        }
+        if (userId != null && !userRepository.existsById(userId)) {
+            throw new RuntimeException("用户不存在");
+        }
+
+        File tempFile = null;
+        try {
+            // 上传内容直接转存到临时文件，不读入内存
+            tempFile = Files.createTempFile("essay-import-", "." + extension).toFile();
+            upload.saveTo(tempFile);
+        } catch (IOException e) {
+            log.error("导入文件保存失败: {}", filename, e);
+            delete(tempFile);
+            throw new RuntimeException("文件保存失败，请重新上传");
+        } catch (RuntimeException e) {
+            delete(tempFile);
+            throw e;
+        }
+        if (tempFile.length() == 0) {
+            delete(tempFile);
+            throw new RuntimeException("导入文件不能为空");
+        }
+
+        ImportJobDto job = new ImportJobDto(UUID.randomUUID().toString(), filename);
+        File saved = tempFile;
+        try {
+            importJobRepository.save(new ImportJob(job.getJobId(), filename, ImportJobDto.PENDING,
+                    gradingJobService.getNodeId()));
+        } catch (RuntimeException e) {
+            log.error("导入任务保存失败: {}", filename, e);
+            delete(saved);
+            throw new RuntimeException("导入任务创建失败，请稍后重试");
+        }
+        jobs.put(job.getJobId(), job);
+        try {
+            importExecutor.execute(() -> runJob(job, saved, extension, userId));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            delete(saved);
+            importJobRepository.deleteById(job.getJobId());
+            throw new RuntimeException("导入任务过多，请稍后重试");
+        }
+        return job;
+    }
+
+    /**
+     * 查询任务进度
+     * 本节点执行中的任务直接返回内存中的进度，其他任务从表中读取
+     * @param jobId 任务ID
+     * @return 任务（不存在或已过期返回null）
+     */
+    public ImportJobDto getJob(String jobId) {
+        ImportJobDto local = jobs.get(jobId);
+        if (local != null) {
+            return local;
+        }
+        return importJobRepository.findById(jobId).map(this::toDto).orElse(null);
+    }
+
+    // 在导入线程中执行导入，单篇作文的失败只记入任务，不中止导入
+    private void runJob(ImportJobDto job, File file, String extension, Long userId) {
+        job.setStatus(ImportJobDto.RUNNING);
+        long start = System.currentTimeMillis();
+        BatchWriter writer = new BatchWriter(job);
+        try {
+            saveProgress(job);
+            if (extension.equals("zip")) {
+                importZip(file, userId, writer);
+            } else {
+                importNdjson(file, userId, writer);
+            }
+            writer.flush();
+            job.setStatus(ImportJobDto.SUCCESS);
+        } catch (RuntimeException e) {
+            log.warn("批量导入中止, jobId={}", job.getJobId(), e);
+            job.setError(e.getMessage());
+            job.setStatus(ImportJobDto.FAILED);
+        } catch (Exception e) {
+            log.error("批量导入中止, jobId={}", job.getJobId(), e);
+            job.setError("导入文件读取失败，请确认文件没有损坏");
+            job.setStatus(ImportJobDto.FAILED);
+        } finally {
+            delete(file);
+            job.setFinishedAt(LocalDateTime.now());
+            finish(job);
+            jobs.remove(job.getJobId());
+            log.info("批量导入结束: jobId={}, 导入={}, 失败={}, 耗时={}ms",
+                    job.getJobId(), job.getImported(), job.getFailed(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 把进度写入任务表并刷新心跳
+     * 写入失败只记日志，下一批再写
+     * @param job 任务进度
+     * @throws RuntimeException 任务已被其他节点标记为中断时抛出，中止导入
+     */
+    private void saveProgress(ImportJobDto job) {
+        Integer updated;
+        try {
+            updated = transaction.execute(status -> importJobRepository.updateProgress(job.getJobId(), ACTIVE,
+                    job.getStatus(), job.getProcessed(), job.getImported(), job.getFailed(),
+                    ImportJob.encodeErrors(List.copyOf(job.getErrors())), LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.warn("导入进度写入失败, jobId={}", job.getJobId(), e);
+            return;
+        }
+        if (updated != null && updated == 0) {
+            throw new RuntimeException("导入任务已被标记为中断");
+        }
+    }
+
+    // 写入任务的最终状态
+    private void finish(ImportJobDto job) {
+        try {
+            Integer updated = transaction.execute(status -> importJobRepository.finish(job.getJobId(), ACTIVE,
+                    job.getStatus(), job.getProcessed(), job.getImported(), job.getFailed(),
+                    ImportJob.encodeErrors(List.copyOf(job.getErrors())), job.getError(), job.getFinishedAt()));
+            if (updated != null && updated == 0) {
+                log.warn("导入任务已被其他节点标记为中断, jobId={}", job.getJobId());
+            }
+        } catch (RuntimeException e) {
+            log.error("导入任务状态写入失败, jobId={}", job.getJobId(), e);
+        }
+    }
+
+    private ImportJobDto toDto(ImportJob job) {
+        ImportJobDto dto = new ImportJobDto(job.getId(), job.getFilename());
+        dto.setStatus(job.getStatus());
+        dto.setProcessed(job.getProcessed());
+        dto.setImported(job.getImported());
+        dto.setFailed(job.getFailed());
+        List<String> errors = job.getErrors();
+        if (errors != null) {
+            dto.getErrors().addAll(errors);
+        }
+        dto.setError(job.getError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        return dto;
+    }
+
+    // ZIP：按目录顺序逐个解析，跳过文件夹和隐藏文件
+    private void importZip(File file, Long userId, BatchWriter writer) throws IOException {
+        try (ZipFile zip = new ZipFile(file, zipCharset)) {
+            if (zip.size() > maxEntries) {
+                throw new RuntimeException("压缩包中的文件不能超过" + maxEntries + "个");
+            }
+            Map<String, Optional<Long>> owners = new HashMap<>();
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || isHidden(name)) {
+                    continue;
+                }
+                Essay essay;
+                try {
+                    Long owner = userId != null ? userId : ownerOfPath(name, owners);
+                    essay = newEssay(owner, titleOf(name), readEntry(zip, entry), null);
+                } catch (RuntimeException e) {
+                    writer.fail(name, e.getMessage());
+                    continue;
+                }
+                // 写入在逐篇的异常处理之外：任务被标记为中断时中止整个导入
+                writer.add(essay);
+            }
+        }
+    }
+
+    // NDJSON：逐行解析，空行跳过
+    private void importNdjson(File file, Long userId, BatchWriter writer) throws IOException {
+        Map<String, Optional<Long>> owners = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                String source = "第" + lineNumber + "行";
+                Essay essay;
+                try {
+                    JsonNode node = objectMapper.readTree(line);
+                    Long owner = userId != null ? userId : ownerOfRecord(node, owners);
+                    essay = newEssay(owner, text(node, "title"), text(node, "content"),
+                            parseTime(text(node, "createdAt")));
+                } catch (JsonProcessingException e) {
+                    writer.fail(source, "JSON格式错误");
+                    continue;
+                } catch (RuntimeException e) {
+                    writer.fail(source, e.getMessage());
+                    continue;
+                }
+                writer.add(essay);
+            }
+        }
+    }
+
+    // 读取压缩包中一个文件的文字
+    private String readEntry(ZipFile zip, ZipEntry entry) {
+        String name = entry.getName();
+        String extension = DocumentTextExtractor.extensionOf(name);
+        if (!extension.equals("txt") && !extension.equals("pdf") && !extension.equals("docx") && !extension.equals("doc")) {
+            throw new RuntimeException("仅支持TXT、PDF、DOCX、DOC格式的文件");
+        }
+        long limit = maxEntrySize.toBytes();
+        if (entry.getSize() > limit) {
+            throw new RuntimeException("文件不能超过" + maxEntrySize.toMegabytes() + "MB");
+        }
+
+        File tempFile = null;
+        try (InputStream in = zip.getInputStream(entry)) {
+            if (extension.equals("txt")) {
+                byte[] bytes = in.readNBytes((int) Math.min(limit + 1, Integer.MAX_VALUE));
+                if (bytes.length > limit) {
+                    throw new RuntimeException("文件不能超过" + maxEntrySize.toMegabytes() + "MB");
+                }
+                return decodeText(bytes);
+            }
+            // 文档先解压到临时文件再提取，解析缓存不占用堆内存
+            tempFile = Files.createTempFile("essay-import-entry-", "." + extension).toFile();
+            try (OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+                copy(in, out, maxEntrySize);
+            }
+            return documentTextExtractor.extract(tempFile, name);
+        } catch (IOException e) {
+            throw new RuntimeException("文件解压失败");
+        } finally {
+            delete(tempFile);
+        }
+    }
+
+    // 复制不超过limit字节，超出时抛出异常（压缩包中记录的大小不可信）
+    private static void copy(InputStream in, OutputStream out, DataSize limit) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > limit.toBytes()) {
+                throw new RuntimeException("文件不能超过" + limit.toMegabytes() + "MB");
+            }
+            out.write(buffer, 0, read);
+        }
+    }
+
+    // 优先按UTF-8解码，不合法时按GBK解码（Windows记事本保存的中文文本）
+    private static String decodeText(byte[] bytes) {
+        String text;
+        try {
+            text = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            text = new String(bytes, GBK);
+        }
+        return text.startsWith("\uFEFF") ? text.substring(1) : text;
+    }
+
+    // ZIP中作文的归属用户：路径的第一级文件夹名为用户名
+    private Long ownerOfPath(String path, Map<String, Optional<Long>> owners) {
+        int slash = path.indexOf('/');
+        if (slash <= 0) {
+            throw new RuntimeException("请将作文放在以用户名命名的文件夹中，或在导入时指定用户");
+        }
+        String username = path.substring(0, slash);
+        return owners.computeIfAbsent("username:" + username,
+                        key -> userRepository.findByUsername(username).map(User::getId))
+                .orElseThrow(() -> new RuntimeException("用户不存在: " + username));
+    }
+
+    // NDJSON中作文的归属用户：优先使用userId，其次username
+    private Long ownerOfRecord(JsonNode node, Map<String, Optional<Long>> owners) {
+        JsonNode userId = node.get("userId");
+        if (userId != null && userId.canConvertToLong()) {
+            long id = userId.asLong();
+            return owners.computeIfAbsent("userId:" + id,
+                            key -> userRepository.existsById(id) ? Optional.of(id) : Optional.empty())
+                    .orElseThrow(() -> new RuntimeException("用户不存在: " + id));
+        }
+        String username = text(node, "username");
+        if (username == null || username.isBlank()) {
+            throw new RuntimeException("缺少userId或username");
+        }
+        return owners.computeIfAbsent("username:" + username,
+                        key -> userRepository.findByUsername(username).map(User::getId))
+                .orElseThrow(() -> new RuntimeException("用户不存在: " + username));
+    }
+
+    private Essay newEssay(Long userId, String title, String content, LocalDateTime createdAt) {
+        if (content == null || content.isBlank()) {
+            throw new RuntimeException("作文内容为空");
+        }
+        String text = content.strip();
+        if (text.length() > maxChars) {
+            throw new RuntimeException("作文不能超过" + maxChars + "字");
+        }
+        String essayTitle = title == null || title.isBlank() ? DEFAULT_TITLE : title.strip();
+        if (essayTitle.length() > MAX_TITLE_LENGTH) {
+            essayTitle = essayTitle.substring(0, MAX_TITLE_LENGTH);
+        }
+        Essay essay = new Essay(userId, essayTitle, text);
+        essay.setCreatedAt(createdAt);
+        return essay;
+    }
+
+    // 支持ISO格式和作文导出的时间格式，为空时使用导入时间
+    private static LocalDateTime parseTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(value, EXPORT_TIME_FORMAT);
+            } catch (DateTimeParseException ignored) {
+                throw new RuntimeException("提交时间格式错误: " + value);
+            }
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    // 去掉文件夹和扩展名的文件名作为标题
+    private static String titleOf(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    // macOS压缩时附带的__MACOSX目录和以.开头的隐藏文件
+    private static boolean isHidden(String path) {
+        return path.startsWith("__MACOSX/") || path.substring(path.lastIndexOf('/') + 1).startsWith(".");
+    }
+
+    private static void delete(File file) {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    // 刷新本节点排队中和执行中任务的心跳，单个文档解析耗时较长时任务也不会被判定为中断
+    @Scheduled(fixedDelayString = "${import.heartbeat-interval:20000}")
+    public void heartbeat() {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        try {
+            transaction.executeWithoutResult(status ->
+                    importJobRepository.heartbeat(List.copyOf(jobs.keySet()), ACTIVE, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.warn("导入任务心跳刷新失败", e);
+        }
+    }
+
+    // 定期把心跳超时的任务标记为中断，并清理已过期的完成任务
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            Integer interrupted = transaction.execute(status -> importJobRepository.failStale(ACTIVE,
+                    ImportJobDto.FAILED, "导入节点已停止，导入中断，已导入的作文保留，请核对后重新提交剩余部分",
+                    now.minus(Duration.ofMillis(leaseDuration)), now));
+            if (interrupted != null && interrupted > 0) {
+                log.warn("{}个导入任务心跳超时，已标记为中断", interrupted);
+            }
+            LocalDateTime deadline = now.minus(Duration.ofMillis(jobTtl));
+            transaction.executeWithoutResult(status -> importJobRepository.deleteFinishedBefore(deadline));
+        } catch (RuntimeException e) {
+            log.warn("过期导入任务清理失败", e);
+        }
+    }
+
+    /**
+     * 把上传内容写入临时文件
+     */
+    private interface Upload {
+        void saveTo(File target) throws IOException;
+    }
+
+    /**
+     * 攒批写入
+     * 每批在一个事务内保存，主键由分配表预先分配，提交时Hibernate把整批合并为批量INSERT；
+     * 事务结束后持久化上下文随之关闭，已写入的作文不会在内存中累积
+     */
+    private class BatchWriter {
+        private final ImportJobDto job;
+        private final List<Essay> pending = new ArrayList<>();
+
+        BatchWriter(ImportJobDto job) {
+            this.job = job;
+        }
+
+        void add(Essay essay) {
+            pending.add(essay);
+            job.setProcessed(job.getProcessed() + 1);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void fail(String source, String message) {
+            job.setProcessed(job.getProcessed() + 1);
+            job.setFailed(job.getFailed() + 1);
+            addError(source + ": " + message);
+        }
+
+        // 写入失败时整批记为失败，继续导入后续作文；每批写入后更新任务表中的进度
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                List<Essay> saved = transaction.execute(status -> essayRepository.saveAll(pending));
+                if (saved != null) {
+                    saved.forEach(essaySearchService::index);
+                    job.setImported(job.getImported() + saved.size());
+                }
+            } catch (RuntimeException e) {
+                log.warn("批量导入写入失败, jobId={}, 本批{}篇", job.getJobId(), pending.size(), e);
+                job.setFailed(job.getFailed() + pending.size());
+                addError("写入数据库失败，本批" + pending.size() + "篇未导入");
+            } finally {
+                pending.clear();
+            }
+            saveProgress(job);
+        }
+
+        private void addError(String error) {
+            if (job.getErrors().size() < MAX_ERRORS) {
+                job.getErrors().add(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.EssaySummaryDto;
+import com.example.essaychecker.dto.SearchPageDto;
+import com.example.essaychecker.entity.Essay;
+import com.example.essaychecker.repository.EssayRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.cjk.CJKAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 作文全文搜索服务
+ * 基于嵌入式Lucene，对标题和正文做中日韩二元分词建立倒排索引，索引保存在本地磁盘；
+ * 作文保存、修改、删除时增量更新索引，搜索结果按相关度排序并按用户过滤。
+ * 索引提交时在提交数据中记下同步水位（已从数据库同步到的修改时间），启动时从水位起补齐崩溃前未提交的更新，
+ * 之后定期同步，把其他实例写入的作文也加入本地索引；其他实例删除的作文在搜索结果中按数据库过滤掉
+ */
+@Service
+public class EssaySearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(EssaySearchService.class);
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_CONTENT = "content";
+    // 标题和正文的单字字段，用于单个字的搜索（二元分词字段中没有单字）
+    private static final String FIELD_TITLE_CHARS = "titleChars";
+    private static final String FIELD_CONTENT_CHARS = "contentChars";
+
+    // 提交数据中的同步水位和索引结构版本；结构版本变化或没有水位时全量重建
+    private static final String COMMIT_WATERMARK = "watermark";
+    private static final String COMMIT_SCHEMA = "schema";
+    private static final String SCHEMA_VERSION = "2";
+
+    // 标题命中的权重
+    private static final float TITLE_BOOST = 2.0f;
+
+    // 可翻到的最大结果数，避免深分页
+    private static final int MAX_RESULT_WINDOW = 1000;
+
+    @Autowired
+    private EssayRepository essayRepository;
+
+    // 索引目录
+    @Value("${search.index-dir:./data/essay-index}")
+    private String indexDir;
+
+    // 从数据库重建或同步索引时每批读取的作文数
+    @Value("${search.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+
+    // 同步时从水位再往前多取的时长（毫秒），覆盖事务提交晚于修改时间以及各实例的时钟偏差
+    @Value("${search.sync-lag:60000}")
+    private long syncLag;
+
+    private final Analyzer bigramAnalyzer = new CJKAnalyzer();
+    private final Analyzer charAnalyzer = new StandardAnalyzer(CharArraySet.EMPTY_SET);
+    // 单字字段用标准分词（汉字逐字切分），其余字段用二元分词
+    private final Analyzer analyzer = new PerFieldAnalyzerWrapper(bigramAnalyzer,
+            Map.of(FIELD_TITLE_CHARS, charAnalyzer, FIELD_CONTENT_CHARS, charAnalyzer));
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+
+    // 同步水位：修改时间早于该时刻的作文都已写入索引，为null表示需要全量重建
+    private volatile LocalDateTime watermark;
+
+    // 是否正在同步
+    private final AtomicBoolean syncing = new AtomicBoolean();
+
+    // 同步期间由index/delete直接写入的作文ID，同步不再用读到的旧内容覆盖；不在同步时为null
+    private volatile Set<Long> liveWrites;
+
+    // 保证“检查是否已直接写入”与写入索引的原子性
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // 打开索引，在后台从提交数据中的水位起补齐未提交的更新；没有水位（新索引或结构已变化）时全量重建
+    @PostConstruct
+    public void open() throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        indexWriter = new IndexWriter(FSDirectory.open(Paths.get(indexDir)), config);
+        searcherManager = new SearcherManager(indexWriter, null);
+
+        Map<String, String> commitData = new HashMap<>();
+        Iterable<Map.Entry<String, String>> liveCommitData = indexWriter.getLiveCommitData();
+        if (liveCommitData != null) {
+            liveCommitData.forEach(entry -> commitData.put(entry.getKey(), entry.getValue()));
+        }
+        watermark = readWatermark(commitData);
+        if (watermark == null && indexWriter.getDocStats().numDocs > 0) {
+            // 旧结构的索引，清空后全量重建
+            indexWriter.deleteAll();
+        }
+
+        Thread sync = new Thread(this::sync, "essay-index-sync");
+        sync.setDaemon(true);
+        sync.start();
+    }
+
+    // 关闭时提交并关闭索引
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        saveCommitData();
+        indexWriter.close();
+        analyzer.close();
+        bigramAnalyzer.close();
+        charAnalyzer.close();
+    }
+
+    /**
+     * 新增或更新作文的索引
+     * 索引失败不影响作文本身的保存，只记录错误
+     * @param essay 作文
+     */
+    public void index(Essay essay) {
+        writeLock.lock();
+        try {
+            indexWriter.updateDocument(new Term(FIELD_ID, String.valueOf(essay.getId())), toDocument(essay));
+            markLiveWrite(essay.getId());
+        } catch (IOException e) {
+            log.error("作文索引更新失败, essayId={}", essay.getId(), e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 删除作文的索引
+     * @param essayId 作文ID
+     */
+    public void delete(Long essayId) {
+        writeLock.lock();
+        try {
+            indexWriter.deleteDocuments(new Term(FIELD_ID, String.valueOf(essayId)));
+            markLiveWrite(essayId);
+        } catch (IOException e) {
+            log.error("作文索引删除失败, essayId={}", essayId, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 搜索用户的作文
+     * @param userId 用户ID
+     * @param keyword 搜索关键词，匹配标题或正文
+     * @param page 页码（从0开始）
+     * @param size 每页条数（1~50）
+     * @return 按相关度排序的作文摘要分页
+     */
+    public SearchPageDto<EssaySummaryDto> search(Long userId, String keyword, int page, int size) {
+        if (keyword == null || keyword.isBlank()) {
+            throw new RuntimeException("搜索关键词不能为空");
+        }
+        int pageSize = Math.max(1, Math.min(size, 50));
+        int pageIndex = Math.max(0, page);
+        int end = (pageIndex + 1) * pageSize;
+        if (end > MAX_RESULT_WINDOW) {
+            throw new RuntimeException("最多只能查看前" + MAX_RESULT_WINDOW + "条搜索结果");
+        }
+
+        Query query = buildQuery(userId, keyword.strip());
+        if (query == null) {
+            return new SearchPageDto<>(new ArrayList<>(), 0, pageIndex, pageSize, false);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        long total;
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, end);
+                total = topDocs.totalHits.value;
+                StoredFields storedFields = searcher.storedFields();
+                ScoreDoc[] hits = topDocs.scoreDocs;
+                for (int i = pageIndex * pageSize; i < hits.length; i++) {
+                    ids.add(Long.valueOf(storedFields.document(hits[i].doc).get(FIELD_ID)));
+                }
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            log.error("作文搜索失败", e);
+            throw new RuntimeException("搜索服务暂不可用");
+        }
+
+        // 按相关度顺序排列数据库中的摘要，索引中残留的已删除作文会被跳过
+        Map<Long, EssaySummaryDto> summaries = ids.isEmpty() ? Map.of()
+                : essayRepository.findSummariesByUserIdAndIdIn(userId, ids).stream()
+                        .collect(Collectors.toMap(EssaySummaryDto::getId, Function.identity(), (a, b) -> a));
+        List<EssaySummaryDto> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            EssaySummaryDto summary = summaries.get(id);
+            if (summary != null) {
+                items.add(summary);
+            }
+        }
+        return new SearchPageDto<>(items, total, pageIndex, pageSize, total > end);
+    }
+
+    // 定期刷新搜索视图，使新写入的索引可被搜索（近实时）
+    @Scheduled(fixedDelayString = "${search.refresh-interval:1000}")
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.warn("搜索视图刷新失败", e);
+        }
+    }
+
+    // 定期提交索引到磁盘，连同同步水位
+    @Scheduled(fixedDelayString = "${search.commit-interval:30000}")
+    public void commit() {
+        try {
+            saveCommitData();
+            if (indexWriter.hasUncommittedChanges()) {
+                indexWriter.commit();
+            }
+        } catch (IOException e) {
+            log.error("搜索索引提交失败", e);
+        }
+    }
+
+    // 定期从数据库同步水位之后修改的作文
+    @Scheduled(initialDelayString = "${search.sync-interval:30000}", fixedDelayString = "${search.sync-interval:30000}")
+    public void scheduledSync() {
+        sync();
+    }
+
+    // 关键词在标题或正文中的所有二元词都出现才算命中，标题命中加权；按用户过滤。
+    // 单个字的关键词在单字字段中查找
+    private Query buildQuery(Long userId, String keyword) {
+        boolean singleChar = keyword.codePointCount(0, keyword.length()) == 1;
+        QueryBuilder queryBuilder = new QueryBuilder(analyzer);
+        Query titleQuery = queryBuilder.createBooleanQuery(singleChar ? FIELD_TITLE_CHARS : FIELD_TITLE,
+                keyword, BooleanClause.Occur.MUST);
+        Query contentQuery = queryBuilder.createBooleanQuery(singleChar ? FIELD_CONTENT_CHARS : FIELD_CONTENT,
+                keyword, BooleanClause.Occur.MUST);
+        if (titleQuery == null && contentQuery == null) {
+            // 关键词全部是停用词或标点
+            return null;
+        }
+
+        BooleanQuery.Builder match = new BooleanQuery.Builder();
+        if (titleQuery != null) {
+            match.add(new BoostQuery(titleQuery, TITLE_BOOST), BooleanClause.Occur.SHOULD);
+        }
+        if (contentQuery != null) {
+            match.add(contentQuery, BooleanClause.Occur.SHOULD);
+        }
+        match.setMinimumNumberShouldMatch(1);
+
+        return new BooleanQuery.Builder()
+                .add(match.build(), BooleanClause.Occur.MUST)
+                .add(LongPoint.newExactQuery(FIELD_USER_ID, userId), BooleanClause.Occur.FILTER)
+                .build();
+    }
+
+    private Document toDocument(Essay essay) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, String.valueOf(essay.getId()), Field.Store.YES));
+        document.add(new LongPoint(FIELD_USER_ID, essay.getUserId()));
+        String title = essay.getTitle() != null ? essay.getTitle() : "";
+        String content = essay.getContent() != null ? essay.getContent() : "";
+        document.add(new TextField(FIELD_TITLE, title, Field.Store.NO));
+        document.add(new TextField(FIELD_CONTENT, content, Field.Store.NO));
+        document.add(new TextField(FIELD_TITLE_CHARS, title, Field.Store.NO));
+        document.add(new TextField(FIELD_CONTENT_CHARS, content, Field.Store.NO));
+        return document;
+    }
+
+    // 同步期间记录直接写入的作文
+    private void markLiveWrite(Long essayId) {
+        Set<Long> writes = liveWrites;
+        if (writes != null) {
+            writes.add(essayId);
+        }
+    }
+
+    // 把同步水位写入下次提交的提交数据；不计为索引变更，没有其他变更时不单独提交
+    private void saveCommitData() {
+        LocalDateTime mark = watermark;
+        if (mark != null) {
+            indexWriter.setLiveCommitData(Map.of(COMMIT_WATERMARK, mark.toString(),
+                    COMMIT_SCHEMA, SCHEMA_VERSION).entrySet(), false);
+        }
+    }
+
+    // 读取提交数据中的同步水位，结构版本不同或没有水位时返回null
+    private LocalDateTime readWatermark(Map<String, String> commitData) {
+        if (!SCHEMA_VERSION.equals(commitData.get(COMMIT_SCHEMA)) || commitData.get(COMMIT_WATERMARK) == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(commitData.get(COMMIT_WATERMARK));
+        } catch (DateTimeParseException e) {
+            log.warn("搜索索引同步水位无法解析: {}", commitData.get(COMMIT_WATERMARK));
+            return null;
+        }
+    }
+
+    /**
+     * 从数据库同步索引
+     * 有水位时只读取修改时间不早于（水位 - syncLag）的作文，否则全量重建；按ID游标分批读取。
+     * 同步期间被直接写入或删除的作文不再用同步读到的内容覆盖；全部写入后水位推进到本次同步开始的时刻
+     */
+    private void sync() {
+        if (!syncing.compareAndSet(false, true)) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = watermark != null ? watermark.minus(Duration.ofMillis(syncLag)) : null;
+        Set<Long> writes = ConcurrentHashMap.newKeySet();
+        liveWrites = writes;
+        try {
+            long lastId = 0;
+            long indexed = 0;
+            List<Essay> batch;
+            do {
+                batch = since == null
+                        ? essayRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, rebuildBatchSize))
+                        : essayRepository.findUpdatedSince(since, lastId, PageRequest.of(0, rebuildBatchSize));
+                for (Essay essay : batch) {
+                    writeLock.lock();
+                    try {
+                        if (!writes.contains(essay.getId())) {
+                            indexWriter.updateDocument(new Term(FIELD_ID, String.valueOf(essay.getId())), toDocument(essay));
+                        }
+                    } finally {
+                        writeLock.unlock();
+                    }
+                    lastId = essay.getId();
+                }
+                indexed += batch.size();
+            } while (batch.size() == rebuildBatchSize);
+            watermark = startedAt;
+
+            if (since == null) {
+                commit();
+                searcherManager.maybeRefresh();
+                log.info("作文搜索索引重建完成，共{}篇", indexed);
+            } else if (indexed > 0) {
+                log.debug("作文搜索索引同步{}篇", indexed);
+            }
+        } catch (Exception e) {
+            log.error("作文搜索索引同步失败", e);
+        } finally {
+            liveWrites = null;
+            syncing.set(false);
+        }
+    }
+}
@@ -1,16 +1,47 @@
 package com.example.essaychecker.service;
 
+import com.example.essaychecker.config.CacheConfig;
+import com.example.essaychecker.dto.BatchCheckItemDto;
 import com.example.essaychecker.dto.CheckResultDto;
+import com.example.essaychecker.dto.CursorPageDto;
+import com.example.essaychecker.dto.EssaySummaryDto;
+import com.example.essaychecker.dto.TextMetricsDto;
 import com.example.essaychecker.entity.CheckResult;
 import com.example.essaychecker.entity.Essay;
+import com.example.essaychecker.exception.AIResponseParseException;
 import com.example.essaychecker.repository.CheckResultRepository;
 import com.example.essaychecker.repository.EssayRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 作文核心服务类
@@ -19,6 +50,16 @@ import java.util.*;
 @Service
 public class EssayService {
 
+    private static final Logger log = LoggerFactory.getLogger(EssayService.class);
+
+    // 批改请求的结果来源，用作计数标签
+    private static final String SOURCE_EXISTING = "existing";
+    private static final String SOURCE_IN_FLIGHT = "in_flight";
+    private static final String SOURCE_PRECHECK = "precheck";
+    private static final String SOURCE_CACHE = "cache";
+    private static final String SOURCE_AI = "ai";
+    private static final String SOURCE_INCREMENTAL = "incremental";
+
     @Autowired
     private EssayRepository essayRepository;
 
@@ -28,13 +69,61 @@ public class EssayService {
     @Autowired
     private AIService aiService;
 
+    @Autowired
+    private GradingCacheService gradingCacheService;
+
+    @Autowired
+    private TextPreAnalyzer textPreAnalyzer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EssaySearchService essaySearchService;
+
+    @Autowired
+    private ChunkedGradingService chunkedGradingService;
+
+    @Autowired
+    private IncrementalGradingService incrementalGradingService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    @Qualifier("batchGradingExecutor")
+    private ExecutorService batchGradingExecutor;
+
+    // 单次批量批改的作文数上限
+    @Value("${grading.batch.max-size:100}")
+    private int batchMaxSize;
+
+    // 解析失败的结果首次自动重试前的等待时间（毫秒），之后每次失败翻倍
+    @Value("${grading.failed-retry.backoff:300000}")
+    private long failedRetryBackoff;
+
+    // 同一内容解析失败后最多自动重试的次数，用完后只有修改作文才会重新批改
+    @Value("${grading.failed-retry.max-attempts:3}")
+    private int failedRetryMaxAttempts;
+
     // 解析AI返回的JSON数据
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // 进行中的批改（作文ID -> 批改结果），同一作文的并发请求共享同一次AI调用
+    private final ConcurrentHashMap<Long, CompletableFuture<CheckResultDto>> inFlightChecks = new ConcurrentHashMap<>();
+
     // 保存作文
     public Essay saveEssay(Long userId, String title, String content) {
         Essay essay = new Essay(userId, title, content);
-        return essayRepository.save(essay);
+        essay = essayRepository.save(essay);
+        essaySearchService.index(essay);
+        return essay;
     }
 
     // 获取用户所有作文
@@ -42,13 +131,122 @@ public class EssayService {
         return essayRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
 
-    // 获取作文详情
+    /**
+     * 分页获取用户作文摘要（游标分页）
+     * 以 (createdAt, id) 为游标，翻页开销不随历史作文数量增长
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标（第一页为null）
+     * @param size 每页条数（1~50）
+     * @return 作文摘要分页
+     */
+    public CursorPageDto<EssaySummaryDto> getUserEssayPage(Long userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, 50));
+        // 多取一条用于判断是否还有下一页
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<EssaySummaryDto> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = essayRepository.findSummariesByUserId(userId, limit);
+        } else {
+            String[] position = decodeCursor(cursor);
+            rows = essayRepository.findSummariesByUserIdBefore(
+                    userId, LocalDateTime.parse(position[0]), Long.valueOf(position[1]), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<EssaySummaryDto> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            EssaySummaryDto last = items.get(items.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new CursorPageDto<>(new ArrayList<>(items), nextCursor, hasMore);
+    }
+
+    // 游标编码：createdAt|id 的URL安全Base64
+    private String encodeCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 游标解码，返回 [createdAt, id]
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] position = raw.split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            LocalDateTime.parse(position[0]);
+            Long.valueOf(position[1]);
+            return position;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+    }
+
+    // 获取作文详情，结果缓存在本地，重复查看不访问数据库
+    @Cacheable(cacheNames = CacheConfig.ESSAYS, key = "#id", unless = "#result == null")
     public Essay getEssayById(Long id) {
         return essayRepository.findById(id).orElse(null);
     }
 
-    // 批改作文
+    /**
+     * 批改作文
+     * 正常批改的结果缓存在本地，客户端反复轮询时不访问数据库；本实例修改或删除作文时清除缓存，
+     * 其他实例的修改最迟在缓存存活时间后可见
+     * @param essayId 作文ID
+     * @return 批改结果DTO
+     */
     public CheckResultDto checkEssay(Long essayId) {
+        CheckResultDto cached = cacheManager.getCache(CacheConfig.CHECK_RESULTS).get(essayId, CheckResultDto.class);
+        if (cached != null) {
+            return cached;
+        }
+        return checkEssay(essayId, null);
+    }
+
+    /**
+     * 流式批改作文
+     * 本次请求实际调用AI时，每生成完一个字段就回调listener；
+     * 结果已存在、命中缓存或等待其他请求的批改时不回调，直接返回完整结果；
+     * 作文在上次批改后被修改过时，按段落增量重新批改并覆盖原结果
+     * @param essayId 作文ID
+     * @param listener 字段回调（为null时以非流式方式调用AI）
+     * @return 批改结果DTO
+     */
+    public CheckResultDto checkEssay(Long essayId, GradingStreamListener listener) {
+        return checkEssay(essayId, listener, null);
+    }
+
+    /**
+     * 批改作文，并在保存批改结果的同一事务中执行onSaved
+     * 供持久化批改队列把任务标记为完成：onSaved抛出异常时批改结果也不保存；
+     * 结果已存在、等待其他请求的批改或由其他实例写入时不保存结果，onSaved也不会执行
+     * @param essayId 作文ID
+     * @param onSaved 与批改结果在同一事务中执行的操作
+     * @return 批改结果DTO
+     */
+    public CheckResultDto checkEssayInTransaction(Long essayId, Runnable onSaved) {
+        return checkEssay(essayId, null, onSaved);
+    }
+
+    /**
+     * 查询作文当前的批改结果，不触发批改
+     * @param essayId 作文ID
+     * @return 批改结果DTO（作文或批改结果不存在时返回null）
+     */
+    public CheckResultDto getCheckResult(Long essayId) {
+        Optional<Essay> essay = essayRepository.findById(essayId);
+        if (essay.isEmpty()) {
+            return null;
+        }
+        return checkResultRepository.findByEssayId(essayId)
+                .map(checkResult -> convertToDto(checkResult, essay.get()))
+                .orElse(null);
+    }
+
+    private CheckResultDto checkEssay(Long essayId, GradingStreamListener listener, Runnable onSaved) {
         Optional<Essay> essayOpt = essayRepository.findById(essayId);
         if (!essayOpt.isPresent()) {
             throw new RuntimeException("作文不存在");
@@ -57,85 +255,425 @@ public class EssayService {
         Essay essay = essayOpt.get();
 
         Optional<CheckResult> existingResult = checkResultRepository.findByEssayId(essayId);
-        if (existingResult.isPresent()) {
-            return convertToDto(existingResult.get(), essay);
+        if (existingResult.isPresent() && !isStale(existingResult.get(), essay)) {
+            recordCheckSource(SOURCE_EXISTING);
+            return cacheResult(essay, existingResult.get());
         }
 
-        String aiResponse = aiService.analyzeEssay(essay.getContent());
-        CheckResult checkResult = parseAIResponse(aiResponse, essayId);
+        // 已有同一作文的批改在进行中，等待其结果
+        CompletableFuture<CheckResultDto> future = new CompletableFuture<>();
+        CompletableFuture<CheckResultDto> inFlight = inFlightChecks.putIfAbsent(essayId, future);
+        if (inFlight != null) {
+            recordCheckSource(SOURCE_IN_FLIGHT);
+            return awaitInFlight(inFlight);
+        }
 
-        checkResult = checkResultRepository.save(checkResult);
-        return convertToDto(checkResult, essay);
+        try {
+            CheckResultDto result = doCheckEssay(essay, listener, onSaved);
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // 包括Error在内都要结束共享的future，否则等待同一作文的请求会一直阻塞
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightChecks.remove(essayId, future);
+        }
     }
 
-    // 解析AI返回的JSON数据
-    private CheckResult parseAIResponse(String aiResponse, Long essayId) {
-        CheckResult checkResult = new CheckResult();
-        checkResult.setEssayId(essayId);
+    /**
+     * 批量批改作文
+     * 已批改的作文通过一次查询直接返回已有结果，其余作文在批量批改线程池中并行批改
+     * @param essayIds 作文ID列表
+     * @return 与请求顺序一致（去重后）的逐项批改结果
+     */
+    public List<BatchCheckItemDto> checkEssays(List<Long> essayIds) {
+        if (essayIds == null || essayIds.isEmpty()) {
+            throw new RuntimeException("作文ID列表不能为空");
+        }
+        List<Long> ids = essayIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (ids.size() > batchMaxSize) {
+            throw new RuntimeException("单次最多批改" + batchMaxSize + "篇作文");
+        }
 
-        // 错误处理
-        try {
-            if (aiResponse.contains("\"error\"")) {
-                JsonNode errorNode = objectMapper.readTree(aiResponse);
-                String errorMsg = errorNode.get("message").asText();
-                throw new RuntimeException("AI服务错误: " + errorMsg);
+        Map<Long, Essay> essays = essayRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Essay::getId, Function.identity()));
+        Map<Long, CheckResult> existingResults = checkResultRepository.findByEssayIdIn(ids).stream()
+                .filter(result -> essays.containsKey(result.getEssayId())
+                        && !isStale(result, essays.get(result.getEssayId())))
+                .collect(Collectors.toMap(CheckResult::getEssayId, Function.identity(), (a, b) -> a));
+
+        // 先提交所有待批改的作文，再按顺序收集结果
+        Map<Long, CompletableFuture<CheckResultDto>> pending = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (essays.containsKey(id) && !existingResults.containsKey(id)) {
+                CompletableFuture<CheckResultDto> future;
+                try {
+                    future = CompletableFuture.supplyAsync(() -> checkEssay(id), batchGradingExecutor);
+                } catch (RejectedExecutionException e) {
+                    future = CompletableFuture.failedFuture(new RuntimeException("批改任务过多，请稍后重试"));
+                }
+                pending.put(id, future);
             }
+        }
 
-            JsonNode jsonNode = objectMapper.readTree(aiResponse);
-
-            // 解析语法错误
-            JsonNode grammarErrors = jsonNode.get("grammarErrors");
-            if (grammarErrors != null && grammarErrors.isArray()) {
-                List<String> errors = new ArrayList<>();
-                for (JsonNode error : grammarErrors) {
-                    errors.add(error.asText());
+        List<BatchCheckItemDto> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Essay essay = essays.get(id);
+            if (essay == null) {
+                items.add(new BatchCheckItemDto(id, BatchCheckItemDto.NOT_FOUND, null, "作文不存在"));
+            } else if (existingResults.containsKey(id)) {
+                items.add(batchItem(id, BatchCheckItemDto.ALREADY_CHECKED, convertToDto(existingResults.get(id), essay)));
+            } else {
+                try {
+                    items.add(batchItem(id, BatchCheckItemDto.CHECKED, awaitInFlight(pending.get(id))));
+                } catch (RuntimeException e) {
+                    items.add(new BatchCheckItemDto(id, BatchCheckItemDto.FAILED, null, e.getMessage()));
                 }
-                checkResult.setGrammarErrors(String.join("\u0001", errors));
             }
+        }
+        return items;
+    }
+
+    // 解析失败的占位结果按失败返回，客户端不会把它当作真实分数展示
+    private BatchCheckItemDto batchItem(Long essayId, String status, CheckResultDto result) {
+        if (CheckResult.STATUS_FAILED.equals(result.getStatus())) {
+            return new BatchCheckItemDto(essayId, BatchCheckItemDto.FAILED, null, "AI批改结果解析失败，请稍后重试");
+        }
+        return new BatchCheckItemDto(essayId, status, result, null);
+    }
+
+    // 实际执行批改，只由获得该作文批改权的请求调用
+    private CheckResultDto doCheckEssay(Essay essay, GradingStreamListener listener, Runnable onSaved) {
+        Long essayId = essay.getId();
 
-            // 解析流畅度分析
-            if (jsonNode.has("fluencyAnalysis")) {
-                checkResult.setFluencyAnalysis(jsonNode.get("fluencyAnalysis").asText());
+        // 上一轮批改可能恰好在查询后完成，再确认一次避免重复调用AI
+        Optional<CheckResult> existingResult = checkResultRepository.findByEssayId(essayId);
+        if (existingResult.isPresent() && !isStale(existingResult.get(), essay)) {
+            recordCheckSource(SOURCE_EXISTING);
+            return cacheResult(essay, existingResult.get());
+        }
+        // 已过期的上次结果：作文修改后重新批改时沿用其中未改动段落的结果，并覆盖这条记录
+        CheckResult previous = existingResult.orElse(null);
+
+        // 先在本地做预分析，空白、过短或乱码的作文直接给出结果，不调用AI
+        TextMetricsDto metrics = textPreAnalyzer.analyze(essay.getContent());
+        String rejectReason = textPreAnalyzer.rejectReason(metrics);
+        CheckResult checkResult;
+        if (rejectReason != null) {
+            recordCheckSource(SOURCE_PRECHECK);
+            checkResult = rejectedResult(essayId, rejectReason, metrics);
+        } else if (previous != null) {
+            checkResult = regradeContent(essay.getUserId(), essay.getContent(), essayId, previous, listener);
+        } else {
+            checkResult = gradeContent(essay.getUserId(), essay.getContent(), essayId, listener);
+        }
+        checkResult.setTextMetrics(writeMetrics(metrics));
+        checkResult.setContentHash(gradingCacheService.hash(essay.getContent()));
+        checkResult.setGradedAt(LocalDateTime.now());
+        if (CheckResult.STATUS_FAILED.equals(checkResult.getStatus())) {
+            // 同一内容上次也失败时累计失败次数，内容变化后重新计数
+            boolean failedBefore = previous != null && CheckResult.STATUS_FAILED.equals(previous.getStatus())
+                    && checkResult.getContentHash().equals(previous.getContentHash())
+                    && previous.getFailedAttempts() != null;
+            checkResult.setFailedAttempts(failedBefore ? previous.getFailedAttempts() + 1 : 1);
+        }
+        if (previous != null) {
+            checkResult.setId(previous.getId());
+            checkResult.setCreatedAt(previous.getCreatedAt());
+            checkResult.setRevision((previous.getRevision() != null ? previous.getRevision() : 1) + 1);
+            // 本次没有得到逐段结果（命中整篇缓存、预分析拒绝或解析失败）时保留上次的，下次修改时仍可沿用
+            if (checkResult.getParagraphResults() == null) {
+                checkResult.setParagraphResults(previous.getParagraphResults());
             }
+        }
+
+        try {
+            checkResult = saveResult(checkResult, onSaved);
+        } catch (DataIntegrityViolationException e) {
+            // 其他实例已写入该作文的批改结果（essay_id唯一约束），以已有结果为准，由该实例发布变更事件
+            checkResult = checkResultRepository.findByEssayId(essayId).orElseThrow(() -> e);
+            return convertToDto(checkResult, essay);
+        }
+        eventPublisher.publishEvent(new CheckResultChangedEvent(essay.getUserId(), essayId, checkResult.getId(),
+                CheckResultChangedEvent.ScoreSnapshot.of(previous), CheckResultChangedEvent.ScoreSnapshot.of(checkResult)));
+        return cacheResult(essay, checkResult);
+    }
+
+    /**
+     * 转换为DTO，正常批改的结果写入本地缓存
+     * 预分析拒绝和解析失败的结果不缓存；批改期间作文已被修改（修改时清除缓存在先、写入在后）时也不缓存，
+     * 这一次查询只发生在未命中缓存的路径上
+     */
+    private CheckResultDto cacheResult(Essay essay, CheckResult checkResult) {
+        CheckResultDto dto = convertToDto(checkResult, essay);
+        if (checkResult.isGraded() && essay.getUpdatedAt() != null
+                && essayRepository.findUpdatedAtById(essay.getId()).filter(essay.getUpdatedAt()::equals).isPresent()) {
+            cacheManager.getCache(CacheConfig.CHECK_RESULTS).put(essay.getId(), dto);
+        }
+        return dto;
+    }
 
-            // 解析逻辑评估
-            if (jsonNode.has("logicEvaluation")) {
-                checkResult.setLogicEvaluation(jsonNode.get("logicEvaluation").asText());
+    // 保存批改结果；onSaved不为null时与保存在同一事务中执行
+    private CheckResult saveResult(CheckResult checkResult, Runnable onSaved) {
+        if (onSaved == null) {
+            return checkResultRepository.save(checkResult);
+        }
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            CheckResult saved = checkResultRepository.save(checkResult);
+            onSaved.run();
+            return saved;
+        });
+    }
+
+    // 批改作文内容：内容相同的作文直接复用缓存中的AI结果，否则调用AI（长作文分段批改）并在解析成功后写入缓存
+    private CheckResult gradeContent(Long userId, String content, Long essayId, GradingStreamListener listener) {
+        String cachedResponse = gradingCacheService.get(content);
+        if (cachedResponse != null) {
+            recordCheckSource(SOURCE_CACHE);
+            return parseAIResponse(cachedResponse, essayId);
+        }
+        recordCheckSource(SOURCE_AI);
+
+        String aiResponse;
+        if (chunkedGradingService.shouldChunk(content)) {
+            // 长作文分段并行批改，合并后的结果一次性回调各字段
+            aiResponse = chunkedGradingService.grade(userId, content);
+            if (listener != null) {
+                new StreamingJsonFieldParser(listener, objectMapper).feed(aiResponse);
             }
+        } else if (listener != null) {
+            StreamingJsonFieldParser fieldParser = new StreamingJsonFieldParser(listener, objectMapper);
+            aiResponse = aiService.analyzeEssayStreaming(userId, content, fieldParser::feed);
+        } else {
+            aiResponse = aiService.analyzeEssay(userId, content);
+        }
+        CheckResult checkResult;
+        try {
+            checkResult = readAIResponse(aiResponse, essayId);
+        } catch (Exception e) {
+            // 失败的结果不进入缓存
+            recordParseFailure(essayId, e);
+            return failedResult(essayId);
+        }
+        gradingCacheService.put(content, aiResponse);
+        return checkResult;
+    }
 
-            // 解析写作建议
-            JsonNode writingSuggestions = jsonNode.get("writingSuggestions");
-            if (writingSuggestions != null && writingSuggestions.isArray()) {
-                List<String> suggestions = new ArrayList<>();
-                for (JsonNode suggestion : writingSuggestions) {
-                    suggestions.add(suggestion.asText());
-                }
-                checkResult.setWritingSuggestions(String.join(";", suggestions));
+    /**
+     * 重新批改修改后的作文：整篇内容命中缓存时直接复用，否则只把改动过的段落发给AI
+     * 上次没有逐段结果或未正常批改（预分析拒绝、解析失败）时没有可沿用的段落，按整篇批改；
+     * 合并出的结果只拼接了各段的批改，不写入整篇缓存，避免其他内容相同的作文复用
+     */
+    private CheckResult regradeContent(Long userId, String content, Long essayId, CheckResult previous,
+                                       GradingStreamListener listener) {
+        if (previous.getParagraphResults() == null || !previous.isGraded()) {
+            return gradeContent(userId, content, essayId, listener);
+        }
+        String cachedResponse = gradingCacheService.get(content);
+        if (cachedResponse != null) {
+            recordCheckSource(SOURCE_CACHE);
+            return parseAIResponse(cachedResponse, essayId);
+        }
+        recordCheckSource(SOURCE_INCREMENTAL);
+
+        IncrementalGradingService.Regrade regrade =
+                incrementalGradingService.regrade(userId, content, previous.getParagraphResults());
+        if (listener != null) {
+            new StreamingJsonFieldParser(listener, objectMapper).feed(regrade.aiResponse());
+        }
+        CheckResult checkResult;
+        try {
+            checkResult = readAIResponse(regrade.aiResponse(), essayId);
+        } catch (Exception e) {
+            recordParseFailure(essayId, e);
+            return failedResult(essayId);
+        }
+        checkResult.setParagraphResults(regrade.paragraphResults());
+        return checkResult;
+    }
+
+    /**
+     * 判断批改结果是否需要重新批改
+     * 记录了内容哈希的结果与当前内容比较；早期没有哈希的结果按作文是否在批改之后更新过判断；
+     * 内容未变的解析失败结果按退避时间自动重试，次数用完后不再自动重试，避免AI故障期间每次查询都重新调用
+     */
+    boolean isStale(CheckResult checkResult, Essay essay) {
+        boolean modified;
+        if (checkResult.getContentHash() != null) {
+            modified = !checkResult.getContentHash().equals(gradingCacheService.hash(essay.getContent()));
+        } else {
+            modified = essay.getUpdatedAt() != null && checkResult.getCreatedAt() != null
+                    && essay.getUpdatedAt().isAfter(checkResult.getCreatedAt());
+        }
+        if (modified) {
+            return true;
+        }
+        return CheckResult.STATUS_FAILED.equals(checkResult.getStatus()) && retryDue(checkResult, LocalDateTime.now());
+    }
+
+    // 解析失败的结果是否到了自动重试的时间：第n次失败后等待 backoff * 2^(n-1)
+    private boolean retryDue(CheckResult checkResult, LocalDateTime now) {
+        int attempts = checkResult.getFailedAttempts() != null ? checkResult.getFailedAttempts() : 1;
+        if (attempts > failedRetryMaxAttempts) {
+            return false;
+        }
+        LocalDateTime failedAt = checkResult.getGradedAt() != null ? checkResult.getGradedAt() : checkResult.getUpdatedAt();
+        if (failedAt == null) {
+            return true;
+        }
+        long wait = failedRetryBackoff << Math.min(attempts - 1, 20);
+        return !now.isBefore(failedAt.plus(Duration.ofMillis(wait)));
+    }
+
+    // 等待进行中的批改完成，并还原其抛出的异常
+    private CheckResultDto awaitInFlight(CompletableFuture<CheckResultDto> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
+            throw e;
+        }
+    }
 
-            // 解析词汇推荐
-            JsonNode vocabulary = jsonNode.get("vocabularyRecommendations");
-            if (vocabulary != null && vocabulary.isArray()) {
-                List<String> vocabList = new ArrayList<>();
-                for (JsonNode vocab : vocabulary) {
-                    vocabList.add(vocab.asText());
-                }
-                checkResult.setVocabularyRecommendations(String.join(";", vocabList));
+    // 解析AI返回的JSON数据，解析失败时返回标记为失败的批改结果
+    CheckResult parseAIResponse(String aiResponse, Long essayId) {
+        // 错误处理
+        try {
+            return readAIResponse(aiResponse, essayId);
+        } catch (Exception e) {
+            recordParseFailure(essayId, e);
+            return failedResult(essayId);
+        }
+    }
+
+    // 记录批改结果的来源：已有结果、等待进行中的批改、预分析、缓存或调用AI
+    private void recordCheckSource(String source) {
+        meterRegistry.counter("grading.check.requests", "source", source).increment();
+    }
+
+    // 按原因记录AI结果解析失败
+    private void recordParseFailure(Long essayId, Exception e) {
+        String reason = e instanceof AIResponseParseException parseException ? parseException.getReason() : "other";
+        meterRegistry.counter("grading.parse.failures", "reason", reason).increment();
+        log.warn("AI批改结果解析失败, essayId={}, reason={}", essayId, reason, e);
+    }
+
+    // 构建解析失败时的批改结果
+    private CheckResult failedResult(Long essayId) {
+        CheckResult checkResult = new CheckResult();
+        checkResult.setEssayId(essayId);
+        checkResult.setGrammarErrors(List.of("AI解析失败"));
+        checkResult.setFluencyAnalysis("AI解析失败，请重新尝试");
+        checkResult.setLogicEvaluation("AI解析失败，请重新尝试");
+        checkResult.setWritingSuggestions(List.of("AI解析失败"));
+        checkResult.setVocabularyRecommendations(List.of("AI解析失败"));
+        checkResult.setOverallScore(0);
+        checkResult.setStatus(CheckResult.STATUS_FAILED);
+        return checkResult;
+    }
+
+    // 构建预分析判定无法批改时的结果
+    private CheckResult rejectedResult(Long essayId, String reason, TextMetricsDto metrics) {
+        CheckResult checkResult = new CheckResult();
+        checkResult.setEssayId(essayId);
+        checkResult.setGrammarErrors(metrics.getIssues());
+        checkResult.setFluencyAnalysis(reason + "，无法进行批改");
+        checkResult.setLogicEvaluation(reason + "，无法进行批改");
+        checkResult.setWritingSuggestions(List.of("请完善作文内容后重新提交批改"));
+        checkResult.setVocabularyRecommendations(List.of());
+        checkResult.setOverallScore(0);
+        checkResult.setStatus(CheckResult.STATUS_REJECTED);
+        return checkResult;
+    }
+
+    // 文本指标序列化为JSON
+    private String writeMetrics(TextMetricsDto metrics) {
+        try {
+            return objectMapper.writeValueAsString(metrics);
+        } catch (Exception e) {
+            log.error("文本指标序列化失败", e);
+            return null;
+        }
+    }
+
+    // 从JSON读取文本指标，旧数据没有指标时返回null
+    private TextMetricsDto readMetrics(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, TextMetricsDto.class);
+        } catch (Exception e) {
+            log.warn("文本指标解析失败", e);
+            return null;
+        }
+    }
+
+    // 严格解析AI返回的JSON数据，AI报错或格式不正确时抛出异常
+    private CheckResult readAIResponse(String aiResponse, Long essayId) throws Exception {
+        CheckResult checkResult = new CheckResult();
+        checkResult.setEssayId(essayId);
+
+        JsonNode jsonNode;
+        try {
+            jsonNode = objectMapper.readTree(aiResponse);
+        } catch (Exception e) {
+            throw new AIResponseParseException(AIResponseParseException.INVALID_JSON, "AI返回结果不是合法的JSON", e);
+        }
+
+        if (jsonNode.has("error")) {
+            String errorMsg = jsonNode.path("message").asText();
+            String reason = "INVALID_RESPONSE".equals(jsonNode.path("error").asText())
+                    ? AIResponseParseException.INVALID_RESPONSE : AIResponseParseException.AI_ERROR;
+            throw new AIResponseParseException(reason, "AI服务错误: " + errorMsg);
+        }
+
+        // 解析语法错误
+        JsonNode grammarErrors = jsonNode.get("grammarErrors");
+        if (grammarErrors != null && grammarErrors.isArray()) {
+            List<String> errors = new ArrayList<>();
+            for (JsonNode error : grammarErrors) {
+                errors.add(error.asText());
+            }
+            checkResult.setGrammarErrors(errors);
+        }
+
+        // 解析流畅度分析
+        if (jsonNode.has("fluencyAnalysis")) {
+            checkResult.setFluencyAnalysis(jsonNode.get("fluencyAnalysis").asText());
+        }
+
+        // 解析逻辑评估
+        if (jsonNode.has("logicEvaluation")) {
+            checkResult.setLogicEvaluation(jsonNode.get("logicEvaluation").asText());
+        }
+
+        // 解析写作建议
+        JsonNode writingSuggestions = jsonNode.get("writingSuggestions");
+        if (writingSuggestions != null && writingSuggestions.isArray()) {
+            List<String> suggestions = new ArrayList<>();
+            for (JsonNode suggestion : writingSuggestions) {
+                suggestions.add(suggestion.asText());
             }
+            checkResult.setWritingSuggestions(suggestions);
+        }
 
-            // 解析总分
-            if (jsonNode.has("overallScore")) {
-                checkResult.setOverallScore(jsonNode.get("overallScore").asInt());
+        // 解析词汇推荐
+        JsonNode vocabulary = jsonNode.get("vocabularyRecommendations");
+        if (vocabulary != null && vocabulary.isArray()) {
+            List<String> vocabList = new ArrayList<>();
+            for (JsonNode vocab : vocabulary) {
+                vocabList.add(vocab.asText());
             }
+            checkResult.setVocabularyRecommendations(vocabList);
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            checkResult.setGrammarErrors("AI解析失败");
-            checkResult.setFluencyAnalysis("AI解析失败，请重新尝试");
-            checkResult.setLogicEvaluation("AI解析失败，请重新尝试");
-            checkResult.setWritingSuggestions("AI解析失败");
-            checkResult.setVocabularyRecommendations("AI解析失败");
-            checkResult.setOverallScore(0);
+        // 解析总分
+        if (jsonNode.has("overallScore")) {
+            checkResult.setOverallScore(jsonNode.get("overallScore").asInt());
         }
 
         return checkResult;
@@ -147,7 +685,7 @@ public class EssayService {
      * @param essay 关联的作文
      * @return 批改结果DTO
      */
-    private CheckResultDto convertToDto(CheckResult checkResult, Essay essay) {
+    CheckResultDto convertToDto(CheckResult checkResult, Essay essay) {
         CheckResultDto dto = new CheckResultDto();
         // 将属性复制给DTO
         dto.setId(checkResult.getId());
@@ -156,20 +694,16 @@ public class EssayService {
         dto.setFluencyAnalysis(checkResult.getFluencyAnalysis());
         dto.setLogicEvaluation(checkResult.getLogicEvaluation());
         dto.setOverallScore(checkResult.getOverallScore());
+        dto.setStatus(checkResult.getStatus() != null ? checkResult.getStatus() : CheckResult.STATUS_GRADED);
+        dto.setRevision(checkResult.getRevision());
         dto.setCreatedAt(checkResult.getCreatedAt());
+        dto.setUpdatedAt(checkResult.getUpdatedAt());
 
-        // 处理分隔符分隔的字段
-        if (checkResult.getGrammarErrors() != null) {
-            dto.setGrammarErrors(List.of(checkResult.getGrammarErrors().split("\u0001")));
-        }
-
-        if (checkResult.getWritingSuggestions() != null) {
-            dto.setWritingSuggestions(List.of(checkResult.getWritingSuggestions().split(";")));
-        }
-
-        if (checkResult.getVocabularyRecommendations() != null) {
-            dto.setVocabularyRecommendations(List.of(checkResult.getVocabularyRecommendations().split(";")));
-        }
+        // 列表字段在读取时才从JSON解码
+        dto.setGrammarErrors(checkResult.getGrammarErrors());
+        dto.setWritingSuggestions(checkResult.getWritingSuggestions());
+        dto.setVocabularyRecommendations(checkResult.getVocabularyRecommendations());
+        dto.setTextMetrics(readMetrics(checkResult.getTextMetrics()));
 
         return dto;
     }
@@ -181,13 +715,18 @@ public class EssayService {
      * @param content 新内容
      * @return 更新后的作文（未找到返回null）
      */
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfig.ESSAYS, key = "#id", unless = "#result == null"),
+            evict = @CacheEvict(cacheNames = CacheConfig.CHECK_RESULTS, key = "#id"))
     public Essay updateEssay(Long id, String title, String content) {
         Optional<Essay> essayOpt = essayRepository.findById(id);
         if (essayOpt.isPresent()) {
             Essay essay = essayOpt.get();
             essay.setTitle(title);
             essay.setContent(content);
-            return essayRepository.save(essay);
+            essay = essayRepository.save(essay);
+            essaySearchService.index(essay);
+            return essay;
         }
         return null;
     }
@@ -197,9 +736,20 @@ public class EssayService {
      * @param id 作文ID
      * @return 是否删除成功
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ESSAYS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CHECK_RESULTS, key = "#id")})
     public boolean deleteEssay(Long id) {
-        if (essayRepository.existsById(id)) {
+        Optional<Essay> essayOpt = essayRepository.findById(id);
+        if (essayOpt.isPresent()) {
             essayRepository.deleteById(id);
+            essaySearchService.delete(id);
+            // 删除批改结果，并从用户统计和分数分布中去掉这篇作文
+            checkResultRepository.findByEssayId(id).ifPresent(checkResult -> {
+                checkResultRepository.delete(checkResult);
+                eventPublisher.publishEvent(new CheckResultChangedEvent(essayOpt.get().getUserId(), id, checkResult.getId(),
+                        CheckResultChangedEvent.ScoreSnapshot.of(checkResult), null));
+            });
             return true;
         }
         return false;
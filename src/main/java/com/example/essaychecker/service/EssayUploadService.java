@@ -0,0 +1,126 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.entity.Essay;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 作文文档上传服务
+ * 上传文件先落盘，再在有界的提取线程池中提取文字，最后作为作文保存；
+ * 同时进行的提取数受线程池大小限制，全班同时上传时堆内存占用仍然有界
+ */
+@Service
+public class EssayUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(EssayUploadService.class);
+
+    @Autowired
+    private EssayService essayService;
+
+    @Autowired
+    private DocumentTextExtractor documentTextExtractor;
+
+    @Autowired
+    @Qualifier("uploadExtractionExecutor")
+    private ExecutorService uploadExtractionExecutor;
+
+    // 单个上传文档的大小上限
+    @Value("${upload.max-file-size:10MB}")
+    private DataSize maxFileSize;
+
+    // 单个文档提取文字的超时时间（毫秒）
+    @Value("${upload.timeout:30000}")
+    private long timeout;
+
+    /**
+     * 上传文档并保存为作文
+     * @param userId 用户ID
+     * @param title 作文标题（为空时使用文件名）
+     * @param file 上传的PDF、DOCX或DOC文件
+     * @return 保存后的作文
+     * @throws RuntimeException 文件为空、过大、格式不支持、提取失败或提取任务过多时抛出
+     */
+    public Essay upload(Long userId, String title, MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("上传文件不能为空");
+        }
+        if (file.getSize() > maxFileSize.toBytes()) {
+            throw new RuntimeException("文件不能超过" + maxFileSize.toMegabytes() + "MB");
+        }
+        String filename = file.getOriginalFilename();
+        String extension = DocumentTextExtractor.extensionOf(filename);
+        if (!extension.equals("pdf") && !extension.equals("docx") && !extension.equals("doc")) {
+            throw new RuntimeException("仅支持PDF、DOCX、DOC格式的文档");
+        }
+
+        File tempFile = null;
+        try {
+            // 上传内容直接转存到临时文件，不读入内存
+            tempFile = Files.createTempFile("essay-upload-", "." + extension).toFile();
+            file.transferTo(tempFile);
+
+            String content = extract(tempFile, filename);
+            String essayTitle = title != null && !title.isBlank() ? title.strip() : titleOf(filename);
+            return essayService.saveEssay(userId, essayTitle, content);
+        } catch (IOException e) {
+            log.error("上传文件保存失败: {}", filename, e);
+            throw new RuntimeException("文件保存失败，请重新上传");
+        } finally {
+            if (tempFile != null && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    // 在提取线程池中提取文字，超时则中断提取
+    private String extract(File file, String filename) {
+        Future<String> future;
+        try {
+            future = uploadExtractionExecutor.submit(() -> documentTextExtractor.extract(file, filename));
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("上传任务过多，请稍后重试");
+        }
+
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RuntimeException("文档解析超时，请精简文档后重试");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("文档解析被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("文档解析失败，请确认文件没有损坏");
+        }
+    }
+
+    // 去掉扩展名的文件名作为默认标题
+    private String titleOf(String filename) {
+        if (filename == null || filename.isBlank()) {
+            return "上传的作文";
+        }
+        String name = new File(filename).getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
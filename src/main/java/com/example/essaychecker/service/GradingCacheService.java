@@ -0,0 +1,258 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.entity.GradingCacheEntry;
+import com.example.essaychecker.repository.GradingCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 批改结果缓存服务
+ * 以规范化作文内容的哈希为键缓存AI批改结果，跨作文共享：
+ * 内存层为容量有界的LRU，数据库层（grading_cache表）持久保存；两层使用同一存活时间，
+ * 自最近一次写入起算，数据库中的过期条目定期删除
+ */
+@Service
+public class GradingCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(GradingCacheService.class);
+
+    @Autowired
+    private GradingCacheRepository gradingCacheRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 内存缓存最大条目数
+    @Value("${grading.cache.max-size:1000}")
+    private int maxSize;
+
+    // 缓存条目的存活时间（毫秒），内存层与数据库层相同
+    @Value("${grading.cache.ttl:86400000}")
+    private long ttl;
+
+    // 保护内存层的锁；用ReentrantLock而不是synchronized，虚拟线程在等锁时不会钉住载体线程
+    private final ReentrantLock memoryLock = new ReentrantLock();
+
+    // 内存层：按访问顺序排列的LRU
+    private final LinkedHashMap<String, CachedResponse> memoryCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            if (size() > maxSize) {
+                evictionCounter.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private Counter memoryHitCounter;
+    private Counter databaseHitCounter;
+    private Counter missCounter;
+    private Counter evictionCounter;
+
+    // 注册命中、未命中、淘汰计数和当前容量指标
+    @PostConstruct
+    public void registerMetrics() {
+        memoryHitCounter = Counter.builder("grading.cache.hits").tag("tier", "memory")
+                .description("批改缓存命中次数").register(meterRegistry);
+        databaseHitCounter = Counter.builder("grading.cache.hits").tag("tier", "database")
+                .description("批改缓存命中次数").register(meterRegistry);
+        missCounter = Counter.builder("grading.cache.misses")
+                .description("批改缓存未命中次数").register(meterRegistry);
+        evictionCounter = Counter.builder("grading.cache.evictions")
+                .description("内存缓存因容量或过期被淘汰的次数").register(meterRegistry);
+        Gauge.builder("grading.cache.size", this, GradingCacheService::memorySize)
+                .description("内存缓存当前条目数").register(meterRegistry);
+    }
+
+    /**
+     * 查询作文内容对应的缓存批改结果
+     * @param content 作文内容
+     * @return AI批改结果JSON（未命中返回null）
+     */
+    public String get(String content) {
+        return lookup(hash(content));
+    }
+
+    /**
+     * 查询局部内容（段落、段落摘要等）对应的缓存结果
+     * 与整篇批改结果共用缓存表，键中加入命名空间以免与相同文字的整篇作文冲突
+     * @param namespace 命名空间，如paragraph
+     * @param content 局部内容
+     * @return 缓存的AI结果JSON（未命中返回null）
+     */
+    public String get(String namespace, String content) {
+        return lookup(namespacedHash(namespace, content));
+    }
+
+    // 先查内存层，再查数据库层
+    private String lookup(String contentHash) {
+        memoryLock.lock();
+        try {
+            CachedResponse cached = memoryCache.get(contentHash);
+            if (cached != null) {
+                if (!cached.isExpired()) {
+                    memoryHitCounter.increment();
+                    return cached.aiResponse();
+                }
+                memoryCache.remove(contentHash);
+                evictionCounter.increment();
+            }
+        } finally {
+            memoryLock.unlock();
+        }
+
+        Optional<GradingCacheEntry> entry = gradingCacheRepository.findById(contentHash);
+        if (entry.isPresent()) {
+            // 数据库层的过期条目在定期清理前按未命中处理
+            long expiresAt = expiresAt(entry.get());
+            if (expiresAt > System.currentTimeMillis()) {
+                databaseHitCounter.increment();
+                putInMemory(contentHash, entry.get().getAiResponse(), expiresAt);
+                return entry.get().getAiResponse();
+            }
+        }
+
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * 缓存作文内容的批改结果，调用方需保证结果已成功解析
+     * @param content 作文内容
+     * @param aiResponse AI批改结果JSON
+     */
+    public void put(String content, String aiResponse) {
+        store(hash(content), aiResponse);
+    }
+
+    /**
+     * 缓存局部内容的AI结果，调用方需保证结果已成功解析
+     * @param namespace 命名空间，如paragraph
+     * @param content 局部内容
+     * @param aiResponse AI结果JSON
+     */
+    public void put(String namespace, String content, String aiResponse) {
+        store(namespacedHash(namespace, content), aiResponse);
+    }
+
+    // 写入内存层和数据库层；覆盖已有条目时保留其创建时间，只更新结果和写入时间
+    private void store(String contentHash, String aiResponse) {
+        putInMemory(contentHash, aiResponse, System.currentTimeMillis() + ttl);
+        try {
+            GradingCacheEntry entry = gradingCacheRepository.findById(contentHash)
+                    .orElseGet(() -> new GradingCacheEntry(contentHash, null));
+            entry.setAiResponse(aiResponse);
+            entry.setUpdatedAt(LocalDateTime.now());
+            gradingCacheRepository.save(entry);
+        } catch (DataIntegrityViolationException e) {
+            // 其他实例已写入相同内容的结果，保留已有记录即可
+        }
+    }
+
+    // 定期删除数据库层中已过期的条目
+    @Scheduled(fixedDelayString = "${grading.cache.cleanup-interval:3600000}")
+    public void evictExpired() {
+        LocalDateTime deadline = LocalDateTime.now().minus(Duration.ofMillis(ttl));
+        try {
+            Integer deleted = new TransactionTemplate(transactionManager)
+                    .execute(status -> gradingCacheRepository.deleteWrittenBefore(deadline));
+            if (deleted != null && deleted > 0) {
+                log.info("清理过期批改缓存{}条", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("过期批改缓存清理失败", e);
+        }
+    }
+
+    /**
+     * 计算作文内容的缓存键
+     * 先做NFKC规范化（全角字母数字转半角）并去掉所有空白，仅排版不同的内容得到相同的键
+     * @param content 作文内容
+     * @return SHA-256十六进制摘要
+     */
+    public String hash(String content) {
+        String normalized = Normalizer.normalize(content, Normalizer.Form.NFKC);
+        StringBuilder sb = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!Character.isWhitespace(c) && c != '　') {
+                sb.append(c);
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    // 带命名空间的缓存键，命名空间与内容之间以不会被规范化去掉的\0分隔
+    private String namespacedHash(String namespace, String content) {
+        return hash(namespace + '\0' + content);
+    }
+
+    // 数据库条目的过期时间（毫秒时间戳），没有写入时间的条目视为已过期
+    private long expiresAt(GradingCacheEntry entry) {
+        LocalDateTime writtenAt = entry.getUpdatedAt() != null ? entry.getUpdatedAt() : entry.getCreatedAt();
+        if (writtenAt == null) {
+            return 0;
+        }
+        return writtenAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + ttl;
+    }
+
+    // 写入内存层
+    private void putInMemory(String contentHash, String aiResponse, long expiresAt) {
+        memoryLock.lock();
+        try {
+            memoryCache.put(contentHash, new CachedResponse(aiResponse, expiresAt));
+        } finally {
+            memoryLock.unlock();
+        }
+    }
+
+    // 内存层当前条目数
+    private int memorySize() {
+        memoryLock.lock();
+        try {
+            return memoryCache.size();
+        } finally {
+            memoryLock.unlock();
+        }
+    }
+
+    // 内存层条目：结果与过期时间
+    private record CachedResponse(String aiResponse, long expiresAt) {
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt();
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.GradingJobDto;
+import com.example.essaychecker.entity.GradingJob;
+import com.example.essaychecker.repository.GradingJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 异步批改任务服务
+ * 任务保存在 grading_jobs 表中，应用重启不丢失；各实例定期用 SELECT ... FOR UPDATE SKIP LOCKED 领取任务，
+ * 领取后持有租约并定期续约，在批改线程池中执行。批改结果与任务完成状态在同一事务中写入，
+ * 租约已被其他节点接管时整个事务回滚，同一任务不会被两个节点重复完成
+ */
+@Service
+public class GradingJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(GradingJobService.class);
+
+    @Autowired
+    private EssayService essayService;
+
+    @Autowired
+    private GradingJobRepository gradingJobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("gradingExecutor")
+    private ExecutorService gradingExecutor;
+
+    // 已完成任务的保留时长（毫秒），过期后清理
+    @Value("${grading.async.job-ttl:3600000}")
+    private long jobTtl;
+
+    // 本节点是否领取任务，关闭后只接收任务，由其他节点执行
+    @Value("${grading.queue.worker-enabled:true}")
+    private boolean workerEnabled;
+
+    // 节点标识，为空时使用进程号@主机名加随机后缀
+    @Value("${grading.queue.node-id:}")
+    private String configuredNodeId;
+
+    // 本节点同时执行的任务数上限，默认与批改线程数相同
+    @Value("${grading.queue.max-concurrent:${grading.async.pool-size:8}}")
+    private int maxConcurrent;
+
+    // 租约时长（毫秒），须大于续约间隔，节点宕机后任务最迟在此时长后被其他节点领取
+    @Value("${grading.queue.lease-duration:120000}")
+    private long leaseDuration;
+
+    // 同一任务最多领取的次数，超过后标记为失败
+    @Value("${grading.queue.max-attempts:3}")
+    private int maxAttempts;
+
+    private String nodeId;
+
+    private TransactionTemplate transaction;
+
+    // 本节点正在执行的任务ID
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean stopped;
+
+    @PostConstruct
+    public void init() {
+        nodeId = configuredNodeId != null && !configuredNodeId.isBlank()
+                ? configuredNodeId
+                : ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        transaction = new TransactionTemplate(transactionManager);
+        meterRegistry.gauge("grading.queue.running", running, Set::size);
+        log.info("批改任务队列节点: {}, 领取任务: {}", nodeId, workerEnabled);
+    }
+
+    /**
+     * 本节点的标识
+     * @return 节点标识
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // 停止领取新任务；已领取的任务若未完成，租约到期后由其他节点重新领取
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * 提交批改任务
+     * 同一作文已有未完成的任务时返回该任务，不重复排队
+     * @param essayId 要批改的作文ID
+     * @return 任务（新建的任务状态为PENDING）
+     */
+    public GradingJobDto submit(Long essayId) {
+        if (essayService.getEssayById(essayId) == null) {
+            throw new RuntimeException("作文不存在");
+        }
+
+        GradingJob active = gradingJobRepository.findByActiveEssayId(essayId).orElse(null);
+        if (active != null) {
+            return toDto(active);
+        }
+        try {
+            GradingJob job = gradingJobRepository.save(
+                    new GradingJob(UUID.randomUUID().toString(), essayId, GradingJobDto.PENDING));
+            return toDto(job);
+        } catch (DataIntegrityViolationException e) {
+            // 其他请求同时为该作文建了任务
+            return gradingJobRepository.findByActiveEssayId(essayId).map(this::toDto).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * 查询任务状态
+     * @param jobId 任务ID
+     * @return 任务（不存在或已过期返回null），成功时携带批改结果
+     */
+    public GradingJobDto getJob(String jobId) {
+        GradingJob job = gradingJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return null;
+        }
+        GradingJobDto dto = toDto(job);
+        if (GradingJobDto.SUCCESS.equals(job.getStatus())) {
+            dto.setResult(essayService.getCheckResult(job.getEssayId()));
+        }
+        return dto;
+    }
+
+    // 按本节点的空闲执行位领取任务
+    @Scheduled(fixedDelayString = "${grading.queue.poll-interval:1000}")
+    public void poll() {
+        if (!workerEnabled || stopped) {
+            return;
+        }
+        int free = maxConcurrent - running.size();
+        if (free <= 0) {
+            return;
+        }
+
+        List<GradingJob> claimed;
+        try {
+            claimed = claim(free);
+        } catch (RuntimeException e) {
+            log.warn("批改任务领取失败", e);
+            return;
+        }
+        for (GradingJob job : claimed) {
+            running.add(job.getId());
+            try {
+                gradingExecutor.execute(() -> runJob(job.getId(), job.getEssayId()));
+            } catch (RejectedExecutionException e) {
+                // 批改线程池已满，放回队列由下一轮或其他节点领取
+                running.remove(job.getId());
+                release(job.getId());
+            }
+        }
+    }
+
+    // 为本节点执行中的任务续约
+    @Scheduled(fixedDelayString = "${grading.queue.heartbeat-interval:20000}")
+    public void heartbeat() {
+        if (running.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            transaction.executeWithoutResult(status -> gradingJobRepository.renewLeases(List.copyOf(running), nodeId,
+                    GradingJobDto.RUNNING, now, now.plus(Duration.ofMillis(leaseDuration))));
+        } catch (RuntimeException e) {
+            log.warn("批改任务续约失败", e);
+        }
+    }
+
+    // 定期清理已过期的完成任务
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredJobs() {
+        LocalDateTime deadline = LocalDateTime.now().minus(Duration.ofMillis(jobTtl));
+        try {
+            transaction.executeWithoutResult(status -> gradingJobRepository.deleteFinishedBefore(deadline));
+        } catch (RuntimeException e) {
+            log.warn("过期批改任务清理失败", e);
+        }
+    }
+
+    // 领取任务：锁定可领取的任务并写入本节点的租约，提交后其他节点不会再选中这些任务
+    private List<GradingJob> claim(int limit) {
+        return transaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<GradingJob> claimed = new ArrayList<>();
+            for (GradingJob job : gradingJobRepository.findClaimable(GradingJobDto.PENDING, GradingJobDto.RUNNING,
+                    now, PageRequest.of(0, limit))) {
+                if (job.getAttempts() >= maxAttempts) {
+                    // 多次领取后仍未完成（执行的节点都在批改中宕机），不再重试
+                    job.setStatus(GradingJobDto.FAILED);
+                    job.setError("批改多次中断，请重新提交");
+                    job.setFinishedAt(now);
+                    job.setLeaseOwner(null);
+                    job.setLeaseExpiresAt(null);
+                    job.setActiveEssayId(null);
+                    continue;
+                }
+                if (job.getLeaseOwner() != null) {
+                    log.warn("批改任务租约已到期，重新领取: jobId={}, 原节点={}", job.getId(), job.getLeaseOwner());
+                }
+                job.setStatus(GradingJobDto.RUNNING);
+                job.setLeaseOwner(nodeId);
+                job.setLeaseExpiresAt(now.plus(Duration.ofMillis(leaseDuration)));
+                job.setHeartbeatAt(now);
+                job.setAttempts(job.getAttempts() + 1);
+                if (job.getStartedAt() == null) {
+                    job.setStartedAt(now);
+                }
+                claimed.add(job);
+            }
+            return claimed;
+        });
+    }
+
+    // 在工作线程中执行批改；批改结果写入时在同一事务中完成任务
+    private void runJob(String jobId, Long essayId) {
+        AtomicBoolean completed = new AtomicBoolean();
+        try {
+            essayService.checkEssayInTransaction(essayId, () -> {
+                complete(jobId, GradingJobDto.SUCCESS, null);
+                completed.set(true);
+            });
+            // 已有结果或结果由其他请求写入时没有保存操作，单独完成任务
+            if (!completed.get()) {
+                transaction.executeWithoutResult(status -> complete(jobId, GradingJobDto.SUCCESS, null));
+            }
+        } catch (LeaseLostException e) {
+            log.warn("批改任务租约已被其他节点接管，放弃本次结果: jobId={}", jobId);
+        } catch (Exception e) {
+            try {
+                transaction.executeWithoutResult(status -> complete(jobId, GradingJobDto.FAILED, e.getMessage()));
+            } catch (LeaseLostException lost) {
+                log.warn("批改任务租约已被其他节点接管: jobId={}", jobId);
+            }
+        } finally {
+            running.remove(jobId);
+        }
+    }
+
+    // 结束任务，须在事务内调用；本节点已不持有租约时抛出LeaseLostException使事务回滚
+    private void complete(String jobId, String status, String error) {
+        int updated = gradingJobRepository.complete(jobId, nodeId, GradingJobDto.RUNNING, status, error,
+                LocalDateTime.now());
+        if (updated == 0) {
+            throw new LeaseLostException();
+        }
+    }
+
+    private void release(String jobId) {
+        try {
+            transaction.executeWithoutResult(status -> gradingJobRepository.release(jobId, nodeId,
+                    GradingJobDto.RUNNING, GradingJobDto.PENDING));
+        } catch (RuntimeException e) {
+            log.warn("批改任务放回队列失败，租约到期后重新领取: jobId={}", jobId, e);
+        }
+    }
+
+    private GradingJobDto toDto(GradingJob job) {
+        GradingJobDto dto = new GradingJobDto(job.getId(), job.getEssayId());
+        dto.setStatus(job.getStatus());
+        dto.setError(job.getError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        return dto;
+    }
+
+    /**
+     * 本节点已不持有任务的租约（租约到期后被其他节点领取）
+     */
+    private static class LeaseLostException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        LeaseLostException() {
+            super("批改任务租约已失效");
+        }
+    }
+}
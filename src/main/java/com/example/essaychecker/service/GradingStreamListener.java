@@ -0,0 +1,26 @@
+package com.example.essaychecker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 流式批改监听器
+ * AI逐步生成批改结果时，每当一个字段或数组元素完整闭合即回调
+ */
+public interface GradingStreamListener {
+
+    /**
+     * 顶层字段已完整生成
+     * @param field 字段名，如 fluencyAnalysis、overallScore
+     * @param value 字段值（数组字段为完整数组）
+     */
+    void onField(String field, JsonNode value);
+
+    /**
+     * 数组字段中的一个元素已完整生成
+     * @param field 数组字段名，如 grammarErrors
+     * @param index 元素下标
+     * @param value 元素值
+     */
+    default void onArrayItem(String field, int index, JsonNode value) {
+    }
+}
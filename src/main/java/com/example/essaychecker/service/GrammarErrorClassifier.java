@@ -0,0 +1,52 @@
+package com.example.essaychecker.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 语法错误归类
+ * AI给出的语法错误是自由文本，按关键词归入固定的几个类别，类别数有限，统计时可以精确计数
+ */
+final class GrammarErrorClassifier {
+
+    // 未命中任何关键词时的类别
+    static final String OTHER = "其他";
+
+    // 类别 -> 关键词，按顺序匹配，先命中的类别优先
+    private static final Map<String, List<String>> RULES = new LinkedHashMap<>();
+
+    static {
+        RULES.put("标点符号", List.of("标点", "逗号", "句号", "顿号", "引号", "问号", "感叹号", "冒号", "分号"));
+        RULES.put("错别字", List.of("错别字", "错字", "别字", "写错", "笔误"));
+        RULES.put("的地得误用", List.of("的地得", "“的”", "“地”", "“得”"));
+        RULES.put("搭配不当", List.of("搭配"));
+        RULES.put("成分残缺", List.of("残缺", "缺少主语", "缺少宾语", "缺主语", "缺宾语", "成分缺失"));
+        RULES.put("语序不当", List.of("语序", "词序", "顺序不当"));
+        RULES.put("句式杂糅", List.of("杂糅"));
+        RULES.put("重复赘余", List.of("重复", "多余", "赘余", "累赘", "啰嗦"));
+        RULES.put("用词不当", List.of("用词", "词语使用", "词性", "不恰当", "不当"));
+    }
+
+    private GrammarErrorClassifier() {
+    }
+
+    /**
+     * 判断一条语法错误描述的类别
+     * @param error 语法错误描述
+     * @return 错误类别
+     */
+    static String classify(String error) {
+        if (error == null) {
+            return OTHER;
+        }
+        for (Map.Entry<String, List<String>> rule : RULES.entrySet()) {
+            for (String keyword : rule.getValue()) {
+                if (error.contains(keyword)) {
+                    return rule.getKey();
+                }
+            }
+        }
+        return OTHER;
+    }
+}
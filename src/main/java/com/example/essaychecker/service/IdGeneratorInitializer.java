@@ -0,0 +1,47 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.entity.IdGenerators;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 主键分配表初始化
+ * 作文和批改结果原先使用自增主键，改为由 id_generators 表分配后，启动时把分配起点推到现有最大ID之后，
+ * 避免与已有数据冲突；只会调大不会调小，多实例同时启动或重复启动都不受影响
+ */
+@Component
+@DependsOn("entityManagerFactory")  // Hibernate建好 id_generators 表之后再执行
+public class IdGeneratorInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorInitializer.class);
+
+    // 生成器名称 -> 使用该生成器的表
+    private static final Map<String, String> GENERATORS = Map.of(
+            "essays", "essays",
+            "check_results", "check_results");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        GENERATORS.forEach((name, table) -> {
+            Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+            // 分配器每次取出值V后使用 V-ALLOCATION_SIZE+1 ~ V 这一段ID，所以起点须比最大ID大一个分配段
+            long floor = (maxId != null ? maxId : 0) + IdGenerators.ALLOCATION_SIZE;
+            jdbcTemplate.update("insert into " + IdGenerators.TABLE
+                            + " (" + IdGenerators.NAME_COLUMN + ", " + IdGenerators.VALUE_COLUMN + ") values (?, ?)"
+                            + " on duplicate key update " + IdGenerators.VALUE_COLUMN
+                            + " = greatest(" + IdGenerators.VALUE_COLUMN + ", ?)",
+                    name, floor, floor);
+            log.info("主键分配起点已确认: {} >= {}", name, floor);
+        });
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.essaychecker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 修改后作文的增量批改服务
+ * 按段落与上次批改的版本比对：内容未变的段落直接沿用上次的逐段结果，其次查段落缓存，
+ * 只有真正改动过的段落才发给AI；全文结构按新的段落摘要重新评价，最后按段落顺序合并
+ */
+@Service
+public class IncrementalGradingService {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalGradingService.class);
+
+    // 段落批改结果和结构评价在批改缓存中的命名空间
+    private static final String PARAGRAPH_NAMESPACE = "paragraph";
+    private static final String STRUCTURE_NAMESPACE = "structure";
+
+    @Autowired
+    private AIService aiService;
+
+    @Autowired
+    private ChunkedGradingService chunkedGradingService;
+
+    @Autowired
+    private GradingCacheService gradingCacheService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 一次调用最多批改的段落数
+    @Value("${grading.incremental.batch-size:8}")
+    private int batchSize;
+
+    // 一次调用批改的段落总字数上限
+    @Value("${grading.incremental.batch-chars:1500}")
+    private int batchChars;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 增量批改修改后的作文
+     * @param userId 作文所属用户ID，用于按用户限流
+     * @param content 修改后的作文内容
+     * @param previousParagraphResults 上次批改保存的逐段结果（JSON，可为null）
+     * @return 合并后的批改结果和本次的逐段结果
+     */
+    public Regrade regrade(Long userId, String content, String previousParagraphResults) {
+        List<String> paragraphs = chunkedGradingService.splitParagraphs(content);
+        if (paragraphs.isEmpty()) {
+            throw new RuntimeException("作文内容为空");
+        }
+        Map<String, JsonNode> previous = readParagraphResults(previousParagraphResults);
+
+        // 先沿用上次的结果和段落缓存，剩下的段落才需要调用AI
+        String[] hashes = new String[paragraphs.size()];
+        JsonNode[] results = new JsonNode[paragraphs.size()];
+        List<Integer> changed = new ArrayList<>();
+        int reused = 0;
+        int cached = 0;
+        for (int i = 0; i < paragraphs.size(); i++) {
+            hashes[i] = gradingCacheService.hash(paragraphs.get(i));
+            results[i] = previous.get(hashes[i]);
+            if (results[i] != null) {
+                reused++;
+                continue;
+            }
+            String cachedResult = gradingCacheService.get(PARAGRAPH_NAMESPACE, paragraphs.get(i));
+            if (cachedResult != null) {
+                results[i] = chunkedGradingService.readResult(cachedResult);
+                cached++;
+            } else {
+                changed.add(i);
+            }
+        }
+
+        // 结构评价与改动段落的批改同时发出；段落摘要未变时直接用缓存
+        String outline = chunkedGradingService.buildOutline(paragraphs);
+        String cachedStructure = gradingCacheService.get(STRUCTURE_NAMESPACE, outline);
+        CompletableFuture<String> structureFuture = cachedStructure != null
+                ? CompletableFuture.completedFuture(cachedStructure)
+                : chunkedGradingService.submit(() -> aiService.analyzeStructure(userId, outline));
+
+        List<List<Integer>> batches = batch(changed, paragraphs);
+        List<CompletableFuture<String>> batchFutures = new ArrayList<>(batches.size());
+        for (List<Integer> batch : batches) {
+            List<String> texts = batch.stream().map(paragraphs::get).toList();
+            batchFutures.add(chunkedGradingService.submit(() -> aiService.analyzeParagraphs(userId, texts)));
+        }
+
+        List<JsonNode> batchResults = chunkedGradingService.joinAll(batchFutures, structureFuture);
+        for (int b = 0; b < batches.size(); b++) {
+            List<Integer> batch = batches.get(b);
+            JsonNode items = batchResults.get(b).path("paragraphs");
+            if (!items.isArray() || items.size() != batch.size()) {
+                throw new RuntimeException("AI返回的段落数与请求不一致");
+            }
+            for (int j = 0; j < batch.size(); j++) {
+                int index = batch.get(j);
+                results[index] = items.get(j);
+                gradingCacheService.put(PARAGRAPH_NAMESPACE, paragraphs.get(index), items.get(j).toString());
+            }
+        }
+
+        // 结构评价失败时只按段落得分计算总分
+        JsonNode structureResult = null;
+        try {
+            String structure = chunkedGradingService.join(structureFuture);
+            structureResult = chunkedGradingService.readResult(structure);
+            if (cachedStructure == null) {
+                gradingCacheService.put(STRUCTURE_NAMESPACE, outline, structure);
+            }
+        } catch (RuntimeException e) {
+            log.warn("全文结构评估失败，仅按段落得分计算总分", e);
+        }
+
+        recordParagraphs("previous", reused);
+        recordParagraphs("cache", cached);
+        recordParagraphs("ai", changed.size());
+        log.info("增量批改：共{}段，沿用{}段，命中缓存{}段，重新批改{}段",
+                paragraphs.size(), reused, cached, changed.size());
+
+        String merged = chunkedGradingService.merge(paragraphs, Arrays.asList(results), structureResult, "段");
+        return new Regrade(merged, writeParagraphResults(hashes, results), reused + cached, changed.size());
+    }
+
+    // 把改动过的段落按段数和字数上限分批，每批一次AI调用
+    private List<List<Integer>> batch(List<Integer> changed, List<String> paragraphs) {
+        List<List<Integer>> batches = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        int chars = 0;
+        for (Integer index : changed) {
+            int length = paragraphs.get(index).length();
+            if (!current.isEmpty() && (current.size() >= batchSize || chars + length > batchChars)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                chars = 0;
+            }
+            current.add(index);
+            chars += length;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    // 逐段结果：[{"hash": 段落哈希, "result": 该段批改结果}]，无法解析时视为没有可沿用的结果
+    private Map<String, JsonNode> readParagraphResults(String json) {
+        Map<String, JsonNode> results = new HashMap<>();
+        if (json == null) {
+            return results;
+        }
+        try {
+            for (JsonNode item : objectMapper.readTree(json)) {
+                results.put(item.path("hash").asText(), item.path("result"));
+            }
+        } catch (Exception e) {
+            log.warn("上次批改的逐段结果无法解析，全部段落重新批改", e);
+            results.clear();
+        }
+        return results;
+    }
+
+    private String writeParagraphResults(String[] hashes, JsonNode[] results) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (int i = 0; i < hashes.length; i++) {
+            array.addObject().put("hash", hashes[i]).set("result", results[i]);
+        }
+        return array.toString();
+    }
+
+    private void recordParagraphs(String source, int count) {
+        meterRegistry.counter("grading.incremental.paragraphs", "source", source).increment(count);
+    }
+
+    /**
+     * 增量批改结果
+     * @param aiResponse 合并后的JSON格式批改结果，字段与整篇批改相同
+     * @param paragraphResults 本次的逐段结果（JSON），供下次修改后比对
+     * @param reusedParagraphs 沿用上次结果或命中缓存的段落数
+     * @param gradedParagraphs 重新调用AI批改的段落数
+     */
+    public record Regrade(String aiResponse, String paragraphResults, int reusedParagraphs, int gradedParagraphs) {
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.ScoreDistributionDto;
+import com.example.essaychecker.entity.CheckResult;
+import com.example.essaychecker.entity.ScoreHistogramSnapshot;
+import com.example.essaychecker.repository.CheckResultRepository;
+import com.example.essaychecker.repository.ScoreHistogramSnapshotRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 全站分数分布服务
+ * 总分只有0~100共101个取值，按天各维护一个101格的计数直方图（另有一个全部时间的直方图），
+ * 相当于零误差、可直接相加合并的分位数摘要：查询全部时间只需扫描101格，查询最近N天再加上N天的合并。
+ * 批改结果变更时增量更新，定期把有变化的天写入快照表；启动时先加载快照，再在后台从批改结果表重建，
+ * 之后按固定间隔重建一次，把其他实例写入的结果同步进来
+ */
+@Service
+public class ScoreDistributionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScoreDistributionService.class);
+
+    // 最高分，直方图共MAX_SCORE+1格
+    private static final int MAX_SCORE = 100;
+
+    @Autowired
+    private CheckResultRepository checkResultRepository;
+
+    @Autowired
+    private ScoreHistogramSnapshotRepository scoreHistogramSnapshotRepository;
+
+    // 从批改结果表重建时每批读取的记录数
+    @Value("${scores.distribution.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    // 查询允许的最大天数
+    @Value("${scores.distribution.max-days:365}")
+    private int maxDays;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 当前的直方图，重建完成后整体替换
+    private volatile Histograms histograms = new Histograms();
+
+    // 自上次快照以来有变化的日期
+    private final Set<LocalDate> dirtyDays = ConcurrentHashMap.newKeySet();
+
+    // 是否正在重建
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // 保护直方图的替换：增量更新与替换互斥，替换前收到的变更不会丢失
+    private final Object swapLock = new Object();
+
+    // 重建已读取到的最大批改结果ID，未在重建时为-1
+    private volatile long rebuildCursor = -1;
+
+    // 重建期间收到、且对应记录已被扫描读过的变更，替换前重放到重建出的直方图上
+    private final List<Delta> pendingDeltas = new ArrayList<>();
+
+    // 加载快照后立即可以查询，再在后台从批改结果表重建
+    @PostConstruct
+    public void start() {
+        Histograms loaded = new Histograms();
+        for (ScoreHistogramSnapshot snapshot : scoreHistogramSnapshotRepository.findAll()) {
+            try {
+                long[] counts = objectMapper.readValue(snapshot.getCounts(), long[].class);
+                for (int score = 0; score <= MAX_SCORE && score < counts.length; score++) {
+                    loaded.add(snapshot.getDay(), score, counts[score]);
+                }
+            } catch (Exception e) {
+                log.warn("分数分布快照无法解析, day={}", snapshot.getDay(), e);
+            }
+        }
+        histograms = loaded;
+
+        Thread rebuild = new Thread(this::rebuild, "score-distribution-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    /**
+     * 查询分数分布
+     * @param score 要查询排名的分数（为null时只返回分布）
+     * @param days 统计最近多少天（为null时统计全部）
+     * @param bucketWidth 分数段宽度
+     * @return 百分位排名与分数段分布
+     */
+    public ScoreDistributionDto getDistribution(Integer score, Integer days, int bucketWidth) {
+        if (score != null && (score < 0 || score > MAX_SCORE)) {
+            throw new RuntimeException("分数应在0~" + MAX_SCORE + "之间");
+        }
+        if (days != null && (days < 1 || days > maxDays)) {
+            throw new RuntimeException("统计天数应在1~" + maxDays + "之间");
+        }
+        if (bucketWidth < 1 || bucketWidth > MAX_SCORE) {
+            throw new RuntimeException("分数段宽度应在1~" + MAX_SCORE + "之间");
+        }
+
+        long[] counts = days != null ? histograms.window(LocalDate.now(), days) : histograms.allTime();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+
+        ScoreDistributionDto dto = new ScoreDistributionDto();
+        dto.setScore(score);
+        dto.setDays(days);
+        dto.setTotal(total);
+        if (score != null) {
+            long below = 0;
+            for (int i = 0; i < score; i++) {
+                below += counts[i];
+            }
+            dto.setBelow(below);
+            dto.setEqual(counts[score]);
+            dto.setPercentileRank(total > 0 ? 100.0 * (below + counts[score] / 2.0) / total : null);
+        }
+        dto.setBuckets(buckets(counts, bucketWidth));
+        return dto;
+    }
+
+    /**
+     * 批改结果变更时增量更新分布
+     * 重建期间，扫描已越过的记录上的变更不会反映在重建结果中，另外记下来在替换前重放；
+     * 扫描尚未到达的记录会以变更后的状态被读到，无需重放
+     * @param event 批改结果变更事件
+     */
+    @EventListener
+    public void onCheckResultChanged(CheckResultChangedEvent event) {
+        synchronized (swapLock) {
+            long cursor = rebuildCursor;
+            boolean replay = cursor >= 0 && (event.checkResultId() == null || event.checkResultId() <= cursor);
+            if (event.previous() != null) {
+                apply(event.previous().gradedAt().toLocalDate(), event.previous().score(), -1, replay);
+            }
+            if (event.current() != null) {
+                apply(event.current().gradedAt().toLocalDate(), event.current().score(), 1, replay);
+            }
+        }
+    }
+
+    // 更新当前直方图，须持有swapLock
+    private void apply(LocalDate day, int score, long delta, boolean replay) {
+        histograms.add(day, score, delta);
+        dirtyDays.add(day);
+        if (replay) {
+            pendingDeltas.add(new Delta(day, score, delta));
+        }
+    }
+
+    // 把有变化的天写入快照表，当天已清零时删除快照
+    @Scheduled(fixedDelayString = "${scores.distribution.snapshot-interval:60000}")
+    public void snapshot() {
+        if (dirtyDays.isEmpty()) {
+            return;
+        }
+        Histograms current = histograms;
+        List<ScoreHistogramSnapshot> snapshots = new ArrayList<>();
+        for (LocalDate day : new ArrayList<>(dirtyDays)) {
+            dirtyDays.remove(day);
+            long[] counts = current.day(day);
+            try {
+                if (counts == null) {
+                    scoreHistogramSnapshotRepository.deleteById(day);
+                } else {
+                    snapshots.add(new ScoreHistogramSnapshot(day, objectMapper.writeValueAsString(counts)));
+                }
+            } catch (Exception e) {
+                dirtyDays.add(day);
+                log.warn("分数分布快照写入失败, day={}", day, e);
+            }
+        }
+        try {
+            scoreHistogramSnapshotRepository.saveAll(snapshots);
+        } catch (Exception e) {
+            snapshots.forEach(snapshot -> dirtyDays.add(snapshot.getDay()));
+            log.warn("分数分布快照写入失败", e);
+        }
+    }
+
+    // 定期重建，同步其他实例写入的批改结果
+    @Scheduled(initialDelayString = "${scores.distribution.rebuild-interval:21600000}",
+            fixedDelayString = "${scores.distribution.rebuild-interval:21600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * 从批改结果表重建分布
+     * 按ID游标分批读取分数列；重建期间扫描已越过的记录上发生的变更在替换前重放，
+     * 只有恰好与某一批读取同时提交的变更可能多计或漏计，下次重建时修正
+     */
+    private void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (swapLock) {
+            pendingDeltas.clear();
+            rebuildCursor = 0;
+        }
+        try {
+            Histograms rebuilt = new Histograms();
+            long lastId = 0;
+            long counted = 0;
+            List<CheckResultRepository.ScoreRow> batch;
+            do {
+                batch = checkResultRepository.findScoreRows(lastId, PageRequest.of(0, rebuildBatchSize));
+                for (CheckResultRepository.ScoreRow row : batch) {
+                    lastId = row.getId();
+                    boolean graded = row.getStatus() == null || CheckResult.STATUS_GRADED.equals(row.getStatus());
+                    if (graded && row.getOverallScore() != null && row.getGradedAt() != null) {
+                        rebuilt.add(row.getGradedAt().toLocalDate(), row.getOverallScore(), 1);
+                        counted++;
+                    }
+                }
+                rebuildCursor = lastId;
+            } while (batch.size() == rebuildBatchSize);
+
+            int replayed;
+            synchronized (swapLock) {
+                replayed = pendingDeltas.size();
+                for (Delta delta : pendingDeltas) {
+                    rebuilt.add(delta.day(), delta.score(), delta.delta());
+                }
+                Set<LocalDate> changedDays = new HashSet<>(histograms.days());
+                changedDays.addAll(rebuilt.days());
+                histograms = rebuilt;
+                dirtyDays.addAll(changedDays);
+            }
+            log.info("分数分布重建完成，共{}篇，重放重建期间的变更{}条", counted, replayed);
+        } catch (Exception e) {
+            log.error("分数分布重建失败", e);
+        } finally {
+            synchronized (swapLock) {
+                pendingDeltas.clear();
+                rebuildCursor = -1;
+            }
+            rebuilding.set(false);
+        }
+    }
+
+    // 按宽度划分分数段；最后一段不足一个宽度时并入前一段，如宽度10时100分并入90~100
+    private List<ScoreDistributionDto.ScoreBucket> buckets(long[] counts, int width) {
+        List<ScoreDistributionDto.ScoreBucket> buckets = new ArrayList<>();
+        int from = 0;
+        while (from <= MAX_SCORE) {
+            int to = from + width - 1;
+            if (to >= MAX_SCORE || MAX_SCORE - to < width) {
+                to = MAX_SCORE;
+            }
+            long count = 0;
+            for (int i = from; i <= to; i++) {
+                count += counts[i];
+            }
+            buckets.add(new ScoreDistributionDto.ScoreBucket(from, to, count));
+            from = to + 1;
+        }
+        return buckets;
+    }
+
+    // 重建期间需要重放的一次计数变更
+    private record Delta(LocalDate day, int score, long delta) {}
+
+    // 限定在0~100分
+    private static int clamp(int score) {
+        return Math.max(0, Math.min(MAX_SCORE, score));
+    }
+
+    /**
+     * 全部时间与按天的直方图，各格用原子计数，更新与查询无需加锁
+     */
+    private static class Histograms {
+        private final AtomicLongArray allTime = new AtomicLongArray(MAX_SCORE + 1);
+        private final ConcurrentHashMap<LocalDate, AtomicLongArray> daily = new ConcurrentHashMap<>();
+
+        void add(LocalDate day, int score, long delta) {
+            int index = clamp(score);
+            allTime.addAndGet(index, delta);
+            daily.computeIfAbsent(day, d -> new AtomicLongArray(MAX_SCORE + 1)).addAndGet(index, delta);
+        }
+
+        long[] allTime() {
+            return toArray(allTime);
+        }
+
+        // 截至today的最近days天合并后的直方图
+        long[] window(LocalDate today, int days) {
+            long[] merged = new long[MAX_SCORE + 1];
+            for (int i = 0; i < days; i++) {
+                AtomicLongArray counts = daily.get(today.minusDays(i));
+                if (counts != null) {
+                    for (int score = 0; score <= MAX_SCORE; score++) {
+                        merged[score] += counts.get(score);
+                    }
+                }
+            }
+            return merged;
+        }
+
+        // 某一天的直方图，没有或已全部清零时返回null
+        long[] day(LocalDate day) {
+            AtomicLongArray counts = daily.get(day);
+            if (counts == null) {
+                return null;
+            }
+            long[] array = toArray(counts);
+            for (long count : array) {
+                if (count != 0) {
+                    return array;
+                }
+            }
+            return null;
+        }
+
+        Set<LocalDate> days() {
+            return daily.keySet();
+        }
+
+        private static long[] toArray(AtomicLongArray counts) {
+            long[] array = new long[counts.length()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = counts.get(i);
+            }
+            return array;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.essaychecker.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 增量JSON字段解析器
+ * 基于Jackson非阻塞解析器，逐段接收AI输出的文本片段，
+ * 顶层字段或数组元素一旦闭合就立即回调监听器，无需等待整个JSON生成完毕
+ */
+public class StreamingJsonFieldParser {
+
+    private final GradingStreamListener listener;
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    // 是否已遇到根对象的起始 '{'（之前的内容如 ```json 会被跳过）
+    private boolean started;
+    // 根对象是否已结束，或输入已无法解析
+    private boolean finished;
+    // 当前所在的容器层级，1 表示根对象内部
+    private int depth;
+    // 当前顶层字段名
+    private String currentField;
+    // 当前顶层数组字段已收集的元素
+    private ArrayNode currentArray;
+    // 正在收集的嵌套值（对象或数组），及其内部层级
+    private TokenBuffer capture;
+    private int captureDepth;
+
+    public StreamingJsonFieldParser(GradingStreamListener listener, ObjectMapper objectMapper) {
+        this.listener = listener;
+        this.objectMapper = objectMapper;
+        try {
+            this.parser = new JsonFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("无法创建JSON增量解析器", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * 输入一段AI输出的文本
+     * 输入格式不正确时停止解析，后续片段会被忽略
+     * @param chunk 文本片段
+     */
+    public void feed(String chunk) {
+        if (finished || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            int start = chunk.indexOf('{');
+            if (start < 0) {
+                return;
+            }
+            chunk = chunk.substring(start);
+            started = true;
+        }
+
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while (!finished && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handleToken(token);
+            }
+        } catch (IOException e) {
+            finished = true;
+        }
+    }
+
+    /**
+     * 根对象是否已完整解析
+     * @return 已完整解析返回true
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    // 处理一个解析事件
+    private void handleToken(JsonToken token) throws IOException {
+        if (capture != null) {
+            capture.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                captureDepth++;
+            } else if (token.isStructEnd()) {
+                captureDepth--;
+            }
+            if (captureDepth == 0) {
+                JsonNode value = objectMapper.readTree(capture.asParser());
+                capture = null;
+                onValue(value);
+            }
+            return;
+        }
+
+        if (token == JsonToken.FIELD_NAME) {
+            if (depth == 1) {
+                currentField = parser.currentName();
+            }
+            return;
+        }
+
+        if (token.isStructStart()) {
+            if (depth == 0) {
+                // 根对象开始
+                depth = 1;
+            } else if (depth == 1 && token == JsonToken.START_ARRAY) {
+                // 顶层数组字段开始，逐个元素回调
+                depth = 2;
+                currentArray = JsonNodeFactory.instance.arrayNode();
+            } else {
+                // 嵌套对象或数组作为一个整体值收集
+                capture = new TokenBuffer(parser);
+                capture.copyCurrentEvent(parser);
+                captureDepth = 1;
+            }
+            return;
+        }
+
+        if (token.isStructEnd()) {
+            if (depth == 2) {
+                depth = 1;
+                ArrayNode array = currentArray;
+                currentArray = null;
+                listener.onField(currentField, array);
+            } else if (depth == 1) {
+                depth = 0;
+                finished = true;
+            }
+            return;
+        }
+
+        onValue(scalarValue(token));
+    }
+
+    // 一个完整的值：数组内为元素，否则为顶层字段
+    private void onValue(JsonNode value) {
+        if (depth == 2) {
+            currentArray.add(value);
+            listener.onArrayItem(currentField, currentArray.size() - 1, value);
+        } else if (depth == 1) {
+            listener.onField(currentField, value);
+        }
+    }
+
+    // 将当前标量事件转换为JsonNode
+    private JsonNode scalarValue(JsonToken token) throws IOException {
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        switch (token) {
+            case VALUE_STRING:
+                return factory.textNode(parser.getText());
+            case VALUE_NUMBER_INT:
+                return factory.numberNode(parser.getLongValue());
+            case VALUE_NUMBER_FLOAT:
+                return factory.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return factory.booleanNode(true);
+            case VALUE_FALSE:
+                return factory.booleanNode(false);
+            default:
+                return factory.nullNode();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.TextMetricsDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * 作文文本本地预分析器
+ * 在调用AI之前对文本做一次线性扫描，统计字数、句数、段落数，检查标点误用、
+ * 重复字符和中文语境中的半角标点；明显无法批改的内容直接给出结果，不再调用AI
+ */
+@Service
+public class TextPreAnalyzer {
+
+    // 同一字符连续出现达到该次数即视为重复片段
+    private static final int REPEAT_RUN_THRESHOLD = 4;
+
+    // 全角标点
+    private static final String FULL_WIDTH_PUNCTUATION = "，。！？；：、“”‘’（）《》【】…—";
+    // 半角标点
+    private static final String HALF_WIDTH_PUNCTUATION = ",.!?;:()";
+    // 句末标点
+    private static final String SENTENCE_END = "。！？!?…";
+    // 可以连用表示强调的标点
+    private static final String EMPHASIS = "！？!?";
+    // 可以出现在其他标点之前或之后的成对标点和省略号、破折号，不计入连续标点
+    private static final String PAIRED_PUNCTUATION = "“”‘’（）《》【】()…—";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 可批改作文的最少汉字数
+    @Value("${grading.precheck.min-chinese-chars:50}")
+    private int minChineseChars;
+
+    // 汉字占非空白字符的最低比例，低于该比例视为乱码或非中文作文
+    @Value("${grading.precheck.min-chinese-ratio:0.3}")
+    private double minChineseRatio;
+
+    // 最长重复片段占非空白字符的最高比例，超过该比例视为无意义内容
+    @Value("${grading.precheck.max-repeat-ratio:0.5}")
+    private double maxRepeatRatio;
+
+    private Counter rejectionCounter;
+
+    @PostConstruct
+    public void registerMetrics() {
+        rejectionCounter = Counter.builder("grading.precheck.rejections")
+                .description("预分析判定无法批改、未调用AI的作文数").register(meterRegistry);
+    }
+
+    /**
+     * 统计作文文本指标
+     * @param content 作文内容
+     * @return 文本指标
+     */
+    public TextMetricsDto analyze(String content) {
+        TextMetricsDto metrics = new TextMetricsDto();
+        if (content == null || content.isEmpty()) {
+            return metrics;
+        }
+
+        int characters = 0;
+        int chinese = 0;
+        int sentences = 0;
+        int paragraphs = 0;
+        int halfWidth = 0;
+        int misuse = 0;
+        int repeatedRuns = 0;
+        int maxRun = 0;
+
+        // 上一个非空白字符（0表示还没有）及其连续次数
+        char previous = 0;
+        int run = 0;
+        boolean lineHasText = false;
+
+        int length = content.length();
+        for (int i = 0; i < length; i++) {
+            char c = content.charAt(i);
+
+            if (c == '\n') {
+                if (lineHasText) {
+                    paragraphs++;
+                    lineHasText = false;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c) || c == '　') {
+                continue;
+            }
+
+            characters++;
+            boolean isChinese = isChinese(c);
+            if (isChinese) {
+                chinese++;
+            }
+
+            boolean isPunctuation = isPunctuation(c);
+            if (isPunctuation) {
+                // 段首出现除成对标点外的标点
+                if (!lineHasText && !isPaired(c)) {
+                    misuse++;
+                } else if (lineHasText && isPunctuation(previous)
+                        && !isPaired(previous) && !isPaired(c) && !isEmphasis(previous, c)) {
+                    // 连续标点，如“，。”“。。”；表示强调的“！！”“？！”除外
+                    misuse++;
+                }
+                // 紧挨汉字的半角标点
+                if (HALF_WIDTH_PUNCTUATION.indexOf(c) >= 0
+                        && (isChinese(previous) || (i + 1 < length && isChinese(content.charAt(i + 1))))) {
+                    halfWidth++;
+                }
+                // 连续的句末标点只算一句
+                if (isSentenceEnd(c) && !isSentenceEnd(previous)) {
+                    sentences++;
+                }
+            }
+
+            // 省略号和破折号本身成对出现，不计入重复
+            if (c == previous && c != '…' && c != '—') {
+                run++;
+                if (run == REPEAT_RUN_THRESHOLD) {
+                    repeatedRuns++;
+                }
+            } else {
+                run = 1;
+            }
+            if (run > maxRun) {
+                maxRun = run;
+            }
+
+            lineHasText = true;
+            previous = c;
+        }
+        if (lineHasText) {
+            paragraphs++;
+        }
+        // 最后一句没有句末标点
+        if (characters > 0 && !isSentenceEnd(previous)) {
+            sentences++;
+        }
+
+        metrics.setCharacterCount(characters);
+        metrics.setChineseCharCount(chinese);
+        metrics.setSentenceCount(sentences);
+        metrics.setParagraphCount(paragraphs);
+        metrics.setHalfWidthPunctuationCount(halfWidth);
+        metrics.setPunctuationMisuseCount(misuse);
+        metrics.setRepeatedRunCount(repeatedRuns);
+        metrics.setMaxRepeatRun(maxRun);
+
+        if (halfWidth > 0) {
+            metrics.getIssues().add("中文语句中使用了" + halfWidth + "处半角标点，应使用全角标点");
+        }
+        if (misuse > 0) {
+            metrics.getIssues().add("存在" + misuse + "处标点误用（连续标点或段首标点）");
+        }
+        if (repeatedRuns > 0) {
+            metrics.getIssues().add("存在" + repeatedRuns + "处同一字符连续重复");
+        }
+        return metrics;
+    }
+
+    /**
+     * 判断文本是否无法批改
+     * @param metrics 文本指标
+     * @return 无法批改的原因（可以批改时返回null）
+     */
+    public String rejectReason(TextMetricsDto metrics) {
+        String reason = findRejectReason(metrics);
+        if (reason != null) {
+            rejectionCounter.increment();
+        }
+        return reason;
+    }
+
+    private String findRejectReason(TextMetricsDto metrics) {
+        if (metrics.getCharacterCount() == 0) {
+            return "作文内容为空";
+        }
+        if (metrics.chineseRatio() < minChineseRatio) {
+            return "作文内容不是有效的中文文本";
+        }
+        if (metrics.getMaxRepeatRun() > metrics.getCharacterCount() * maxRepeatRatio) {
+            return "作文内容大部分为重复字符";
+        }
+        if (metrics.getChineseCharCount() < minChineseChars) {
+            return "作文内容过短，至少需要" + minChineseChars + "个汉字";
+        }
+        return null;
+    }
+
+    // 基本区和扩展A区的汉字
+    private static boolean isChinese(char c) {
+        return (c >= '\u4e00' && c <= '\u9fff') || (c >= '\u3400' && c <= '\u4dbf');
+    }
+
+    private static boolean isPunctuation(char c) {
+        return c != 0 && (FULL_WIDTH_PUNCTUATION.indexOf(c) >= 0 || HALF_WIDTH_PUNCTUATION.indexOf(c) >= 0);
+    }
+
+    private static boolean isSentenceEnd(char c) {
+        return c != 0 && SENTENCE_END.indexOf(c) >= 0;
+    }
+
+    // 感叹号、问号的连用表示强调，不算误用
+    private static boolean isEmphasis(char previous, char c) {
+        return EMPHASIS.indexOf(previous) >= 0 && EMPHASIS.indexOf(c) >= 0;
+    }
+
+    private static boolean isPaired(char c) {
+        return PAIRED_PUNCTUATION.indexOf(c) >= 0;
+    }
+}
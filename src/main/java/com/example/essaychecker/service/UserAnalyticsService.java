@@ -0,0 +1,244 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.UserAnalyticsDto;
+import com.example.essaychecker.entity.CheckResult;
+import com.example.essaychecker.entity.UserScoreSummary;
+import com.example.essaychecker.repository.CheckResultRepository;
+import com.example.essaychecker.repository.UserScoreSummaryRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * 用户学习进度统计服务
+ * 每个用户维护一行汇总（user_score_summaries）：分数之和与篇数、按周分桶的成绩、各类语法错误的次数；
+ * 批改结果变更时按变更前后的差值增量更新，查询时只读这一行，与历史批改数量无关
+ */
+@Service
+public class UserAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAnalyticsService.class);
+
+    // 并发更新同一用户汇总时的最大尝试次数
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final TypeReference<TreeMap<LocalDate, long[]>> BUCKETS_TYPE = new TypeReference<>() {};
+    private static final TypeReference<HashMap<String, Long>> CATEGORIES_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private UserScoreSummaryRepository userScoreSummaryRepository;
+
+    @Autowired
+    private CheckResultRepository checkResultRepository;
+
+    // 成绩走势保留的周数
+    @Value("${analytics.trend-weeks:12}")
+    private int trendWeeks;
+
+    // 返回的语法错误类别数
+    @Value("${analytics.top-categories:5}")
+    private int topCategories;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    /**
+     * 查询用户学习进度
+     * 汇总不存在时（新用户或上线前已有的历史数据）先从历史批改重建一次
+     * @param userId 用户ID
+     * @return 学习进度
+     */
+    public UserAnalyticsDto getAnalytics(Long userId) {
+        UserScoreSummary summary = userScoreSummaryRepository.findById(userId).orElseGet(() -> rebuild(userId));
+        Aggregate aggregate = Aggregate.read(summary, objectMapper);
+
+        UserAnalyticsDto dto = new UserAnalyticsDto();
+        dto.setUserId(userId);
+        dto.setGradedCount(aggregate.count);
+        dto.setAverageScore(aggregate.count > 0 ? (double) aggregate.sum / aggregate.count : null);
+        dto.setUpdatedAt(summary.getUpdatedAt());
+
+        LocalDate windowStart = windowStart();
+        List<UserAnalyticsDto.TrendPoint> trend = new ArrayList<>();
+        aggregate.buckets.tailMap(windowStart, true).forEach((week, bucket) ->
+                trend.add(new UserAnalyticsDto.TrendPoint(week, bucket[0], (double) bucket[1] / bucket[0])));
+        dto.setTrend(trend);
+
+        dto.setTopErrorCategories(aggregate.categories.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(topCategories)
+                .map(e -> new UserAnalyticsDto.ErrorCategoryCount(e.getKey(), e.getValue()))
+                .toList());
+        return dto;
+    }
+
+    /**
+     * 批改结果变更时增量更新用户汇总
+     * 更新失败只记录日志，不影响批改本身；汇总不存在时从历史批改重建，重建结果已包含本次变更
+     * @param event 批改结果变更事件
+     */
+    @EventListener
+    public void onCheckResultChanged(CheckResultChangedEvent event) {
+        if (event.userId() == null || (event.previous() == null && event.current() == null)) {
+            return;
+        }
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                Optional<UserScoreSummary> existing = userScoreSummaryRepository.findById(event.userId());
+                if (existing.isEmpty()) {
+                    rebuild(event.userId());
+                    return;
+                }
+                UserScoreSummary summary = existing.get();
+                Aggregate aggregate = Aggregate.read(summary, objectMapper);
+                if (event.previous() != null) {
+                    aggregate.remove(event.previous());
+                }
+                if (event.current() != null) {
+                    aggregate.add(event.current());
+                }
+                aggregate.prune(windowStart());
+                aggregate.write(summary, objectMapper);
+                userScoreSummaryRepository.save(summary);
+                return;
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                // 其他请求同时更新了该用户的汇总，重新读取后再试
+                if (attempt == MAX_ATTEMPTS) {
+                    log.warn("用户统计汇总更新冲突, userId={}, essayId={}", event.userId(), event.essayId(), e);
+                }
+            } catch (RuntimeException e) {
+                log.warn("用户统计汇总更新失败, userId={}, essayId={}", event.userId(), event.essayId(), e);
+                return;
+            }
+        }
+    }
+
+    // 从用户的全部批改结果重建汇总；并发重建时以先写入的为准
+    private UserScoreSummary rebuild(Long userId) {
+        Aggregate aggregate = new Aggregate();
+        for (CheckResult checkResult : checkResultRepository.findByUserId(userId)) {
+            CheckResultChangedEvent.ScoreSnapshot snapshot = CheckResultChangedEvent.ScoreSnapshot.of(checkResult);
+            if (snapshot != null) {
+                aggregate.add(snapshot);
+            }
+        }
+        aggregate.prune(windowStart());
+
+        UserScoreSummary summary = new UserScoreSummary(userId);
+        aggregate.write(summary, objectMapper);
+        try {
+            return userScoreSummaryRepository.save(summary);
+        } catch (DataIntegrityViolationException e) {
+            return userScoreSummaryRepository.findById(userId).orElseThrow(() -> e);
+        }
+    }
+
+    // 成绩走势窗口内最早一周的周一
+    private LocalDate windowStart() {
+        return weekOf(LocalDateTime.now()).minusWeeks(trendWeeks - 1L);
+    }
+
+    private static LocalDate weekOf(LocalDateTime time) {
+        return time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * 汇总的内存形式，读出后修改再写回
+     */
+    private static class Aggregate {
+        private long count;
+        private long sum;
+        // 周一日期 -> [篇数, 总分之和]
+        private TreeMap<LocalDate, long[]> buckets = new TreeMap<>();
+        // 错误类别 -> 次数
+        private HashMap<String, Long> categories = new HashMap<>();
+
+        static Aggregate read(UserScoreSummary summary, ObjectMapper objectMapper) {
+            Aggregate aggregate = new Aggregate();
+            aggregate.count = summary.getGradedCount();
+            aggregate.sum = summary.getScoreSum();
+            try {
+                if (summary.getWeeklyBuckets() != null) {
+                    aggregate.buckets = objectMapper.readValue(summary.getWeeklyBuckets(), BUCKETS_TYPE);
+                }
+                if (summary.getErrorCategories() != null) {
+                    aggregate.categories = objectMapper.readValue(summary.getErrorCategories(), CATEGORIES_TYPE);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("用户统计汇总数据格式错误", e);
+            }
+            return aggregate;
+        }
+
+        void write(UserScoreSummary summary, ObjectMapper objectMapper) {
+            summary.setGradedCount(count);
+            summary.setScoreSum(sum);
+            try {
+                summary.setWeeklyBuckets(objectMapper.writeValueAsString(buckets));
+                summary.setErrorCategories(objectMapper.writeValueAsString(categories));
+            } catch (Exception e) {
+                throw new IllegalStateException("用户统计汇总序列化失败", e);
+            }
+        }
+
+        void add(CheckResultChangedEvent.ScoreSnapshot snapshot) {
+            apply(snapshot, 1);
+        }
+
+        // 移除旧结果；其所在的周已移出窗口时只调整总数
+        void remove(CheckResultChangedEvent.ScoreSnapshot snapshot) {
+            apply(snapshot, -1);
+        }
+
+        private void apply(CheckResultChangedEvent.ScoreSnapshot snapshot, int sign) {
+            count = Math.max(0, count + sign);
+            sum += (long) sign * snapshot.score();
+
+            LocalDate week = weekOf(snapshot.gradedAt());
+            long[] bucket = buckets.get(week);
+            if (sign > 0) {
+                if (bucket == null) {
+                    bucket = new long[2];
+                    buckets.put(week, bucket);
+                }
+                bucket[0]++;
+                bucket[1] += snapshot.score();
+            } else if (bucket != null) {
+                bucket[0]--;
+                bucket[1] -= snapshot.score();
+                if (bucket[0] <= 0) {
+                    buckets.remove(week);
+                }
+            }
+
+            for (String error : snapshot.grammarErrors()) {
+                categories.merge(GrammarErrorClassifier.classify(error), (long) sign, Long::sum);
+            }
+            categories.values().removeIf(value -> value <= 0);
+        }
+
+        // 丢弃窗口之前的周
+        void prune(LocalDate windowStart) {
+            buckets.headMap(windowStart, false).clear();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.essaychecker.entity;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckResultTests {
+
+    private CheckResult legacy(String grammarErrors, String suggestions, String vocabulary) {
+        CheckResult result = new CheckResult();
+        ReflectionTestUtils.setField(result, "legacyGrammarErrors", grammarErrors);
+        ReflectionTestUtils.setField(result, "legacyWritingSuggestions", suggestions);
+        ReflectionTestUtils.setField(result, "legacyVocabularyRecommendations", vocabulary);
+        return result;
+    }
+
+    @Test
+    void readsLegacyColumnsBeforeMigration() {
+        CheckResult result = legacy("错误一\u0001错误二;含分号", "建议一;建议二", null);
+
+        assertEquals(List.of("错误一", "错误二;含分号"), result.getGrammarErrors());
+        assertEquals(List.of("建议一", "建议二"), result.getWritingSuggestions());
+        assertNull(result.getVocabularyRecommendations());
+    }
+
+    @Test
+    void migratesLegacyColumnsToJson() {
+        CheckResult result = legacy("错误一\u0001错误二", "建议一;建议二", "词汇一");
+
+        assertTrue(result.migrateLegacyLists());
+
+        assertEquals("[\"错误一\",\"错误二\"]", ReflectionTestUtils.getField(result, "grammarErrorsJson"));
+        assertEquals("[\"建议一\",\"建议二\"]", ReflectionTestUtils.getField(result, "writingSuggestionsJson"));
+        assertEquals("[\"词汇一\"]", ReflectionTestUtils.getField(result, "vocabularyRecommendationsJson"));
+        assertNull(ReflectionTestUtils.getField(result, "legacyGrammarErrors"));
+        assertNull(ReflectionTestUtils.getField(result, "legacyWritingSuggestions"));
+        assertNull(ReflectionTestUtils.getField(result, "legacyVocabularyRecommendations"));
+        assertFalse(result.migrateLegacyLists());
+    }
+
+    @Test
+    void migrationKeepsExistingJsonColumns() {
+        CheckResult result = legacy("旧错误", null, null);
+        result.setGrammarErrors(List.of("新错误"));
+
+        assertTrue(result.migrateLegacyLists());
+
+        assertEquals("[\"新错误\"]", ReflectionTestUtils.getField(result, "grammarErrorsJson"));
+        assertNull(ReflectionTestUtils.getField(result, "legacyGrammarErrors"));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.essaychecker.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StringListCodecTests {
+
+    @Test
+    void roundTripsItemsContainingSeparators() {
+        // 旧版分隔符、引号和换行都能原样保留
+        List<String> values = List.of("第一条;含分号", "含\u0001控制符", "含\"引号\"\n和换行", "");
+
+        assertEquals(values, StringListCodec.decode(StringListCodec.encode(values)));
+    }
+
+    @Test
+    void keepsNullAndEmptyDistinct() {
+        assertNull(StringListCodec.encode(null));
+        assertNull(StringListCodec.decode(null));
+        assertEquals("[]", StringListCodec.encode(List.of()));
+        assertEquals(List.of(), StringListCodec.decode("[]"));
+    }
+
+    @Test
+    void decodesToUnmodifiableList() {
+        List<String> decoded = StringListCodec.decode("[\"a\"]");
+
+        assertThrows(UnsupportedOperationException.class, () -> decoded.add("b"));
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        assertThrows(IllegalStateException.class, () -> StringListCodec.decode("a;b"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.essaychecker.repository;
+
+import com.example.essaychecker.dto.EssaySummaryDto;
+import com.example.essaychecker.entity.Essay;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:essays;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class EssayRepositoryTests {
+
+    @Autowired
+    private EssayRepository repository;
+
+    private Essay save(Long userId, LocalDateTime createdAt) {
+        Essay essay = new Essay(userId, "标题", "内容");
+        essay.setCreatedAt(createdAt);
+        return repository.save(essay);
+    }
+
+    @Test
+    void pagesByCreatedAtThenIdWithoutSkippingTies() {
+        LocalDateTime base = LocalDateTime.of(2024, 5, 1, 8, 0);
+        List<Essay> essays = new ArrayList<>();
+        // 多篇作文创建时间相同，游标须用ID区分
+        for (int i = 0; i < 7; i++) {
+            essays.add(save(1L, base.plusMinutes(i / 3)));
+        }
+        save(2L, base.plusMinutes(1));
+        repository.flush();
+
+        List<Long> expected = essays.stream()
+                .sorted(Comparator.comparing(Essay::getCreatedAt).thenComparing(Essay::getId).reversed())
+                .map(Essay::getId)
+                .toList();
+
+        List<Long> paged = new ArrayList<>();
+        List<EssaySummaryDto> page = repository.findSummariesByUserId(1L, PageRequest.of(0, 2));
+        while (!page.isEmpty()) {
+            page.forEach(summary -> paged.add(summary.getId()));
+            EssaySummaryDto last = page.get(page.size() - 1);
+            page = repository.findSummariesByUserIdBefore(1L, last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+        }
+
+        assertEquals(expected, paged);
+    }
+}
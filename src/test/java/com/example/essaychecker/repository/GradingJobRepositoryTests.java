@@ -0,0 +1,75 @@
+package com.example.essaychecker.repository;
+
+import com.example.essaychecker.dto.GradingJobDto;
+import com.example.essaychecker.entity.GradingJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:grading-jobs;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class GradingJobRepositoryTests {
+
+    @Autowired
+    private GradingJobRepository repository;
+
+    @Test
+    void claimsPendingJobsAndExpiredLeasesOnly() {
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(new GradingJob("pending", 1L, GradingJobDto.PENDING));
+        repository.save(running("expired", 2L, "node-a", now.minusSeconds(1)));
+        repository.save(running("leased", 3L, "node-b", now.plusMinutes(1)));
+        GradingJob finished = new GradingJob("finished", 4L, GradingJobDto.SUCCESS);
+        finished.setActiveEssayId(null);
+        repository.save(finished);
+        repository.flush();
+
+        List<GradingJob> claimable = repository.findClaimable(GradingJobDto.PENDING, GradingJobDto.RUNNING,
+                now, PageRequest.of(0, 10));
+
+        Set<String> ids = claimable.stream().map(GradingJob::getId).collect(Collectors.toSet());
+        assertEquals(Set.of("pending", "expired"), ids);
+    }
+
+    @Test
+    void onlyLeaseOwnerCanCompleteOrRenew() {
+        LocalDateTime now = LocalDateTime.now();
+        repository.saveAndFlush(running("job", 1L, "node-a", now.plusMinutes(1)));
+
+        assertEquals(0, repository.renewLeases(List.of("job"), "node-b", GradingJobDto.RUNNING,
+                now, now.plusMinutes(2)));
+        assertEquals(1, repository.renewLeases(List.of("job"), "node-a", GradingJobDto.RUNNING,
+                now, now.plusMinutes(2)));
+        assertEquals(0, repository.complete("job", "node-b", GradingJobDto.RUNNING,
+                GradingJobDto.SUCCESS, null, now));
+        assertEquals(1, repository.complete("job", "node-a", GradingJobDto.RUNNING,
+                GradingJobDto.SUCCESS, null, now));
+        // 已完成的任务不能再次完成
+        assertEquals(0, repository.complete("job", "node-a", GradingJobDto.RUNNING,
+                GradingJobDto.FAILED, "late", now));
+    }
+
+    private static GradingJob running(String id, Long essayId, String owner, LocalDateTime leaseExpiresAt) {
+        GradingJob job = new GradingJob(id, essayId, GradingJobDto.RUNNING);
+        job.setLeaseOwner(owner);
+        job.setLeaseExpiresAt(leaseExpiresAt);
+        job.setAttempts(1);
+        return job;
+    }
+}
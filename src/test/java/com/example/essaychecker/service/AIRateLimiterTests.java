@@ -0,0 +1,94 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AIRateLimiterTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    // 全局配额足够大，只由用户的每分钟请求数限流
+    private AIRateLimiter limiter(long userRpm, long maxWait) {
+        AIRateLimiter limiter = new AIRateLimiter();
+        ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(limiter, "globalRpm", 1_000_000L);
+        ReflectionTestUtils.setField(limiter, "globalTpm", 1_000_000_000L);
+        ReflectionTestUtils.setField(limiter, "userRpm", userRpm);
+        ReflectionTestUtils.setField(limiter, "userTpm", 1_000_000_000L);
+        ReflectionTestUtils.setField(limiter, "maxWait", maxWait);
+        limiter.setClock(now::get);
+        limiter.init();
+        return limiter;
+    }
+
+    @Test
+    void rejectsWhenWaitExceedsMaxWait() {
+        AIRateLimiter limiter = limiter(2, 10000);
+        limiter.acquire(1L, 100);
+        limiter.acquire(1L, 100);
+
+        // 每分钟2次，下一个令牌30秒后回填，超过10秒的等待上限
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class, () -> limiter.acquire(1L, 100));
+        assertEquals(30000, e.getRetryAfterMillis());
+        // 其他用户不受影响
+        assertDoesNotThrow(() -> limiter.acquire(2L, 100));
+    }
+
+    @Test
+    void refillsOverTime() {
+        AIRateLimiter limiter = limiter(2, 0);
+        limiter.acquire(1L, 100);
+        limiter.acquire(1L, 100);
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire(1L, 100));
+
+        now.addAndGet(29999);
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire(1L, 100));
+
+        now.addAndGet(1);
+        assertDoesNotThrow(() -> limiter.acquire(1L, 100));
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire(1L, 100));
+    }
+
+    @Test
+    void queuesWithinMaxWaitThenRejects() {
+        // 每分钟600次，每100毫秒回填一个令牌
+        AIRateLimiter limiter = limiter(600, 200);
+        for (int i = 0; i < 600; i++) {
+            limiter.acquire(1L, 1);
+        }
+
+        long start = System.nanoTime();
+        limiter.acquire(1L, 1);
+        limiter.acquire(1L, 1);
+        // 两次分别预约了100毫秒和200毫秒后的令牌并等待
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= 300);
+
+        // 时间来源未前进，再下一个令牌要等300毫秒，超过等待上限
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class, () -> limiter.acquire(1L, 1));
+        assertEquals(300, e.getRetryAfterMillis());
+    }
+
+    @Test
+    void evictsOnlyRefilledUsers() {
+        AIRateLimiter limiter = limiter(2, 0);
+        limiter.acquire(1L, 100);
+        limiter.acquire(1L, 100);
+
+        limiter.evictIdleUsers();
+        // 用户1的令牌桶未回满，仍被保留，限流继续生效
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire(1L, 100));
+
+        now.addAndGet(60000);
+        limiter.evictIdleUsers();
+        assertDoesNotThrow(() -> limiter.acquire(1L, 100));
+    }
+}
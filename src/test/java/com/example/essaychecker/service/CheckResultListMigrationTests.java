@@ -0,0 +1,65 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.entity.CheckResult;
+import com.example.essaychecker.repository.CheckResultRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CheckResultListMigrationTests {
+
+    private final CheckResultRepository checkResultRepository = mock(CheckResultRepository.class);
+
+    private CheckResultListMigration migration(boolean enabled) {
+        CheckResultListMigration migration = new CheckResultListMigration();
+        ReflectionTestUtils.setField(migration, "checkResultRepository", checkResultRepository);
+        ReflectionTestUtils.setField(migration, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(migration, "enabled", enabled);
+        ReflectionTestUtils.setField(migration, "batchSize", 2);
+        return migration;
+    }
+
+    private CheckResult legacy(String suggestions) {
+        CheckResult result = new CheckResult();
+        ReflectionTestUtils.setField(result, "legacyWritingSuggestions", suggestions);
+        return result;
+    }
+
+    @Test
+    void backfillsGradedAtThenMigratesInBatchesUntilNoneLeft() {
+        List<CheckResult> first = List.of(legacy("a;b"), legacy("c"));
+        List<CheckResult> second = List.of(legacy("d"));
+        when(checkResultRepository.findLegacyListColumns(any(Pageable.class)))
+                .thenReturn(first, second, List.of());
+
+        migration(true).run(null);
+
+        // 批改时间须在迁移更新修改时间之前补齐
+        var order = inOrder(checkResultRepository);
+        order.verify(checkResultRepository).backfillGradedAt();
+        order.verify(checkResultRepository).saveAll(first);
+        order.verify(checkResultRepository).saveAll(second);
+        assertEquals(List.of("a", "b"), first.get(0).getWritingSuggestions());
+        assertNull(ReflectionTestUtils.getField(second.get(0), "legacyWritingSuggestions"));
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        migration(false).run(null);
+
+        verify(checkResultRepository, never()).backfillGradedAt();
+        verify(checkResultRepository, never()).findLegacyListColumns(any(Pageable.class));
+    }
+}
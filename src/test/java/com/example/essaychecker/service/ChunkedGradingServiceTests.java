@@ -0,0 +1,107 @@
+package com.example.essaychecker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkedGradingServiceTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ChunkedGradingService service(int targetSize, double structureWeight, int maxItems) {
+        ChunkedGradingService service = new ChunkedGradingService();
+        ReflectionTestUtils.setField(service, "targetSize", targetSize);
+        ReflectionTestUtils.setField(service, "structureWeight", structureWeight);
+        ReflectionTestUtils.setField(service, "maxItems", maxItems);
+        return service;
+    }
+
+    @Test
+    void splitsOnNewlinesAndDropsBlankLines() {
+        List<String> paragraphs = service(100, 0.3, 20).splitParagraphs("第一段。\n\n  第二段。  \r\n\n第三段");
+
+        assertEquals(List.of("第一段。", "第二段。", "第三段"), paragraphs);
+    }
+
+    @Test
+    void cutsLongParagraphAtLastSentenceEnd() {
+        // 10字上限：第8个字符是句号，在其后切开
+        List<String> paragraphs = service(10, 0.3, 20).splitParagraphs("一二三四五六七。八九十一二三");
+
+        assertEquals(List.of("一二三四五六七。", "八九十一二三"), paragraphs);
+    }
+
+    @Test
+    void cutsLongParagraphAtLimitWithoutSentenceEnd() {
+        List<String> paragraphs = service(4, 0.3, 20).splitParagraphs("abcdefghij");
+
+        assertEquals(List.of("abcd", "efgh", "ij"), paragraphs);
+    }
+
+    @Test
+    void packsConsecutiveParagraphsUpToChunkSize() {
+        List<String> chunks = service(100, 0.3, 20).pack(List.of("aaa", "bbb", "cccccccc", "d"), 7);
+
+        // "aaa\nbbb"正好7字；超长段落独占一个片段
+        assertEquals(List.of("aaa\nbbb", "cccccccc", "d"), chunks);
+    }
+
+    @Test
+    void mergesWithLengthWeightedScoreAndStructureWeight() throws Exception {
+        List<String> chunks = List.of("a".repeat(300), "b".repeat(100));
+        List<JsonNode> results = List.of(
+                objectMapper.readTree("{\"grammarErrors\":[\"错1\"],\"fluencyAnalysis\":\"通顺\","
+                        + "\"writingSuggestions\":[\"多举例\"],\"vocabularyRecommendations\":[\"vivid\"],\"overallScore\":80}"),
+                objectMapper.readTree("{\"grammarErrors\":[\"错2\"],\"fluencyAnalysis\":\"一般\","
+                        + "\"writingSuggestions\":[\"多举例\",\"分段\"],\"vocabularyRecommendations\":[\"vivid\"],\"overallScore\":40}"));
+        JsonNode structure = objectMapper.readTree("{\"logicEvaluation\":\"结构清晰\",\"structureScore\":100}");
+
+        JsonNode merged = objectMapper.readTree(service(100, 0.5, 20).merge(chunks, results, structure, "部分"));
+
+        // 片段按字数加权为70分，再与结构分各占一半
+        assertEquals(85, merged.get("overallScore").asInt());
+        assertEquals("第1部分：错1", merged.get("grammarErrors").get(0).asText());
+        assertEquals("第2部分：错2", merged.get("grammarErrors").get(1).asText());
+        assertEquals("第1部分：通顺\n第2部分：一般", merged.get("fluencyAnalysis").asText());
+        assertEquals("结构清晰", merged.get("logicEvaluation").asText());
+        assertEquals(2, merged.get("writingSuggestions").size());
+        assertEquals(1, merged.get("vocabularyRecommendations").size());
+    }
+
+    @Test
+    void mergeWithoutStructureUsesChunkScoresAndCapsItems() throws Exception {
+        List<String> chunks = List.of("aa", "bb");
+        List<JsonNode> results = List.of(
+                objectMapper.readTree("{\"writingSuggestions\":[\"s1\",\"s2\"],\"overallScore\":61}"),
+                objectMapper.readTree("{\"writingSuggestions\":[\"s3\"],\"overallScore\":62}"));
+
+        JsonNode merged = objectMapper.readTree(service(100, 0.5, 2).merge(chunks, results, null, "段"));
+
+        assertEquals(62, merged.get("overallScore").asInt());
+        assertEquals("全文结构评估暂不可用", merged.get("logicEvaluation").asText());
+        assertEquals(2, merged.get("writingSuggestions").size());
+    }
+
+    @Test
+    void joinAllFailsFastAndCancelsOutstandingCalls() {
+        ChunkedGradingService service = service(100, 0.3, 20);
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        CompletableFuture<String> failed = CompletableFuture.failedFuture(new RuntimeException("片段失败"));
+        CompletableFuture<String> structure = new CompletableFuture<>();
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> service.joinAll(List.of(slow, failed), structure));
+
+        assertEquals("片段失败", e.getMessage());
+        assertTrue(slow.isCancelled());
+        assertTrue(structure.isCancelled());
+    }
+}
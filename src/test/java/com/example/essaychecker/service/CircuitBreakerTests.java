@@ -0,0 +1,85 @@
+package com.example.essaychecker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    // 失败率阈值50%，至少4次调用，窗口10次，打开1秒，半开放行2次
+    private final CircuitBreaker breaker = new CircuitBreaker(0.5, 4, 10, 1000, 2, now::get);
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+        // 调用数未达到最小值，不打开
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1000, breaker.remainingOpenMillis());
+    }
+
+    @Test
+    void halfOpensAfterOpenDurationAndClosesOnSuccess() {
+        open();
+
+        now.addAndGet(999);
+        assertFalse(breaker.tryAcquirePermission());
+
+        now.addAndGet(1);
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        // 探测许可已用完
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void reopensWhenProbeFails() {
+        open();
+        now.addAndGet(1000);
+        assertTrue(breaker.tryAcquirePermission());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        // 重新打开后从此刻起计时
+        assertEquals(1000, breaker.remainingOpenMillis());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void ignoredCallRefundsHalfOpenPermit() {
+        open();
+        now.addAndGet(1000);
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.onIgnored();
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
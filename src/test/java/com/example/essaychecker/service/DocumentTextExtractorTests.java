@@ -0,0 +1,104 @@
+package com.example.essaychecker.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DocumentTextExtractorTests {
+
+    @TempDir
+    Path tempDir;
+
+    private DocumentTextExtractor extractor(int maxChars) {
+        DocumentTextExtractor extractor = new DocumentTextExtractor();
+        ReflectionTestUtils.setField(extractor, "maxChars", maxChars);
+        return extractor;
+    }
+
+    private File docx(String... paragraphs) throws Exception {
+        File file = tempDir.resolve("essay.docx").toFile();
+        try (XWPFDocument document = new XWPFDocument(); OutputStream out = Files.newOutputStream(file.toPath())) {
+            for (String paragraph : paragraphs) {
+                XWPFRun run = document.createParagraph().createRun();
+                // 同一段落分成两个run，提取时应拼接
+                int half = paragraph.length() / 2;
+                run.setText(paragraph.substring(0, half));
+                document.getParagraphs().get(document.getParagraphs().size() - 1).createRun()
+                        .setText(paragraph.substring(half));
+            }
+            document.write(out);
+        }
+        return file;
+    }
+
+    @Test
+    void extractsDocxParagraphsAndSkipsBlankOnes() throws Exception {
+        File file = docx("春天来了，万物复苏。", "", "  我们去郊游。  ");
+
+        assertEquals("春天来了，万物复苏。\n我们去郊游。", extractor(100).extract(file, "作文.DOCX"));
+    }
+
+    @Test
+    void stopsWhenDocxExceedsMaxChars() throws Exception {
+        File file = docx("第一段内容。", "第二段内容。");
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> extractor(8).extract(file, "作文.docx"));
+        assertEquals("文档文字超过8字，请删减后再上传", e.getMessage());
+    }
+
+    @Test
+    void extractsPdfPages() throws Exception {
+        File file = tempDir.resolve("essay.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            for (String text : new String[] {"First page", "Second page"}) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText(text);
+                    content.endText();
+                }
+            }
+            document.save(file);
+        }
+
+        assertEquals("First page\nSecond page", extractor(100).extract(file, "essay.pdf"));
+    }
+
+    @Test
+    void rejectsUnsupportedOrCorruptFiles() throws Exception {
+        File file = tempDir.resolve("broken.docx").toFile();
+        Files.writeString(file.toPath(), "不是文档");
+
+        assertEquals("仅支持PDF、DOCX、DOC格式的文档",
+                assertThrows(RuntimeException.class, () -> extractor(100).extract(file, "essay.rtf")).getMessage());
+        assertEquals("文档解析失败，请确认文件没有损坏",
+                assertThrows(RuntimeException.class, () -> extractor(100).extract(file, "essay.docx")).getMessage());
+        assertEquals("文档解析失败，请确认文件没有损坏",
+                assertThrows(RuntimeException.class, () -> extractor(100).extract(file, "essay.pdf")).getMessage());
+    }
+
+    @Test
+    void extensionIsLowerCasedAndOptional() {
+        assertEquals("docx", DocumentTextExtractor.extensionOf("a.b.DOCX"));
+        assertEquals("", DocumentTextExtractor.extensionOf("README"));
+        assertEquals("", DocumentTextExtractor.extensionOf(null));
+    }
+}
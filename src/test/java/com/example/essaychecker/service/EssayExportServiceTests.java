@@ -0,0 +1,119 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.EssayExportRow;
+import com.example.essaychecker.repository.EssayRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EssayExportServiceTests {
+
+    private static final LocalDateTime T = LocalDateTime.of(2024, 5, 1, 8, 30, 15);
+
+    private final EssayRepository essayRepository = mock(EssayRepository.class);
+    private final EssayExportService service = new EssayExportService();
+
+    @TempDir
+    Path tempDir;
+
+    EssayExportServiceTests() {
+        ReflectionTestUtils.setField(service, "essayRepository", essayRepository);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "maxUsers", 2);
+        ReflectionTestUtils.setField(service, "xlsxWindow", 10);
+    }
+
+    private static EssayExportRow row(String title, String content) {
+        return new EssayExportRow(1L, 2L, "张三", title, content, T, T, "graded", 88,
+                "[\"错误一\",\"错误二\"]", "通顺", "清晰", "[]", null, T);
+    }
+
+    private String exportCsv(EssayExportRow... rows) throws Exception {
+        when(essayRepository.streamExportRows(List.of(2L))).thenReturn(Stream.of(rows));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(List.of(2L), EssayExportService.FORMAT_CSV, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void csvPrefixesFormulaCells() throws Exception {
+        String csv = exportCsv(
+                row("=HYPERLINK(\"http://x\")", "+1"),
+                row("-2", "@SUM(A1)"),
+                row("\tcmd", "正常内容"));
+
+        String[] lines = csv.substring(1).split("\r\n");
+        assertEquals("1,2,张三,\"'=HYPERLINK(\"\"http://x\"\")\",'+1,2024-05-01 08:30:15,2024-05-01 08:30:15,graded,88,"
+                + "\"错误一\n错误二\",通顺,清晰,,,2024-05-01 08:30:15", lines[1]);
+        assertEquals("'-2", lines[2].split(",")[3]);
+        assertEquals("'@SUM(A1)", lines[2].split(",")[4]);
+        assertEquals("'\tcmd", lines[3].split(",")[3]);
+        assertEquals("正常内容", lines[3].split(",")[4]);
+    }
+
+    @Test
+    void csvStartsWithBomAndHeader() throws Exception {
+        String csv = exportCsv();
+
+        assertEquals('﻿', csv.charAt(0));
+        assertEquals(1, csv.substring(1).split("\r\n").length);
+        assertEquals("作文ID", csv.substring(1).split(",")[0]);
+    }
+
+    @Test
+    void xlsxWritesFormulaLikeTextAsStringCells() throws Exception {
+        when(essayRepository.streamExportRows(List.of(2L))).thenReturn(Stream.of(row("=1+1", "-2")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(List.of(2L), EssayExportService.FORMAT_XLSX, out);
+
+        // 文本写为内联字符串单元格，不会被当作公式计算，内容原样保留；总分写为数值
+        String sheet = readEntry(out.toByteArray(), "xl/worksheets/sheet1.xml");
+        assertFalse(sheet.contains("<f>"), sheet);
+        assertTrue(sheet.contains("<c r=\"D2\" t=\"inlineStr\"><is><t>=1+1</t></is></c>"), sheet);
+        assertTrue(sheet.contains("<c r=\"E2\" t=\"inlineStr\"><is><t>-2</t></is></c>"), sheet);
+        assertTrue(sheet.contains("<c r=\"I2\" t=\"n\"><v>88.0</v></c>"), sheet);
+    }
+
+    // 按中央目录读取，流式写出的条目在本地文件头中不带长度
+    private String readEntry(byte[] zip, String name) throws Exception {
+        Path file = tempDir.resolve("export.xlsx");
+        Files.write(file, zip);
+        try (ZipFile zipFile = new ZipFile(file.toFile())) {
+            ZipEntry entry = zipFile.getEntry(name);
+            assertNotNull(entry, name);
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    @Test
+    void validatesUsersAndFormat() {
+        assertEquals(EssayExportService.FORMAT_NDJSON, service.validate(List.of(1L), null));
+        assertEquals(EssayExportService.FORMAT_XLSX, service.validate(List.of(1L), "XLSX"));
+        assertThrows(RuntimeException.class, () -> service.validate(List.of(), "csv"));
+        assertThrows(RuntimeException.class, () -> service.validate(List.of(1L, 2L, 3L), "csv"));
+        assertThrows(RuntimeException.class, () -> service.validate(List.of(1L), "pdf"));
+    }
+}
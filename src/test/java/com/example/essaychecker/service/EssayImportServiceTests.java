@@ -0,0 +1,217 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.ImportJobDto;
+import com.example.essaychecker.entity.Essay;
+import com.example.essaychecker.entity.User;
+import com.example.essaychecker.repository.EssayRepository;
+import com.example.essaychecker.repository.ImportJobRepository;
+import com.example.essaychecker.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EssayImportServiceTests {
+
+    private final EssayRepository essayRepository = mock(EssayRepository.class);
+    private final ImportJobRepository importJobRepository = mock(ImportJobRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor();
+    private final EssayImportService service = new EssayImportService();
+
+    // 每批写入的作文（调用时复制，写入后原列表会被清空）
+    private final List<List<Essay>> batches = new CopyOnWriteArrayList<>();
+    // 每次写入任务表的进度：状态/已处理/已导入/失败
+    private final List<String> progress = new CopyOnWriteArrayList<>();
+
+    EssayImportServiceTests() {
+        GradingJobService gradingJobService = mock(GradingJobService.class);
+        when(gradingJobService.getNodeId()).thenReturn("node-a");
+        ReflectionTestUtils.setField(service, "essayRepository", essayRepository);
+        ReflectionTestUtils.setField(service, "importJobRepository", importJobRepository);
+        ReflectionTestUtils.setField(service, "gradingJobService", gradingJobService);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "essaySearchService", mock(EssaySearchService.class));
+        ReflectionTestUtils.setField(service, "documentTextExtractor", mock(DocumentTextExtractor.class));
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "importExecutor", importExecutor);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "maxFileSize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(service, "maxEntries", 100);
+        ReflectionTestUtils.setField(service, "zipCharset", StandardCharsets.UTF_8);
+        ReflectionTestUtils.setField(service, "maxEntrySize", DataSize.ofKilobytes(16));
+        ReflectionTestUtils.setField(service, "maxChars", 20000);
+        service.init();
+
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(essayRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Essay> batch = new ArrayList<>(invocation.<List<Essay>>getArgument(0));
+            batches.add(batch);
+            return batch;
+        });
+        when(importJobRepository.updateProgress(anyString(), anyCollection(), anyString(), anyLong(), anyLong(),
+                anyLong(), any(), any())).thenAnswer(invocation -> {
+            progress.add(invocation.getArgument(2) + "/" + invocation.getArgument(3) + "/"
+                    + invocation.getArgument(4) + "/" + invocation.getArgument(5));
+            return 1;
+        });
+        when(importJobRepository.finish(anyString(), anyCollection(), anyString(), anyLong(), anyLong(), anyLong(),
+                any(), any(), any())).thenReturn(1);
+    }
+
+    // 提交后等待导入线程执行完毕
+    private ImportJobDto importAndWait(Long userId, String filename, byte[] content) throws Exception {
+        ImportJobDto job = service.submit(userId, filename, content.length, new ByteArrayInputStream(content));
+        importExecutor.shutdown();
+        assertTrue(importExecutor.awaitTermination(10, TimeUnit.SECONDS));
+        return job;
+    }
+
+    private static byte[] ndjson(String... lines) {
+        return String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void writesNdjsonInBatchesAndSavesProgressAfterEachBatch() throws Exception {
+        ImportJobDto job = importAndWait(1L, "essays.ndjson", ndjson(
+                "{\"title\":\"一\",\"content\":\"内容一\"}",
+                "{\"title\":\"二\",\"content\":\"内容二\",\"createdAt\":\"2024-05-01 08:30:15\"}",
+                "{不是JSON",
+                "{\"title\":\"四\",\"content\":\"内容四\"}",
+                "{\"title\":\"五\",\"content\":\"  \"}",
+                "",
+                "{\"content\":\"内容七\"}",
+                "{\"title\":\"八\",\"content\":\"内容八\"}"));
+
+        assertEquals(List.of(2, 2, 1), batches.stream().map(List::size).toList());
+        // 开始执行时写一次，之后每写入一批写一次
+        assertEquals(List.of("RUNNING/0/0/0", "RUNNING/2/2/0", "RUNNING/6/4/2", "RUNNING/7/5/2"), progress);
+        assertEquals(ImportJobDto.SUCCESS, job.getStatus());
+        assertEquals(7, job.getProcessed());
+        assertEquals(5, job.getImported());
+        assertEquals(List.of("第3行: JSON格式错误", "第5行: 作文内容为空"), job.getErrors());
+        assertEquals("导入的作文", batches.get(1).get(1).getTitle());
+        assertEquals(2024, batches.get(0).get(1).getCreatedAt().getYear());
+        verify(importJobRepository).finish(eq(job.getJobId()), anyCollection(), eq(ImportJobDto.SUCCESS),
+                eq(7L), eq(5L), eq(2L), any(), any(), any());
+    }
+
+    @Test
+    void failedBatchIsCountedAndImportContinues() throws Exception {
+        when(essayRepository.saveAll(anyList()))
+                .thenThrow(new RuntimeException("连接中断"))
+                .thenAnswer(invocation -> new ArrayList<>(invocation.<List<Essay>>getArgument(0)));
+
+        ImportJobDto job = importAndWait(1L, "essays.jsonl", ndjson(
+                "{\"content\":\"一\"}", "{\"content\":\"二\"}", "{\"content\":\"三\"}"));
+
+        assertEquals(ImportJobDto.SUCCESS, job.getStatus());
+        assertEquals(1, job.getImported());
+        assertEquals(2, job.getFailed());
+        assertEquals(List.of("写入数据库失败，本批2篇未导入"), job.getErrors());
+    }
+
+    @Test
+    void stopsWhenJobWasMarkedInterrupted() throws Exception {
+        // 开始时写入成功，第一批写入后发现任务已被其他节点标记为中断
+        when(importJobRepository.updateProgress(anyString(), anyCollection(), anyString(), anyLong(), anyLong(),
+                anyLong(), any(), any())).thenReturn(1, 0);
+
+        ImportJobDto job = importAndWait(1L, "essays.ndjson", ndjson(
+                "{\"content\":\"一\"}", "{\"content\":\"二\"}", "{\"content\":\"三\"}", "{\"content\":\"四\"}"));
+
+        assertEquals(1, batches.size());
+        assertEquals(ImportJobDto.FAILED, job.getStatus());
+        assertEquals("导入任务已被标记为中断", job.getError());
+    }
+
+    @Test
+    void assignsZipEntriesToUsersByFolder() throws Exception {
+        User alice = new User("alice", "x", "alice@example.com");
+        alice.setId(7L);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(userRepository.findByUsername("bob")).thenReturn(Optional.empty());
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip, StandardCharsets.UTF_8)) {
+            out.putNextEntry(new ZipEntry("alice/"));
+            out.putNextEntry(new ZipEntry("alice/我的家乡.txt"));
+            // 记事本保存的GBK文本
+            out.write("家乡的秋天".getBytes(Charset.forName("GBK")));
+            out.putNextEntry(new ZipEntry("alice/.DS_Store"));
+            out.write(1);
+            out.putNextEntry(new ZipEntry("__MACOSX/alice/._我的家乡.txt"));
+            out.write(1);
+            out.putNextEntry(new ZipEntry("bob/作文.txt"));
+            out.write("内容".getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("根目录.txt"));
+            out.write("内容".getBytes(StandardCharsets.UTF_8));
+        }
+
+        ImportJobDto job = importAndWait(null, "essays.zip", zip.toByteArray());
+
+        assertEquals(1, job.getImported());
+        assertEquals(2, job.getFailed());
+        Essay essay = batches.get(0).get(0);
+        assertEquals(7L, essay.getUserId());
+        assertEquals("我的家乡", essay.getTitle());
+        assertEquals("家乡的秋天", essay.getContent());
+        assertEquals(List.of("bob/作文.txt: 用户不存在: bob",
+                "根目录.txt: 请将作文放在以用户名命名的文件夹中，或在导入时指定用户"), job.getErrors());
+    }
+
+    @Test
+    void rejectsInvalidUploadsBeforeCreatingJob() {
+        byte[] content = ndjson("{\"content\":\"一\"}");
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> service.submit(1L, "essays.csv", content.length, new ByteArrayInputStream(content)));
+        assertEquals("仅支持ZIP压缩包或NDJSON文件", e.getMessage());
+
+        e = assertThrows(RuntimeException.class,
+                () -> service.submit(1L, "essays.ndjson", DataSize.ofKilobytes(65).toBytes(), new ByteArrayInputStream(content)));
+        assertEquals("导入文件不能超过0MB", e.getMessage());
+
+        e = assertThrows(RuntimeException.class,
+                () -> service.submit(1L, "essays.ndjson", -1, new ByteArrayInputStream(new byte[0])));
+        assertEquals("导入文件不能为空", e.getMessage());
+
+        // 未声明长度的请求体按实际读取的字节数限制
+        e = assertThrows(RuntimeException.class,
+                () -> service.submit(1L, "essays.ndjson", -1, new ByteArrayInputStream(new byte[65 * 1024])));
+        assertTrue(e.getMessage().startsWith("文件不能超过"), e.getMessage());
+
+        e = assertThrows(RuntimeException.class,
+                () -> service.submit(2L, "essays.ndjson", content.length, new ByteArrayInputStream(content)));
+        assertEquals("用户不存在", e.getMessage());
+
+        verify(importJobRepository, org.mockito.Mockito.never()).save(any());
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.CursorPageDto;
+import com.example.essaychecker.dto.EssaySummaryDto;
+import com.example.essaychecker.entity.CheckResult;
+import com.example.essaychecker.entity.Essay;
+import com.example.essaychecker.repository.EssayRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EssayServiceTests {
+
+    private static final LocalDateTime T = LocalDateTime.of(2024, 5, 1, 8, 30, 15, 123_000_000);
+
+    private final EssayRepository essayRepository = mock(EssayRepository.class);
+
+    private final GradingCacheService gradingCacheService = new GradingCacheService();
+
+    private EssayService service() {
+        EssayService service = new EssayService();
+        ReflectionTestUtils.setField(service, "essayRepository", essayRepository);
+        ReflectionTestUtils.setField(service, "gradingCacheService", gradingCacheService);
+        ReflectionTestUtils.setField(service, "failedRetryBackoff", 60_000L);
+        ReflectionTestUtils.setField(service, "failedRetryMaxAttempts", 3);
+        return service;
+    }
+
+    private EssaySummaryDto summary(long id, LocalDateTime createdAt) {
+        return new EssaySummaryDto(id, "标题" + id, "摘要", null, createdAt, createdAt);
+    }
+
+    @Test
+    void nextCursorResumesAfterLastItemOfPage() {
+        when(essayRepository.findSummariesByUserId(1L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(summary(9, T), summary(8, T), summary(7, T.minusSeconds(1))));
+
+        CursorPageDto<EssaySummaryDto> first = service().getUserEssayPage(1L, null, 2);
+
+        // 多取的一条只用于判断是否还有下一页，不返回
+        assertEquals(2, first.getItems().size());
+        assertTrue(first.isHasMore());
+
+        when(essayRepository.findSummariesByUserIdBefore(1L, T, 8L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(summary(7, T.minusSeconds(1))));
+
+        CursorPageDto<EssaySummaryDto> second = service().getUserEssayPage(1L, first.getNextCursor(), 2);
+
+        verify(essayRepository).findSummariesByUserIdBefore(1L, T, 8L, PageRequest.of(0, 3));
+        assertEquals(1, second.getItems().size());
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        when(essayRepository.findSummariesByUserId(1L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(summary(Long.MAX_VALUE, T), summary(1, T)));
+
+        String cursor = service().getUserEssayPage(1L, "", 1).getNextCursor();
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+    }
+
+    @Test
+    void clampsPageSize() {
+        service().getUserEssayPage(1L, null, 500);
+        service().getUserEssayPage(1L, null, 0);
+
+        verify(essayRepository).findSummariesByUserId(1L, PageRequest.of(0, 51));
+        verify(essayRepository).findSummariesByUserId(1L, PageRequest.of(0, 2));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        EssayService service = service();
+
+        for (String cursor : List.of("not-base64!", "bm8tc2VwYXJhdG9y", "MjAyNC0xMy0wMVQwMDowMHwx")) {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> service.getUserEssayPage(1L, cursor, 10));
+            assertEquals("无效的分页游标", e.getMessage());
+        }
+    }
+
+    private Essay essay(String content) {
+        Essay essay = new Essay(1L, "标题", content);
+        essay.setUpdatedAt(LocalDateTime.now().minusDays(1));
+        return essay;
+    }
+
+    private CheckResult result(String content, String status, Integer failedAttempts, LocalDateTime gradedAt) {
+        CheckResult result = new CheckResult();
+        result.setContentHash(gradingCacheService.hash(content));
+        result.setStatus(status);
+        result.setFailedAttempts(failedAttempts);
+        result.setGradedAt(gradedAt);
+        return result;
+    }
+
+    @Test
+    void gradedResultIsStaleOnlyWhenContentChanges() {
+        EssayService service = service();
+        CheckResult graded = result("原文。", CheckResult.STATUS_GRADED, null, LocalDateTime.now().minusDays(2));
+
+        // 仅排版不同的内容哈希相同
+        assertFalse(service.isStale(graded, essay("原 文。\n")));
+        assertTrue(service.isStale(graded, essay("改过的原文。")));
+    }
+
+    @Test
+    void legacyResultWithoutHashComparesUpdatedAt() {
+        EssayService service = service();
+        CheckResult legacy = new CheckResult();
+        legacy.setCreatedAt(LocalDateTime.now().minusHours(1));
+        Essay essay = essay("原文。");
+
+        essay.setUpdatedAt(legacy.getCreatedAt().minusMinutes(1));
+        assertFalse(service.isStale(legacy, essay));
+        essay.setUpdatedAt(legacy.getCreatedAt().plusMinutes(1));
+        assertTrue(service.isStale(legacy, essay));
+    }
+
+    @Test
+    void failedResultIsRetriedWithExponentialBackoff() {
+        EssayService service = service();
+        LocalDateTime now = LocalDateTime.now();
+        Essay essay = essay("原文。");
+
+        // 第1次失败后等待1分钟，第2次失败后等待2分钟
+        assertFalse(service.isStale(result("原文。", CheckResult.STATUS_FAILED, 1, now.minusSeconds(30)), essay));
+        assertTrue(service.isStale(result("原文。", CheckResult.STATUS_FAILED, 1, now.minusSeconds(61)), essay));
+        assertFalse(service.isStale(result("原文。", CheckResult.STATUS_FAILED, 2, now.minusSeconds(90)), essay));
+        assertTrue(service.isStale(result("原文。", CheckResult.STATUS_FAILED, 2, now.minusSeconds(121)), essay));
+    }
+
+    @Test
+    void failedResultIsNotRetriedAfterMaxAttemptsUnlessModified() {
+        EssayService service = service();
+        CheckResult exhausted = result("原文。", CheckResult.STATUS_FAILED, 4, LocalDateTime.now().minusDays(30));
+
+        assertFalse(service.isStale(exhausted, essay("原文。")));
+        assertTrue(service.isStale(exhausted, essay("修改后的原文。")));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.entity.GradingCacheEntry;
+import com.example.essaychecker.repository.GradingCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GradingCacheServiceTests {
+
+    private final GradingCacheRepository gradingCacheRepository = mock(GradingCacheRepository.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private GradingCacheService service(int maxSize, long ttl) {
+        GradingCacheService service = new GradingCacheService();
+        ReflectionTestUtils.setField(service, "gradingCacheRepository", gradingCacheRepository);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(service, "maxSize", maxSize);
+        ReflectionTestUtils.setField(service, "ttl", ttl);
+        service.registerMetrics();
+        when(gradingCacheRepository.findById(anyString())).thenReturn(Optional.empty());
+        return service;
+    }
+
+    private double hits(String tier) {
+        return meterRegistry.counter("grading.cache.hits", "tier", tier).count();
+    }
+
+    @Test
+    void hashIgnoresLayoutAndFullWidthDifferences() {
+        GradingCacheService service = service(10, 60_000);
+
+        // 空白、全角空格和全角字母数字不影响缓存键
+        assertEquals(service.hash("我的ABC作文 123。"), service.hash("　我的ＡＢＣ作文\n１２３。"));
+        assertNotEquals(service.hash("我的作文。"), service.hash("你的作文。"));
+    }
+
+    @Test
+    void namespacedEntriesDoNotCollideWithWholeEssay() {
+        GradingCacheService service = service(10, 60_000);
+
+        service.put("段落内容。", "{\"essay\":1}");
+        service.put("paragraph", "段落内容。", "{\"paragraph\":1}");
+
+        assertEquals("{\"essay\":1}", service.get("段落内容。"));
+        assertEquals("{\"paragraph\":1}", service.get("paragraph", "段落内容。"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntryWhenFull() {
+        GradingCacheService service = service(2, 60_000);
+
+        service.put("第一篇。", "1");
+        service.put("第二篇。", "2");
+        // 访问第一篇后，第二篇成为最久未使用的条目
+        service.get("第一篇。");
+        service.put("第三篇。", "3");
+
+        assertEquals("1", service.get("第一篇。"));
+        assertEquals("3", service.get("第三篇。"));
+        assertNull(service.get("第二篇。"));
+        assertEquals(1, meterRegistry.counter("grading.cache.evictions").count());
+        assertEquals(3, hits("memory"));
+        assertEquals(1, meterRegistry.counter("grading.cache.misses").count());
+    }
+
+    @Test
+    void databaseHitIsPromotedToMemory() {
+        GradingCacheService service = service(10, 60_000);
+        String key = service.hash("数据库中的作文。");
+        GradingCacheEntry entry = new GradingCacheEntry(key, "{\"score\":90}");
+        entry.setUpdatedAt(LocalDateTime.now().minusSeconds(10));
+        when(gradingCacheRepository.findById(key)).thenReturn(Optional.of(entry));
+
+        assertEquals("{\"score\":90}", service.get("数据库中的作文。"));
+        assertEquals("{\"score\":90}", service.get("数据库中的作文。"));
+
+        assertEquals(1, hits("database"));
+        assertEquals(1, hits("memory"));
+    }
+
+    @Test
+    void expiredDatabaseEntryIsTreatedAsMiss() {
+        GradingCacheService service = service(10, 60_000);
+        String key = service.hash("过期的作文。");
+        GradingCacheEntry written = new GradingCacheEntry(key, "{}");
+        written.setUpdatedAt(LocalDateTime.now().minusMinutes(2));
+        GradingCacheEntry timeless = new GradingCacheEntry(key, "{}");
+        when(gradingCacheRepository.findById(key)).thenReturn(Optional.of(written), Optional.of(timeless));
+
+        // 超过存活时间的条目和没有写入时间的条目都按未命中处理
+        assertNull(service.get("过期的作文。"));
+        assertNull(service.get("过期的作文。"));
+        assertEquals(2, meterRegistry.counter("grading.cache.misses").count());
+    }
+
+    @Test
+    void expiredMemoryEntryFallsBackToDatabase() {
+        GradingCacheService service = service(10, -1);
+
+        service.put("刚写入的作文。", "{}");
+
+        assertNull(service.get("刚写入的作文。"));
+        assertEquals(0, hits("memory"));
+        assertEquals(1, meterRegistry.counter("grading.cache.evictions").count());
+    }
+
+    @Test
+    void overwriteKeepsExistingRowAndRefreshesWriteTime() {
+        GradingCacheService service = service(10, 60_000);
+        String key = service.hash("已有的作文。");
+        GradingCacheEntry existing = new GradingCacheEntry(key, "旧结果");
+        LocalDateTime createdAt = LocalDateTime.now().minusHours(1);
+        existing.setCreatedAt(createdAt);
+        when(gradingCacheRepository.findById(key)).thenReturn(Optional.of(existing));
+
+        service.put("已有的作文。", "新结果");
+
+        verify(gradingCacheRepository).save(existing);
+        assertEquals("新结果", existing.getAiResponse());
+        assertEquals(createdAt, existing.getCreatedAt());
+        assertNotNull(existing.getUpdatedAt());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.essaychecker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IncrementalGradingServiceTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final AIService aiService = mock(AIService.class);
+    private final GradingCacheService gradingCacheService = mock(GradingCacheService.class);
+    private final IncrementalGradingService service = new IncrementalGradingService();
+
+    IncrementalGradingServiceTests() {
+        ChunkedGradingService chunkedGradingService = new ChunkedGradingService();
+        ReflectionTestUtils.setField(chunkedGradingService, "chunkGradingExecutor", executor);
+        ReflectionTestUtils.setField(chunkedGradingService, "targetSize", 1500);
+        ReflectionTestUtils.setField(chunkedGradingService, "structureWeight", 0.0);
+        ReflectionTestUtils.setField(chunkedGradingService, "maxItems", 20);
+
+        // 段落哈希用真实实现，缓存读写全部未命中
+        GradingCacheService hasher = new GradingCacheService();
+        when(gradingCacheService.hash(anyString())).thenAnswer(invocation -> hasher.hash(invocation.getArgument(0)));
+
+        ReflectionTestUtils.setField(service, "aiService", aiService);
+        ReflectionTestUtils.setField(service, "chunkedGradingService", chunkedGradingService);
+        ReflectionTestUtils.setField(service, "gradingCacheService", gradingCacheService);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "batchSize", 8);
+        ReflectionTestUtils.setField(service, "batchChars", 1500);
+        when(aiService.analyzeStructure(anyLong(), anyString())).thenReturn("{\"logicEvaluation\":\"结构清晰\"}");
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private String paragraphResult(String suggestion, int score) {
+        return "{\"writingSuggestions\":[\"" + suggestion + "\"],\"overallScore\":" + score + "}";
+    }
+
+    @Test
+    void reusesUnchangedParagraphsAndGradesOnlyChangedOnes() throws Exception {
+        when(aiService.analyzeParagraphs(1L, List.of("第一段。", "第二段。")))
+                .thenReturn("{\"paragraphs\":[" + paragraphResult("一", 60) + "," + paragraphResult("二", 60) + "]}");
+        IncrementalGradingService.Regrade first = service.regrade(1L, "第一段。\n第二段。", null);
+        assertEquals(0, first.reusedParagraphs());
+        assertEquals(2, first.gradedParagraphs());
+
+        // 只修改第二段并新增第三段，第一段沿用上次的结果
+        when(aiService.analyzeParagraphs(1L, List.of("第二段改了。", "第三段。")))
+                .thenReturn("{\"paragraphs\":[" + paragraphResult("二改", 90) + "," + paragraphResult("三", 90) + "]}");
+        IncrementalGradingService.Regrade second =
+                service.regrade(1L, "第一段。\n第二段改了。\n第三段。", first.paragraphResults());
+
+        assertEquals(1, second.reusedParagraphs());
+        assertEquals(2, second.gradedParagraphs());
+        verify(aiService, never()).analyzeParagraphs(1L, List.of("第一段。"));
+        JsonNode merged = objectMapper.readTree(second.aiResponse());
+        assertEquals("一", merged.get("writingSuggestions").get(0).asText());
+        // 按段落字数加权：(4 * 60 + 6 * 90 + 4 * 90) / 14
+        assertEquals(81, merged.get("overallScore").asInt());
+        assertEquals(3, objectMapper.readTree(second.paragraphResults()).size());
+    }
+
+    @Test
+    void unchangedContentMakesNoParagraphCalls() {
+        when(aiService.analyzeParagraphs(1L, List.of("第一段。")))
+                .thenReturn("{\"paragraphs\":[" + paragraphResult("一", 70) + "]}");
+        IncrementalGradingService.Regrade first = service.regrade(1L, "第一段。", null);
+
+        // 仅排版不同也视为未改动
+        IncrementalGradingService.Regrade second = service.regrade(1L, "  第一段。\n\n", first.paragraphResults());
+
+        assertEquals(1, second.reusedParagraphs());
+        assertEquals(0, second.gradedParagraphs());
+        verify(aiService).analyzeParagraphs(anyLong(), any());
+    }
+
+    @Test
+    void unreadablePreviousResultsRegradeEverything() {
+        when(aiService.analyzeParagraphs(eq(1L), any()))
+                .thenReturn("{\"paragraphs\":[" + paragraphResult("一", 70) + "]}");
+
+        IncrementalGradingService.Regrade regrade = service.regrade(1L, "第一段。", "不是JSON");
+
+        assertEquals(0, regrade.reusedParagraphs());
+        assertEquals(1, regrade.gradedParagraphs());
+    }
+
+    @Test
+    void rejectsMismatchedParagraphCount() {
+        when(aiService.analyzeParagraphs(eq(1L), any()))
+                .thenReturn("{\"paragraphs\":[" + paragraphResult("一", 70) + "]}");
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> service.regrade(1L, "第一段。\n第二段。", null));
+
+        assertEquals("AI返回的段落数与请求不一致", e.getMessage());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.ScoreDistributionDto;
+import com.example.essaychecker.entity.CheckResult;
+import com.example.essaychecker.entity.ScoreHistogramSnapshot;
+import com.example.essaychecker.repository.CheckResultRepository;
+import com.example.essaychecker.repository.ScoreHistogramSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScoreDistributionServiceTests {
+
+    private final CheckResultRepository checkResultRepository = mock(CheckResultRepository.class);
+    private final ScoreHistogramSnapshotRepository snapshotRepository = mock(ScoreHistogramSnapshotRepository.class);
+    private final ScoreDistributionService service = new ScoreDistributionService();
+
+    ScoreDistributionServiceTests() {
+        ReflectionTestUtils.setField(service, "checkResultRepository", checkResultRepository);
+        ReflectionTestUtils.setField(service, "scoreHistogramSnapshotRepository", snapshotRepository);
+        ReflectionTestUtils.setField(service, "rebuildBatchSize", 2);
+        ReflectionTestUtils.setField(service, "maxDays", 365);
+    }
+
+    private static CheckResultChangedEvent.ScoreSnapshot snapshot(int score, LocalDateTime gradedAt) {
+        return new CheckResultChangedEvent.ScoreSnapshot(score, List.of(), gradedAt);
+    }
+
+    private void graded(long id, int score, LocalDateTime gradedAt) {
+        service.onCheckResultChanged(new CheckResultChangedEvent(1L, id, id, null, snapshot(score, gradedAt)));
+    }
+
+    private static CheckResultRepository.ScoreRow row(long id, Integer score, String status, LocalDateTime gradedAt) {
+        return new CheckResultRepository.ScoreRow() {
+            public Long getId() { return id; }
+            public Integer getOverallScore() { return score; }
+            public String getStatus() { return status; }
+            public LocalDateTime getGradedAt() { return gradedAt; }
+        };
+    }
+
+    @Test
+    void computesMidpointPercentileRank() {
+        LocalDateTime now = LocalDateTime.now();
+        graded(1, 60, now);
+        graded(2, 70, now);
+        graded(3, 70, now);
+        graded(4, 80, now);
+
+        ScoreDistributionDto dto = service.getDistribution(70, null, 10);
+
+        // 低于70分1篇，等于70分2篇：(1 + 2 / 2) / 4
+        assertEquals(4, dto.getTotal());
+        assertEquals(1, dto.getBelow());
+        assertEquals(2, dto.getEqual());
+        assertEquals(50.0, dto.getPercentileRank());
+        assertEquals(0.0, service.getDistribution(0, null, 10).getPercentileRank());
+        assertEquals(100.0, service.getDistribution(100, null, 10).getPercentileRank());
+    }
+
+    @Test
+    void percentileRankIsNullWithoutData() {
+        assertNull(service.getDistribution(50, null, 10).getPercentileRank());
+    }
+
+    @Test
+    void mergesLastBucketIntoPrevious() {
+        graded(1, 100, LocalDateTime.now());
+
+        List<ScoreDistributionDto.ScoreBucket> tens = service.getDistribution(null, null, 10).getBuckets();
+        assertEquals(10, tens.size());
+        assertEquals(90, tens.get(9).getFrom());
+        assertEquals(100, tens.get(9).getTo());
+        assertEquals(1, tens.get(9).getCount());
+
+        List<ScoreDistributionDto.ScoreBucket> thirties = service.getDistribution(null, null, 30).getBuckets();
+        assertEquals(List.of(0, 30, 60), thirties.stream().map(ScoreDistributionDto.ScoreBucket::getFrom).toList());
+        assertEquals(100, thirties.get(2).getTo());
+    }
+
+    @Test
+    void windowCountsOnlyRecentDaysAndRegradeMovesScore() {
+        LocalDateTime now = LocalDateTime.now();
+        graded(1, 90, now.minusDays(3));
+        graded(2, 50, now);
+        // 重新批改：从旧分数移到新分数，并按新的批改时间归属日期
+        service.onCheckResultChanged(new CheckResultChangedEvent(1L, 2L, 2L, snapshot(50, now), snapshot(75, now)));
+
+        assertEquals(1, service.getDistribution(75, 2, 10).getTotal());
+        assertEquals(0, service.getDistribution(75, 2, 10).getBelow());
+        assertEquals(2, service.getDistribution(75, 7, 10).getTotal());
+        assertEquals(0, service.getDistribution(50, null, 10).getEqual());
+    }
+
+    @Test
+    void validatesArguments() {
+        assertThrows(RuntimeException.class, () -> service.getDistribution(101, null, 10));
+        assertThrows(RuntimeException.class, () -> service.getDistribution(50, 366, 10));
+        assertThrows(RuntimeException.class, () -> service.getDistribution(50, null, 0));
+    }
+
+    @Test
+    void rebuildReplaysChangesToRowsAlreadyScanned() {
+        LocalDateTime now = LocalDateTime.now();
+        // 重建前的计数会被重建结果整体替换
+        graded(99, 10, now);
+
+        when(checkResultRepository.findScoreRows(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(row(1, 80, CheckResult.STATUS_GRADED, now), row(2, 60, null, now)));
+        when(checkResultRepository.findScoreRows(eq(2L), any(Pageable.class))).thenAnswer(invocation -> {
+            // 读取第二批时：已扫描过的1号结果被重新批改，需要重放；尚未扫描的3号结果会以新状态被读到，不重放
+            service.onCheckResultChanged(new CheckResultChangedEvent(1L, 1L, 1L, snapshot(80, now), snapshot(85, now)));
+            service.onCheckResultChanged(new CheckResultChangedEvent(1L, 3L, 3L, null, snapshot(90, now)));
+            return List.of(row(3, 90, CheckResult.STATUS_GRADED, now), row(4, null, CheckResult.STATUS_FAILED, now));
+        });
+        when(checkResultRepository.findScoreRows(eq(4L), any(Pageable.class))).thenReturn(List.of());
+
+        service.scheduledRebuild();
+
+        ScoreDistributionDto dto = service.getDistribution(null, null, 1);
+        assertEquals(3, dto.getTotal());
+        assertEquals(1, dto.getBuckets().get(60).getCount());
+        assertEquals(0, dto.getBuckets().get(80).getCount());
+        assertEquals(1, dto.getBuckets().get(85).getCount());
+        assertEquals(1, dto.getBuckets().get(90).getCount());
+        assertEquals(0, dto.getBuckets().get(10).getCount());
+    }
+
+    @Test
+    void snapshotWritesChangedDaysAndDeletesEmptiedDays() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime earlier = now.minusDays(1);
+        graded(1, 70, now);
+        graded(2, 40, earlier);
+        service.onCheckResultChanged(new CheckResultChangedEvent(1L, 2L, 2L, snapshot(40, earlier), null));
+
+        service.snapshot();
+
+        verify(snapshotRepository).deleteById(earlier.toLocalDate());
+        verify(snapshotRepository).saveAll(ArgumentMatchers.<List<ScoreHistogramSnapshot>>argThat(
+                snapshots -> snapshots.size() == 1 && snapshots.get(0).getDay().equals(now.toLocalDate())));
+    }
+}
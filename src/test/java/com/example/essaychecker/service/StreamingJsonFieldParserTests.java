@@ -0,0 +1,73 @@
+package com.example.essaychecker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingJsonFieldParserTests {
+
+    private final List<String> events = new ArrayList<>();
+
+    private final GradingStreamListener listener = new GradingStreamListener() {
+        @Override
+        public void onField(String field, JsonNode value) {
+            events.add(field + "=" + value);
+        }
+
+        @Override
+        public void onArrayItem(String field, int index, JsonNode value) {
+            events.add(field + "[" + index + "]=" + value);
+        }
+    };
+
+    @Test
+    void emitsFieldsAsSoonAsTheyClose() {
+        StreamingJsonFieldParser parser = new StreamingJsonFieldParser(listener, new ObjectMapper());
+        String output = "```json\n{\"grammarErrors\": [\"的地不分\", \"标点误用\"], "
+                + "\"fluencyAnalysis\": \"整体流畅\", \"overallScore\": 85}\n```";
+
+        // 按3个字符切片输入，模拟AI逐段生成
+        for (int i = 0; i < output.length(); i += 3) {
+            parser.feed(output.substring(i, Math.min(output.length(), i + 3)));
+            if (i < output.indexOf("\"fluencyAnalysis\"")) {
+                assertFalse(events.contains("fluencyAnalysis=\"整体流畅\""));
+            }
+        }
+
+        assertEquals(List.of(
+                "grammarErrors[0]=\"的地不分\"",
+                "grammarErrors[1]=\"标点误用\"",
+                "grammarErrors=[\"的地不分\",\"标点误用\"]",
+                "fluencyAnalysis=\"整体流畅\"",
+                "overallScore=85"), events);
+        assertTrue(parser.isFinished());
+    }
+
+    @Test
+    void collectsNestedValuesAsWhole() {
+        StreamingJsonFieldParser parser = new StreamingJsonFieldParser(listener, new ObjectMapper());
+        parser.feed("{\"grammarErrors\": [{\"text\": \"错句\", \"tags\": [1, 2]}], \"meta\": {\"a\": 1}}");
+
+        assertEquals(List.of(
+                "grammarErrors[0]={\"text\":\"错句\",\"tags\":[1,2]}",
+                "grammarErrors=[{\"text\":\"错句\",\"tags\":[1,2]}]",
+                "meta={\"a\":1}"), events);
+    }
+
+    @Test
+    void stopsOnMalformedInput() {
+        StreamingJsonFieldParser parser = new StreamingJsonFieldParser(listener, new ObjectMapper());
+        parser.feed("{\"overallScore\": 80, ]");
+        parser.feed("\"fluencyAnalysis\": \"x\"}");
+
+        assertEquals(List.of("overallScore=80"), events);
+        assertTrue(parser.isFinished());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.TextMetricsDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextPreAnalyzerTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TextPreAnalyzer analyzer(int minChineseChars) {
+        TextPreAnalyzer analyzer = new TextPreAnalyzer();
+        ReflectionTestUtils.setField(analyzer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(analyzer, "minChineseChars", minChineseChars);
+        ReflectionTestUtils.setField(analyzer, "minChineseRatio", 0.3);
+        ReflectionTestUtils.setField(analyzer, "maxRepeatRatio", 0.5);
+        analyzer.registerMetrics();
+        return analyzer;
+    }
+
+    @Test
+    void countsCharactersSentencesAndParagraphs() {
+        TextMetricsDto metrics = analyzer(5).analyze("今天天气很好。我们去公园玩！\n\n　　明天下雨吗？");
+
+        assertEquals(20, metrics.getCharacterCount());
+        assertEquals(17, metrics.getChineseCharCount());
+        assertEquals(3, metrics.getSentenceCount());
+        assertEquals(2, metrics.getParagraphCount());
+        assertEquals(0, metrics.getPunctuationMisuseCount());
+        assertEquals(0, metrics.getHalfWidthPunctuationCount());
+        assertTrue(metrics.getIssues().isEmpty());
+    }
+
+    @Test
+    void countsLastSentenceWithoutEndPunctuation() {
+        TextMetricsDto metrics = analyzer(5).analyze("第一句。第二句没有句号");
+
+        assertEquals(2, metrics.getSentenceCount());
+    }
+
+    @Test
+    void detectsPunctuationMisuseAndHalfWidthPunctuation() {
+        // 段首逗号、连续句号各算一处误用；紧挨汉字的半角逗号算一处半角标点
+        TextMetricsDto metrics = analyzer(5).analyze("，开头。。结尾,好");
+
+        assertEquals(2, metrics.getPunctuationMisuseCount());
+        assertEquals(1, metrics.getHalfWidthPunctuationCount());
+        assertEquals(2, metrics.getIssues().size());
+    }
+
+    @Test
+    void allowsEmphasisEllipsisAndPairedPunctuation() {
+        TextMetricsDto metrics = analyzer(5).analyze("真的吗？！他说：“好……”《书名》。");
+
+        assertEquals(0, metrics.getPunctuationMisuseCount());
+        assertEquals(0, metrics.getRepeatedRunCount());
+    }
+
+    @Test
+    void detectsRepeatedRuns() {
+        TextMetricsDto metrics = analyzer(5).analyze("哈哈哈哈哈哈好的");
+
+        assertEquals(1, metrics.getRepeatedRunCount());
+        assertEquals(6, metrics.getMaxRepeatRun());
+    }
+
+    @Test
+    void rejectsUngradableContentAndCountsRejections() {
+        TextPreAnalyzer analyzer = analyzer(5);
+
+        assertEquals("作文内容为空", analyzer.rejectReason(analyzer.analyze("  \n ")));
+        assertEquals("作文内容不是有效的中文文本", analyzer.rejectReason(analyzer.analyze("hello world, 你好")));
+        assertEquals("作文内容大部分为重复字符", analyzer.rejectReason(analyzer.analyze("啊啊啊啊啊啊啊好的")));
+        assertEquals("作文内容过短，至少需要5个汉字", analyzer.rejectReason(analyzer.analyze("你好。")));
+        assertNull(analyzer.rejectReason(analyzer.analyze("今天天气很好。")));
+
+        assertEquals(4, meterRegistry.counter("grading.precheck.rejections").count());
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.essaychecker.service;
+
+import com.example.essaychecker.dto.UserAnalyticsDto;
+import com.example.essaychecker.entity.CheckResult;
+import com.example.essaychecker.entity.UserScoreSummary;
+import com.example.essaychecker.repository.CheckResultRepository;
+import com.example.essaychecker.repository.UserScoreSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserAnalyticsServiceTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    private static final LocalDate THIS_WEEK = NOW.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+    private final UserScoreSummaryRepository summaryRepository = mock(UserScoreSummaryRepository.class);
+    private final CheckResultRepository checkResultRepository = mock(CheckResultRepository.class);
+    private final UserAnalyticsService service = new UserAnalyticsService();
+
+    // 模拟数据库中的汇总行：每次读取都得到一份新的副本
+    private final AtomicReference<UserScoreSummary> stored = new AtomicReference<>();
+
+    UserAnalyticsServiceTests() {
+        ReflectionTestUtils.setField(service, "userScoreSummaryRepository", summaryRepository);
+        ReflectionTestUtils.setField(service, "checkResultRepository", checkResultRepository);
+        ReflectionTestUtils.setField(service, "trendWeeks", 4);
+        ReflectionTestUtils.setField(service, "topCategories", 2);
+        when(summaryRepository.findById(1L)).thenAnswer(invocation -> Optional.ofNullable(copy(stored.get())));
+        when(summaryRepository.save(any(UserScoreSummary.class))).thenAnswer(invocation -> {
+            UserScoreSummary summary = invocation.getArgument(0);
+            stored.set(copy(summary));
+            return summary;
+        });
+    }
+
+    private static UserScoreSummary copy(UserScoreSummary summary) {
+        if (summary == null) {
+            return null;
+        }
+        UserScoreSummary copy = new UserScoreSummary(summary.getUserId());
+        copy.setGradedCount(summary.getGradedCount());
+        copy.setScoreSum(summary.getScoreSum());
+        copy.setWeeklyBuckets(summary.getWeeklyBuckets());
+        copy.setErrorCategories(summary.getErrorCategories());
+        return copy;
+    }
+
+    private static CheckResultChangedEvent.ScoreSnapshot snapshot(int score, LocalDateTime gradedAt, String... errors) {
+        return new CheckResultChangedEvent.ScoreSnapshot(score, List.of(errors), gradedAt);
+    }
+
+    private void changed(CheckResultChangedEvent.ScoreSnapshot previous, CheckResultChangedEvent.ScoreSnapshot current) {
+        service.onCheckResultChanged(new CheckResultChangedEvent(1L, 10L, 100L, previous, current));
+    }
+
+    private static CheckResult checkResult(int score, LocalDateTime gradedAt, String... errors) {
+        CheckResult result = new CheckResult();
+        result.setOverallScore(score);
+        result.setGradedAt(gradedAt);
+        result.setGrammarErrors(List.of(errors));
+        return result;
+    }
+
+    @Test
+    void rebuildsSummaryFromHistoryOnFirstQuery() {
+        CheckResult failed = checkResult(0, NOW);
+        failed.setStatus(CheckResult.STATUS_FAILED);
+        when(checkResultRepository.findByUserId(1L)).thenReturn(List.of(
+                checkResult(70, NOW, "逗号使用错误"), checkResult(90, NOW.minusWeeks(1)), failed));
+
+        UserAnalyticsDto dto = service.getAnalytics(1L);
+
+        // 解析失败的结果不计入统计
+        assertEquals(2, dto.getGradedCount());
+        assertEquals(80.0, dto.getAverageScore());
+        assertEquals(List.of(THIS_WEEK.minusWeeks(1), THIS_WEEK),
+                dto.getTrend().stream().map(UserAnalyticsDto.TrendPoint::getWeekStart).toList());
+        assertEquals("标点符号", dto.getTopErrorCategories().get(0).getCategory());
+    }
+
+    @Test
+    void maintainsRunningSumsAcrossRegradeAndDelete() {
+        when(checkResultRepository.findByUserId(1L)).thenReturn(List.of());
+        service.getAnalytics(1L);
+
+        changed(null, snapshot(60, NOW));
+        changed(null, snapshot(80, NOW));
+        // 重新批改：60分改为90分
+        changed(snapshot(60, NOW), snapshot(90, NOW));
+        UserAnalyticsDto dto = service.getAnalytics(1L);
+        assertEquals(2, dto.getGradedCount());
+        assertEquals(85.0, dto.getAverageScore());
+        assertEquals(1, dto.getTrend().size());
+        assertEquals(2, dto.getTrend().get(0).getCount());
+        assertEquals(85.0, dto.getTrend().get(0).getAverageScore());
+
+        changed(snapshot(90, NOW), null);
+        changed(snapshot(80, NOW), null);
+        dto = service.getAnalytics(1L);
+        assertEquals(0, dto.getGradedCount());
+        assertNull(dto.getAverageScore());
+        assertEquals(List.of(), dto.getTrend());
+    }
+
+    @Test
+    void dropsWeeksOutsideWindowFromTrendButKeepsTotals() {
+        when(checkResultRepository.findByUserId(1L)).thenReturn(List.of(checkResult(50, NOW.minusWeeks(10))));
+        service.getAnalytics(1L);
+
+        changed(null, snapshot(100, NOW));
+        UserAnalyticsDto dto = service.getAnalytics(1L);
+        assertEquals(2, dto.getGradedCount());
+        assertEquals(75.0, dto.getAverageScore());
+        assertEquals(List.of(THIS_WEEK), dto.getTrend().stream().map(UserAnalyticsDto.TrendPoint::getWeekStart).toList());
+
+        // 删除窗口之前的结果只调整总数
+        changed(snapshot(50, NOW.minusWeeks(10)), null);
+        dto = service.getAnalytics(1L);
+        assertEquals(1, dto.getGradedCount());
+        assertEquals(100.0, dto.getAverageScore());
+        assertEquals(1, dto.getTrend().get(0).getCount());
+    }
+
+    @Test
+    void returnsTopCategoriesByCountThenName() {
+        when(checkResultRepository.findByUserId(1L)).thenReturn(List.of());
+        service.getAnalytics(1L);
+
+        changed(null, snapshot(70, NOW, "写错了字", "逗号多余", "搭配有误", "句号缺失", "别字"));
+        changed(null, snapshot(70, NOW, "搭配不对", "无法归类"));
+
+        List<UserAnalyticsDto.ErrorCategoryCount> top = service.getAnalytics(1L).getTopErrorCategories();
+        // 标点符号、错别字、搭配不当各2次，按类别名排序后取前2个
+        assertEquals(2, top.size());
+        assertEquals(List.of("搭配不当", "标点符号"), top.stream().map(UserAnalyticsDto.ErrorCategoryCount::getCategory).toList());
+        assertEquals(2, top.get(0).getCount());
+
+        // 旧结果的错误被移除后次数相应减少，减到0的类别不再出现
+        changed(snapshot(70, NOW, "搭配不对", "无法归类"), null);
+        top = service.getAnalytics(1L).getTopErrorCategories();
+        assertEquals(List.of("标点符号", "错别字"), top.stream().map(UserAnalyticsDto.ErrorCategoryCount::getCategory).toList());
+    }
+
+    @Test
+    void retriesOnConcurrentUpdate() {
+        when(checkResultRepository.findByUserId(1L)).thenReturn(List.of());
+        service.getAnalytics(1L);
+        AtomicInteger saves = new AtomicInteger();
+        when(summaryRepository.save(any(UserScoreSummary.class))).thenAnswer(invocation -> {
+            if (saves.incrementAndGet() == 1) {
+                throw new OptimisticLockingFailureException("并发更新");
+            }
+            UserScoreSummary summary = invocation.getArgument(0);
+            stored.set(copy(summary));
+            return summary;
+        });
+
+        changed(null, snapshot(60, NOW));
+
+        assertEquals(2, saves.get());
+        assertEquals(1, service.getAnalytics(1L).getGradedCount());
+    }
+
+    @Test
+    void ignoresEventsWithoutUserOrScores() {
+        service.onCheckResultChanged(new CheckResultChangedEvent(null, 10L, 100L, null, snapshot(60, NOW)));
+        service.onCheckResultChanged(new CheckResultChangedEvent(1L, 10L, 100L, null, null));
+
+        verify(summaryRepository, never()).findById(any());
+    }
+}